@@ -0,0 +1,24 @@
+package uk.ac.soton.comp1206.benchmarks;
+
+import org.openjdk.jmh.Main;
+
+/**
+ * Runs the benchmarks with the gc profiler always attached, so every result comes with its
+ * allocation rate. Takes the same command line options as the standard JMH launcher.
+ */
+public class BenchmarkRunner {
+
+  /**
+   * Run the benchmarks
+   *
+   * @param args JMH command line options
+   * @throws Exception if the options are invalid or the run fails
+   */
+  public static void main(String[] args) throws Exception {
+    var withProfiler = new String[args.length + 2];
+    withProfiler[0] = "-prof";
+    withProfiler[1] = "gc";
+    System.arraycopy(args, 0, withProfiler, 2, args.length);
+    Main.main(withProfiler);
+  }
+}
@@ -0,0 +1,120 @@
+package uk.ac.soton.comp1206.benchmarks;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.ac.soton.comp1206.engine.Board;
+import uk.ac.soton.comp1206.engine.GamePiece;
+import uk.ac.soton.comp1206.engine.Placements;
+
+/**
+ * Benchmarks checking and playing pieces on boards of different sizes and fill densities, with and
+ * without the JavaFX property view a GameBoard attaches to a Grid.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmarks.xml")
+@State(Scope.Thread)
+public class BoardBenchmark {
+
+  @Param({"5", "8", "16"})
+  public int size;
+
+  @Param({"0.0", "0.3", "0.6"})
+  public double density;
+
+  @Param({"false", "true"})
+  public boolean view;
+
+  private Board board;
+
+  private GamePiece[] pieces;
+
+  private Placements placements;
+
+  /**
+   * Every legal placement on the board, as a piece number and coordinates
+   */
+  private GamePiece[] placementPieces;
+  private int[] placementX;
+  private int[] placementY;
+
+  @Setup
+  public void setup() {
+    board = Boards.random(size, density, view);
+    pieces = Boards.allPieces();
+    placements = new Placements(size, size);
+
+    var found = new ArrayList<int[]>();
+    for (var piece = 0; piece < pieces.length; piece++) {
+      for (var x = 0; x < size; x++) {
+        for (var y = 0; y < size; y++) {
+          if (board.canPlayPiece(pieces[piece], x, y)) {
+            found.add(new int[]{piece, x, y});
+          }
+        }
+      }
+    }
+    placementPieces = new GamePiece[found.size()];
+    placementX = new int[found.size()];
+    placementY = new int[found.size()];
+    for (var i = 0; i < found.size(); i++) {
+      placementPieces[i] = pieces[found.get(i)[0]];
+      placementX[i] = found.get(i)[1];
+      placementY[i] = found.get(i)[2];
+    }
+  }
+
+  /**
+   * Check every piece in every rotation at every position on the board
+   */
+  @Benchmark
+  public void canPlayPiece(Blackhole blackhole) {
+    for (GamePiece piece : pieces) {
+      for (var x = 0; x < size; x++) {
+        for (var y = 0; y < size; y++) {
+          blackhole.consume(board.canPlayPiece(piece, x, y));
+        }
+      }
+    }
+  }
+
+  /**
+   * Find every placement of every piece in every rotation, the same work as
+   * {@link #canPlayPiece(Blackhole)}
+   */
+  @Benchmark
+  public void findPlacements(Blackhole blackhole) {
+    for (var piece = 0; piece < GamePiece.PIECES; piece++) {
+      blackhole.consume(board.findPlacements(pieces[piece * GamePiece.ROTATIONS], placements));
+    }
+  }
+
+  /**
+   * Play every legal placement on the board, emptying the blocks again after each one
+   */
+  @Benchmark
+  public void playPiece() {
+    for (var i = 0; i < placementPieces.length; i++) {
+      var piece = placementPieces[i];
+      board.playPiece(piece, placementX[i], placementY[i]);
+      for (var block = 0; block < piece.getBlockCount(); block++) {
+        board.set(placementX[i] + piece.getOffsetX(block), placementY[i] + piece.getOffsetY(block),
+            0);
+      }
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package uk.ac.soton.comp1206.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.soton.comp1206.engine.Board;
+import uk.ac.soton.comp1206.network.BoardSync;
+
+/**
+ * Benchmarks building the BOARD message a multiplayer game sends after every click
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmarks.xml")
+@State(Scope.Thread)
+public class BoardMessageBenchmark {
+
+  @Param({"5", "8", "16"})
+  public int size;
+
+  @Param({"0.0", "0.3", "0.6"})
+  public double density;
+
+  private Board board;
+
+  @Setup
+  public void setup() {
+    board = Boards.random(size, density, false);
+  }
+
+  /**
+   * Build the BOARD message for the board
+   */
+  @Benchmark
+  public String boardMessage() {
+    return BoardSync.boardMessage(board);
+  }
+}
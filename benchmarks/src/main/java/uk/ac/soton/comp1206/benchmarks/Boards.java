@@ -0,0 +1,68 @@
+package uk.ac.soton.comp1206.benchmarks;
+
+import java.util.Random;
+import uk.ac.soton.comp1206.engine.Board;
+import uk.ac.soton.comp1206.engine.GamePiece;
+import uk.ac.soton.comp1206.game.Grid;
+
+/**
+ * Builds the boards the benchmarks run against
+ */
+final class Boards {
+
+  /**
+   * The seed every board is filled from, so runs are comparable
+   */
+  static final long SEED = 1206;
+
+  private Boards() {
+  }
+
+  /**
+   * Create a board with roughly the given fraction of its blocks filled at random
+   *
+   * @param size     the number of rows and columns
+   * @param density  the fraction of blocks to fill, between 0 and 1
+   * @param withView whether to use a Grid with a property bound to every block
+   * @return the board
+   */
+  static Board random(int size, double density, boolean withView) {
+    Board board;
+    if (withView) {
+      var grid = new Grid(size, size);
+      for (var x = 0; x < size; x++) {
+        for (var y = 0; y < size; y++) {
+          grid.getGridProperty(x, y);
+        }
+      }
+      board = grid;
+    } else {
+      board = new Board(size, size);
+    }
+
+    var rnd = new Random(SEED);
+    for (var x = 0; x < size; x++) {
+      for (var y = 0; y < size; y++) {
+        if (rnd.nextDouble() < density) {
+          board.set(x, y, 1 + rnd.nextInt(GamePiece.PIECES));
+        }
+      }
+    }
+    return board;
+  }
+
+  /**
+   * Get every piece in every rotation
+   *
+   * @return all the pieces
+   */
+  static GamePiece[] allPieces() {
+    var pieces = new GamePiece[GamePiece.PIECES * GamePiece.ROTATIONS];
+    for (var piece = 0; piece < GamePiece.PIECES; piece++) {
+      for (var rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+        pieces[piece * GamePiece.ROTATIONS + rotation] = GamePiece.createPiece(piece, rotation);
+      }
+    }
+    return pieces;
+  }
+}
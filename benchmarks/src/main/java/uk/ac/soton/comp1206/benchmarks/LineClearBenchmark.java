@@ -0,0 +1,93 @@
+package uk.ac.soton.comp1206.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.soton.comp1206.engine.Board;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.GameTimer;
+import uk.ac.soton.comp1206.engine.RandomPieceSource;
+
+/**
+ * Benchmarks finding, clearing and scoring full lines after a piece is played. Each invocation
+ * restores the board from a template first; {@link #restoreOnly()} measures that cost on its own.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmarks.xml")
+@State(Scope.Thread)
+public class LineClearBenchmark {
+
+  @Param({"5", "8", "16"})
+  public int size;
+
+  @Param({"0.0", "0.3", "0.6"})
+  public double density;
+
+  /**
+   * The number of full rows and full columns on the template board
+   */
+  @Param({"0", "1", "2"})
+  public int lines;
+
+  @Param({"false", "true"})
+  public boolean view;
+
+  private Board template;
+
+  private Board board;
+
+  private GameEngine engine;
+
+  @Setup
+  public void setup() {
+    template = Boards.random(size, density, false);
+    for (var line = 0; line < lines; line++) {
+      for (var i = 0; i < size; i++) {
+        template.set(i, line, 1);
+        template.set(line, i, 1);
+      }
+    }
+
+    board = Boards.random(size, 0, view);
+    engine = new GameEngine(board, new RandomPieceSource(), new GameTimer() {
+      @Override
+      public void start(int delay, Runnable expiry) {
+      }
+
+      @Override
+      public void cancel() {
+      }
+    });
+  }
+
+  /**
+   * Restore the board and run the line clear that follows playing a piece
+   */
+  @Benchmark
+  public int afterPiece() {
+    board.copyFrom(template);
+    engine.afterPiece();
+    return engine.getScore();
+  }
+
+  /**
+   * Restore the board without clearing anything
+   */
+  @Benchmark
+  public Board restoreOnly() {
+    board.copyFrom(template);
+    return board;
+  }
+}
@@ -0,0 +1,49 @@
+package uk.ac.soton.comp1206.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.ac.soton.comp1206.engine.GamePiece;
+
+/**
+ * Benchmarks spawning and rotating pieces
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmarks.xml")
+@State(Scope.Thread)
+public class PieceBenchmark {
+
+  private GamePiece piece = GamePiece.createPiece(0);
+
+  /**
+   * Create every piece in every rotation
+   */
+  @Benchmark
+  public void createPiece(Blackhole blackhole) {
+    for (var number = 0; number < GamePiece.PIECES; number++) {
+      for (var rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+        blackhole.consume(GamePiece.createPiece(number, rotation));
+      }
+    }
+  }
+
+  /**
+   * Rotate a piece once
+   */
+  @Benchmark
+  public GamePiece rotate() {
+    piece = piece.rotate();
+    return piece;
+  }
+}
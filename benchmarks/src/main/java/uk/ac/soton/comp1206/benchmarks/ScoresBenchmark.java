@@ -0,0 +1,72 @@
+package uk.ac.soton.comp1206.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javafx.util.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.soton.comp1206.scene.ScoresScene;
+
+/**
+ * Benchmarks reading the local scores file the way the scores screen does
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmarks.xml")
+@State(Scope.Thread)
+public class ScoresBenchmark {
+
+  /**
+   * The number of lines in the scores file
+   */
+  @Param({"10", "1000"})
+  public int scores;
+
+  private Path scoresFile;
+
+  @Setup
+  public void setup() throws IOException {
+    scoresFile = Files.createTempFile("scores", ".txt");
+    var lines = new StringBuilder();
+    for (var i = 0; i < scores; i++) {
+      lines.append("Player").append(i).append(':').append(i * 10).append('\n');
+    }
+    Files.writeString(scoresFile, lines);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(scoresFile);
+  }
+
+  /**
+   * Read the top ten scores, as the scores screen does
+   */
+  @Benchmark
+  public List<Pair<String, Integer>> loadScores() {
+    return ScoresScene.readScores(scoresFile.toString(), 10);
+  }
+
+  /**
+   * Read every score in the file
+   */
+  @Benchmark
+  public List<Pair<String, Integer>> loadAllScores() {
+    return ScoresScene.readScores(scoresFile.toString(), Integer.MAX_VALUE);
+  }
+}
@@ -1,5 +1,7 @@
 module uk.ac.soton.comp1206 {
+    requires java.management;
     requires java.scripting;
+    requires jdk.jfr;
     requires javafx.controls;
     requires javafx.fxml;
     requires javafx.media;
@@ -13,4 +15,11 @@ module uk.ac.soton.comp1206 {
     exports uk.ac.soton.comp1206.event;
     exports uk.ac.soton.comp1206.component;
     exports uk.ac.soton.comp1206.game;
+    exports uk.ac.soton.comp1206.engine;
+    exports uk.ac.soton.comp1206.bot;
+    exports uk.ac.soton.comp1206.simulation;
+    exports uk.ac.soton.comp1206.replay;
+    exports uk.ac.soton.comp1206.jfr;
+    exports uk.ac.soton.comp1206.metrics;
+    exports uk.ac.soton.comp1206.server;
 }
\ No newline at end of file
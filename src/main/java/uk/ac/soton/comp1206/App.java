@@ -1,11 +1,14 @@
 package uk.ac.soton.comp1206;
 
+import java.io.IOException;
 import javafx.application.Application;
 import javafx.stage.Stage;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import uk.ac.soton.comp1206.metrics.Metrics;
+import uk.ac.soton.comp1206.server.LocalServer;
 import uk.ac.soton.comp1206.ui.GameWindow;
 
 /**
@@ -23,17 +26,28 @@ public class App extends Application {
      */
     private final int height = 600;
 
+    /**
+     * The server played online with unless another is given
+     */
+    private static final String DEFAULT_SERVER = "ws://ofb-labs.soton.ac.uk:9700";
+
+    /**
+     * The local stand-in server, if one has been started
+     */
+    private LocalServer localServer;
+
     private static App instance;
     private static final Logger logger = LogManager.getLogger(App.class);
     private Stage stage;
 
     /**
-     * Start the game
+     * Start the game. The server can be chosen with {@code --server=<url>}, or {@code --server=local} to play
+     * online with a stand-in server started inside the game.
      * @param args commandline arguments
      */
     public static void main(String[] args) {
         logger.info("Starting client");
-        launch();
+        launch(args);
     }
 
     /**
@@ -45,6 +59,9 @@ public class App extends Application {
         instance = this;
         this.stage = stage;
 
+        //Make the metrics available to JMX clients such as JConsole
+        Metrics.registerMBean();
+
         //Open game window
         openGame();
     }
@@ -56,17 +73,39 @@ public class App extends Application {
         logger.info("Opening game window");
 
         //Change the width and height in this class to change the base rendering resolution for all game parts
-        var gameWindow = new GameWindow(stage,width,height);
+        var gameWindow = new GameWindow(stage,width,height,chooseServer());
 
         //Display the GameWindow
         stage.show();
     }
 
     /**
-     * Shutdown the game
+     * Work out the server to play online with from the commandline, starting the local stand-in server if asked
+     * @return the URL of the server
+     */
+    private String chooseServer() {
+        var server = getParameters().getNamed().getOrDefault("server", DEFAULT_SERVER);
+        if(!server.equals("local")) {
+            return server;
+        }
+        try {
+            localServer = new LocalServer(0);
+            localServer.start();
+            return localServer.getUrl();
+        } catch (IOException e) {
+            logger.error("Unable to start local server, using {}: {}", DEFAULT_SERVER, e.getMessage());
+            return DEFAULT_SERVER;
+        }
+    }
+
+    /**
+     * Shutdown the game, and the local stand-in server if one was started
      */
     public void shutdown() {
         logger.info("Shutting down");
+        if(localServer != null) {
+            localServer.stop();
+        }
         System.exit(0);
     }
 
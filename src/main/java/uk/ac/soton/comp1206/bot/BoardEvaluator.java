@@ -0,0 +1,22 @@
+package uk.ac.soton.comp1206.bot;
+
+import uk.ac.soton.comp1206.engine.Board;
+
+/**
+ * Judges how good a board is to be left with after a move, higher being better. Used by a Search
+ * to compare the boards its moves lead to.
+ * <p>
+ * An evaluator is called from many search threads at once, so it must not keep any state between
+ * calls.
+ */
+@FunctionalInterface
+public interface BoardEvaluator {
+
+  /**
+   * Judge a board
+   *
+   * @param board the board to judge, which must not be changed
+   * @return the value of the board
+   */
+  double evaluate(Board board);
+}
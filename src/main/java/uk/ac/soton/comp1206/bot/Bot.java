@@ -0,0 +1,202 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.engine.Board;
+import uk.ac.soton.comp1206.engine.GamePiece;
+import uk.ac.soton.comp1206.game.Game;
+
+/**
+ * A Bot plays a Game (or MultiplayerGame) by itself, choosing each move with a Search and playing
+ * it through the same methods the keyboard controls use, so a multiplayer game still tells the
+ * server about every move.
+ * <p>
+ * The game is only read and played on the thread it runs on, normally the JavaFX application
+ * thread, and the search runs in its own pool in between. Each search is given a fraction of the
+ * time left to play the piece so the bot never runs out of time.
+ */
+public class Bot {
+
+  private static final Logger logger = LogManager.getLogger(Bot.class);
+
+  /**
+   * The fraction of the time allowed for a piece that the search may use
+   */
+  private static final int TIME_FRACTION = 4;
+
+  /**
+   * How long to wait before looking again when there is no piece to play, in milliseconds
+   */
+  private static final long RETRY_DELAY = 100;
+
+  /**
+   * The game being played
+   */
+  private final Game game;
+
+  /**
+   * Runs tasks on the thread the game is played on
+   */
+  private final Executor gameThread;
+
+  /**
+   * Chooses the moves
+   */
+  private final Search search;
+
+  /**
+   * How long to wait between moves, in milliseconds
+   */
+  private final long moveDelay;
+
+  /**
+   * The board the position is copied to before searching, only used on the game thread
+   */
+  private final Board position;
+
+  /**
+   * Whether the bot is playing
+   */
+  private volatile boolean playing;
+
+  /**
+   * Create a bot which plays as quickly as it can with the standard search
+   *
+   * @param game       the game to play
+   * @param gameThread runs tasks on the thread the game is played on
+   */
+  public Bot(Game game, Executor gameThread) {
+    this(game, gameThread, new Search(), 0);
+  }
+
+  /**
+   * Create a bot
+   *
+   * @param game       the game to play
+   * @param gameThread runs tasks on the thread the game is played on
+   * @param search     chooses the moves, in the common pool if it has no pool of its own
+   * @param moveDelay  how long to wait between moves, in milliseconds
+   */
+  public Bot(Game game, Executor gameThread, Search search, long moveDelay) {
+    this.game = game;
+    this.gameThread = gameThread;
+    this.search = search;
+    this.moveDelay = moveDelay;
+    this.position = new Board(game.getCols(), game.getRows());
+  }
+
+  /**
+   * Start playing
+   */
+  public void start() {
+    logger.info("Bot taking over the game");
+    playing = true;
+    gameThread.execute(this::takeTurn);
+  }
+
+  /**
+   * Stop playing. A search already running finishes but its move is not played.
+   */
+  public void stop() {
+    logger.info("Bot handing back the game");
+    playing = false;
+  }
+
+  /**
+   * Check if the bot is playing
+   *
+   * @return true if playing
+   */
+  public boolean isPlaying() {
+    return playing;
+  }
+
+  /**
+   * Search the current position and play the move found. Runs on the game thread.
+   */
+  private void takeTurn() {
+    if (!playing) {
+      return;
+    }
+
+    var engine = game.getEngine();
+    var current = engine.getCurrentPiece();
+    if (current == null) {
+      //Wait for the first pieces to arrive
+      later(RETRY_DELAY);
+      return;
+    }
+
+    var following = engine.getFollowingPiece();
+    var multiplier = engine.getMultiplier();
+    position.copyFrom(engine.getBoard());
+    var deadline = System.nanoTime()
+        + TimeUnit.MILLISECONDS.toNanos(game.getTimerDelay() / TIME_FRACTION);
+
+    var pool = search.getPool() == null ? ForkJoinPool.commonPool() : search.getPool();
+    CompletableFuture
+        .supplyAsync(() -> search.findMove(position, current, following, multiplier, deadline),
+            pool)
+        .whenCompleteAsync((move, error) -> {
+          if (error != null) {
+            logger.error("Bot search failed", error);
+            playing = false;
+            return;
+          }
+          play(move, current, following);
+        }, gameThread);
+  }
+
+  /**
+   * Play a move, if the pieces it was found for are still the ones in play. Runs on the game
+   * thread.
+   *
+   * @param move      the move, or null if there was none
+   * @param current   the current piece when the search started
+   * @param following the following piece when the search started
+   */
+  private void play(Move move, GamePiece current, GamePiece following) {
+    if (!playing) {
+      return;
+    }
+
+    var engine = game.getEngine();
+    if (move == null || engine.getCurrentPiece() != current
+        || engine.getFollowingPiece() != following) {
+      //Nothing fits, or the timer dealt a new piece while searching
+      later(RETRY_DELAY);
+      return;
+    }
+
+    logger.debug("Bot playing {}", move);
+    if (move.isSwap()) {
+      game.swapCurrentPiece();
+    }
+    var rotations = Math.floorMod(move.getRotation() - engine.getCurrentPiece().getRotation(),
+        GamePiece.ROTATIONS);
+    if (rotations > 0) {
+      game.rotateCurrentPiece(rotations);
+    }
+    game.blockClicked(move.getX(), move.getY());
+
+    later(moveDelay);
+  }
+
+  /**
+   * Take the next turn after a delay
+   *
+   * @param delay the delay in milliseconds
+   */
+  private void later(long delay) {
+    if (delay <= 0) {
+      gameThread.execute(this::takeTurn);
+    } else {
+      CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, gameThread)
+          .execute(this::takeTurn);
+    }
+  }
+}
@@ -0,0 +1,121 @@
+package uk.ac.soton.comp1206.bot;
+
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.GamePiece;
+
+/**
+ * A move chosen by a bot: whether to swap the current and following pieces first, which rotation
+ * to play the piece in and where to centre it
+ */
+public class Move {
+
+  /**
+   * Whether to swap the current and following pieces before playing
+   */
+  private final boolean swap;
+
+  /**
+   * The rotation to play the piece in, from 0 to 3
+   */
+  private final int rotation;
+
+  /**
+   * The column to centre the piece on
+   */
+  private final int x;
+
+  /**
+   * The row to centre the piece on
+   */
+  private final int y;
+
+  /**
+   * How good the search judged the move to be
+   */
+  private final double value;
+
+  /**
+   * Create a new move
+   *
+   * @param swap     whether to swap the current and following pieces first
+   * @param rotation the rotation to play the piece in
+   * @param x        the column to centre the piece on
+   * @param y        the row to centre the piece on
+   * @param value    how good the move was judged to be
+   */
+  public Move(boolean swap, int rotation, int x, int y, double value) {
+    this.swap = swap;
+    this.rotation = rotation;
+    this.x = x;
+    this.y = y;
+    this.value = value;
+  }
+
+  /**
+   * Check if the current and following pieces should be swapped before playing
+   *
+   * @return true to swap first
+   */
+  public boolean isSwap() {
+    return swap;
+  }
+
+  /**
+   * Get the rotation to play the piece in
+   *
+   * @return the rotation, from 0 to 3
+   */
+  public int getRotation() {
+    return rotation;
+  }
+
+  /**
+   * Get the column to centre the piece on
+   *
+   * @return the column
+   */
+  public int getX() {
+    return x;
+  }
+
+  /**
+   * Get the row to centre the piece on
+   *
+   * @return the row
+   */
+  public int getY() {
+    return y;
+  }
+
+  /**
+   * Get how good the search judged the move to be
+   *
+   * @return the value
+   */
+  public double getValue() {
+    return value;
+  }
+
+  /**
+   * Play this move on an engine: swap if needed, turn the current piece to the rotation and play it
+   *
+   * @param engine the engine to play on
+   * @return true if the piece was played
+   */
+  public boolean playOn(GameEngine engine) {
+    if (swap) {
+      engine.swapCurrentPiece();
+    }
+    var rotations = Math.floorMod(rotation - engine.getCurrentPiece().getRotation(),
+        GamePiece.ROTATIONS);
+    if (rotations > 0) {
+      engine.rotateCurrentPiece(rotations);
+    }
+    return engine.playPiece(x, y);
+  }
+
+  @Override
+  public String toString() {
+    return (swap ? "swap, " : "") + "rotation " + rotation + " at " + x + "," + y;
+  }
+}
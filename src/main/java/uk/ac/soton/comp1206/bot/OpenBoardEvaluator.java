@@ -0,0 +1,87 @@
+package uk.ac.soton.comp1206.bot;
+
+import uk.ac.soton.comp1206.engine.Board;
+import uk.ac.soton.comp1206.engine.GamePiece;
+
+/**
+ * The standard BoardEvaluator, which prefers boards that every piece can still be played on and
+ * whose lines are close to being cleared.
+ * <p>
+ * Each piece that no longer fits anywhere costs a large penalty, since being dealt it would cost a
+ * life. Each empty block with no empty neighbours costs a smaller penalty, since only the smallest
+ * piece can fill it. Every row and column then adds the square of its filled blocks, so moves that
+ * build towards full lines beat moves that spread blocks out.
+ */
+public class OpenBoardEvaluator implements BoardEvaluator {
+
+  /**
+   * The penalty for each piece which cannot be played anywhere
+   */
+  private static final double BLOCKED_PIECE_PENALTY = 30;
+
+  /**
+   * The penalty for each empty block surrounded by filled blocks or edges
+   */
+  private static final double HOLE_PENALTY = 8;
+
+  @Override
+  public double evaluate(Board board) {
+    var value = 0.0;
+
+    for (var piece = 0; piece < GamePiece.PIECES; piece++) {
+      if (!fitsAnywhere(board, piece)) {
+        value -= BLOCKED_PIECE_PENALTY;
+      }
+    }
+
+    for (var x = 0; x < board.getCols(); x++) {
+      for (var y = 0; y < board.getRows(); y++) {
+        if (!board.isOccupied(x, y) && isHole(board, x, y)) {
+          value -= HOLE_PENALTY;
+        }
+      }
+    }
+
+    for (var y = 0; y < board.getRows(); y++) {
+      value += board.getRowCount(y) * board.getRowCount(y);
+    }
+    for (var x = 0; x < board.getCols(); x++) {
+      value += board.getColCount(x) * board.getColCount(x);
+    }
+    return value;
+  }
+
+  /**
+   * Check if a piece fits anywhere on the board in any rotation, stopping at the first fit
+   *
+   * @param board the board
+   * @param piece the piece number
+   * @return true if the piece can be played
+   */
+  private boolean fitsAnywhere(Board board, int piece) {
+    for (var rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+      var rotated = GamePiece.createPiece(piece, rotation);
+      for (var y = 0; y < board.getRows(); y++) {
+        for (var x = 0; x < board.getCols(); x++) {
+          if (board.canPlayPiece(rotated, x, y)) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Check if an empty block has no empty neighbours
+   *
+   * @param board the board
+   * @param x     column
+   * @param y     row
+   * @return true if every neighbour is filled or off the board
+   */
+  private boolean isHole(Board board, int x, int y) {
+    return board.get(x - 1, y) != 0 && board.get(x + 1, y) != 0
+        && board.get(x, y - 1) != 0 && board.get(x, y + 1) != 0;
+  }
+}
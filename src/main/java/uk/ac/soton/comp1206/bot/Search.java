@@ -0,0 +1,395 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.engine.Board;
+import uk.ac.soton.comp1206.engine.CellSet;
+import uk.ac.soton.comp1206.engine.GamePiece;
+import uk.ac.soton.comp1206.engine.Placements;
+import uk.ac.soton.comp1206.engine.TranspositionTable;
+
+/**
+ * A Search picks the best move for a position by looking ahead over the current and following
+ * pieces: every placement of one of them (after a swap or not), then every placement of the other
+ * on the board that leaves, scoring the lines each clears and judging the final board with a
+ * BoardEvaluator.
+ * <p>
+ * The first placements are split between the threads of a ForkJoinPool, each working on its own
+ * copies of the board. A search without a pool runs on the calling thread instead, for callers such
+ * as the Simulator which already keep every core busy with searches of their own.
+ * <p>
+ * The search is bounded by a deadline: once it passes, the remaining first placements are only
+ * judged one piece deep, so a move is always returned in time.
+ * <p>
+ * The same boards come up again and again, both within a search (playing one piece then the other
+ * often leads to the same board as the other way round) and from one move to the next, so the
+ * value the evaluator gives each board is remembered in a TranspositionTable shared by every
+ * thread of the search.
+ */
+public class Search {
+
+  private static final Logger logger = LogManager.getLogger(Search.class);
+
+  /**
+   * The number of first placements a task searches itself rather than splitting
+   */
+  private static final int SPLIT_THRESHOLD = 4;
+
+  /**
+   * How many second placements are tried between checks of the deadline
+   */
+  private static final int DEADLINE_CHECK_INTERVAL = 64;
+
+  /**
+   * The bit of a packed move saying the pieces are swapped first
+   */
+  private static final int SWAP_BIT = 1 << 20;
+
+  /**
+   * The shift of the rotation in a packed move, below which is the cell index
+   */
+  private static final int ROTATION_SHIFT = 18;
+
+  /**
+   * The cell index bits of a packed move
+   */
+  private static final int INDEX_MASK = (1 << ROTATION_SHIFT) - 1;
+
+  /**
+   * The number of board values remembered by a search which is not given a table
+   */
+  private static final int DEFAULT_TABLE_SIZE = 1 << 16;
+
+  /**
+   * The pool the search runs in, or null to run on the calling thread
+   */
+  private final ForkJoinPool pool;
+
+  /**
+   * Judges the boards the moves lead to
+   */
+  private final BoardEvaluator evaluator;
+
+  /**
+   * The number of pieces to look ahead, 1 or 2
+   */
+  private final int depth;
+
+  /**
+   * Remembers the value of boards already evaluated, or null to evaluate every board
+   */
+  private final TranspositionTable table;
+
+  /**
+   * Create a search looking two pieces ahead with the standard evaluator on the common pool
+   */
+  public Search() {
+    this(ForkJoinPool.commonPool(), new OpenBoardEvaluator(), 2);
+  }
+
+  /**
+   * Create a search which runs on the calling thread
+   *
+   * @param evaluator judges the boards moves lead to
+   * @param depth     the number of pieces to look ahead, 1 or 2
+   */
+  public Search(BoardEvaluator evaluator, int depth) {
+    this(null, evaluator, depth);
+  }
+
+  /**
+   * Create a search
+   *
+   * @param pool      the pool to run in, or null to run on the calling thread
+   * @param evaluator judges the boards moves lead to
+   * @param depth     the number of pieces to look ahead, 1 or 2
+   */
+  public Search(ForkJoinPool pool, BoardEvaluator evaluator, int depth) {
+    this(pool, evaluator, depth, new TranspositionTable(DEFAULT_TABLE_SIZE));
+  }
+
+  /**
+   * Create a search which remembers the value of boards in the given table. Searches sharing a
+   * table must use the same evaluator.
+   *
+   * @param pool      the pool to run in, or null to run on the calling thread
+   * @param evaluator judges the boards moves lead to
+   * @param depth     the number of pieces to look ahead, 1 or 2
+   * @param table     remembers the value of boards, or null to evaluate every board
+   */
+  public Search(ForkJoinPool pool, BoardEvaluator evaluator, int depth, TranspositionTable table) {
+    if (depth < 1 || depth > 2) {
+      throw new IllegalArgumentException("Search depth must be 1 or 2");
+    }
+    this.pool = pool;
+    this.evaluator = evaluator;
+    this.depth = depth;
+    this.table = table;
+  }
+
+  /**
+   * Get the pool the search runs in
+   *
+   * @return the pool, or null if it runs on the calling thread
+   */
+  public ForkJoinPool getPool() {
+    return pool;
+  }
+
+  /**
+   * Find the best move for a position. The board is only read, and not while the search is running
+   * on other threads, so callers may pass a board they go on to change once this returns.
+   *
+   * @param board      the board to play on
+   * @param current    the current piece
+   * @param following  the following piece, or null if there is none yet
+   * @param multiplier the current score multiplier
+   * @param deadline   the {@link System#nanoTime()} by which the search should finish
+   * @return the best move, or null if neither piece can be played anywhere
+   */
+  public Move findMove(Board board, GamePiece current, GamePiece following, int multiplier,
+      long deadline) {
+    var start = System.nanoTime();
+
+    var position = new Board(board.getCols(), board.getRows());
+    position.copyFrom(board);
+
+    var moves = firstMoves(position, current, following);
+    if (moves.length == 0) {
+      logger.debug("No move for {} or {}", current, following);
+      return null;
+    }
+
+    var root = new Root(position, current, following, multiplier, deadline);
+    var task = new SearchTask(root, moves, 0, moves.length);
+    var best = pool == null ? task.compute() : pool.invoke(task);
+
+    logger.debug("Chose {} from {} moves in {}us", best, moves.length,
+        (System.nanoTime() - start) / 1000);
+    return best;
+  }
+
+  /**
+   * List every placement of the current piece, and of the following piece after a swap
+   *
+   * @param board     the board
+   * @param current   the current piece
+   * @param following the following piece, or null
+   * @return the moves, packed as the swap bit, the rotation and the centre cell index
+   */
+  private int[] firstMoves(Board board, GamePiece current, GamePiece following) {
+    var placements = new Placements(board.getCols(), board.getRows());
+    var moves = new int[0];
+    var count = 0;
+
+    for (var swap = 0; swap < (following == null ? 1 : 2); swap++) {
+      var piece = swap == 0 ? current : following;
+      if (board.findPlacements(piece, placements) == 0) {
+        continue;
+      }
+      moves = Arrays.copyOf(moves, count + placements.size());
+
+      for (var rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+        if (isRepeatedRotation(piece, rotation)) {
+          continue;
+        }
+        var centres = placements.getCentres(rotation);
+        for (var index = centres.next(0); index >= 0; index = centres.next(index + 1)) {
+          moves[count++] = (swap == 0 ? 0 : SWAP_BIT) | (rotation << ROTATION_SHIFT) | index;
+        }
+      }
+    }
+    return Arrays.copyOf(moves, count);
+  }
+
+  /**
+   * Check if a rotation of a piece has the same shape as an earlier rotation, so placing it would
+   * repeat work already done
+   *
+   * @param piece    the piece
+   * @param rotation the rotation
+   * @return true if an earlier rotation has the same shape
+   */
+  private static boolean isRepeatedRotation(GamePiece piece, int rotation) {
+    var mask = GamePiece.createPiece(piece.getPiece(), rotation).getMask();
+    for (var earlier = 0; earlier < rotation; earlier++) {
+      if (GamePiece.createPiece(piece.getPiece(), earlier).getMask() == mask) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * The position being searched, shared read only by every task
+   */
+  private static class Root {
+
+    private final Board board;
+    private final GamePiece current;
+    private final GamePiece following;
+    private final int multiplier;
+    private final long deadline;
+
+    Root(Board board, GamePiece current, GamePiece following, int multiplier, long deadline) {
+      this.board = board;
+      this.current = current;
+      this.following = following;
+      this.multiplier = multiplier;
+      this.deadline = deadline;
+    }
+  }
+
+  /**
+   * Searches a range of first moves, splitting it in two while it is large
+   */
+  private class SearchTask extends RecursiveTask<Move> {
+
+    private final Root root;
+    private final int[] moves;
+    private final int from;
+    private final int to;
+
+    /**
+     * The board after the first piece, the board after the second, and the blocks being cleared
+     */
+    private Board first;
+    private Board second;
+    private CellSet cleared;
+    private Placements placements;
+
+    SearchTask(Root root, int[] moves, int from, int to) {
+      this.root = root;
+      this.moves = moves;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected Move compute() {
+      if (pool != null && to - from > SPLIT_THRESHOLD) {
+        var middle = (from + to) >>> 1;
+        var left = new SearchTask(root, moves, from, middle);
+        left.fork();
+        var right = new SearchTask(root, moves, middle, to).compute();
+        var best = left.join();
+        return right.getValue() > best.getValue() ? right : best;
+      }
+
+      var cols = root.board.getCols();
+      var rows = root.board.getRows();
+      first = new Board(cols, rows);
+      second = new Board(cols, rows);
+      cleared = new CellSet(cols * rows);
+      placements = new Placements(cols, rows);
+
+      var bestMove = moves[from];
+      var bestValue = Double.NEGATIVE_INFINITY;
+      for (var i = from; i < to; i++) {
+        var value = evaluateMove(moves[i]);
+        if (value > bestValue) {
+          bestValue = value;
+          bestMove = moves[i];
+        }
+      }
+      return new Move((bestMove & SWAP_BIT) != 0, (bestMove >>> ROTATION_SHIFT) & 3,
+          (bestMove & INDEX_MASK) % cols, (bestMove & INDEX_MASK) / cols, bestValue);
+    }
+
+    /**
+     * Judge a first move by the best the other piece can do after it
+     *
+     * @param move the packed move
+     * @return the value of the move
+     */
+    private double evaluateMove(int move) {
+      var swap = (move & SWAP_BIT) != 0;
+      var piece = swap ? root.following : root.current;
+      var next = swap ? root.current : root.following;
+      var cols = root.board.getCols();
+      var index = move & INDEX_MASK;
+
+      first.copyFrom(root.board);
+      first.playPiece(GamePiece.createPiece(piece.getPiece(), (move >>> ROTATION_SHIFT) & 3),
+          index % cols, index / cols);
+      var lines = clearLines(first);
+      var gained = score(lines, root.multiplier);
+      var multiplier = lines > 0 ? root.multiplier + 1 : 1;
+
+      if (depth < 2 || next == null || System.nanoTime() > root.deadline
+          || first.findPlacements(next, placements) == 0) {
+        return gained + evaluate(first);
+      }
+
+      //Look for the best placement of the other piece
+      var best = Double.NEGATIVE_INFINITY;
+      var tried = 0;
+      for (var rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+        if (isRepeatedRotation(next, rotation)) {
+          continue;
+        }
+        var rotated = GamePiece.createPiece(next.getPiece(), rotation);
+        var centres = placements.getCentres(rotation);
+        for (var centre = centres.next(0); centre >= 0; centre = centres.next(centre + 1)) {
+          second.copyFrom(first);
+          second.playPiece(rotated, centre % cols, centre / cols);
+          var secondLines = clearLines(second);
+          best = Math.max(best, score(secondLines, multiplier) + evaluate(second));
+
+          if (++tried % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() > root.deadline) {
+            return gained + best;
+          }
+        }
+      }
+      return gained + best;
+    }
+
+    /**
+     * Judge a board, using the value remembered for it if it has been judged before
+     *
+     * @param board the board
+     * @return the value of the board
+     */
+    private double evaluate(Board board) {
+      if (table == null) {
+        return evaluator.evaluate(board);
+      }
+      var key = TranspositionTable.key(board.getHash(), null, null);
+      var value = table.get(key);
+      if (Double.isNaN(value)) {
+        value = evaluator.evaluate(board);
+        table.put(key, value);
+      }
+      return value;
+    }
+
+    /**
+     * Clear the full lines of a board
+     *
+     * @param board the board
+     * @return the number of lines cleared, with the blocks cleared left in {@link #cleared}
+     */
+    private int clearLines(Board board) {
+      cleared.clear();
+      var lines = board.collectFullLines(cleared);
+      if (lines > 0) {
+        board.clearBlocks(cleared);
+      }
+      return lines;
+    }
+
+    /**
+     * Work out the score for clearing lines, the same way the GameEngine does
+     *
+     * @param lines      the number of lines cleared
+     * @param multiplier the multiplier
+     * @return the score
+     */
+    private int score(int lines, int multiplier) {
+      return lines == 0 ? 0 : lines * cleared.size() * 10 * multiplier;
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * BlockTextures holds the texture of every block colour in one atlas image, decoded once and shared
+ * by every GameBlock, so painting a block is a single image copy rather than loading its PNG.
+ * <p>
+ * Textures are indexed by block value: value 1 is the first texture, {@code /images/42.png}, up to
+ * value 15, {@code /images/56.png}. Each texture keeps its own size in the atlas and is scaled to
+ * the block as it is drawn.
+ */
+public class BlockTextures {
+
+  private static final Logger logger = LogManager.getLogger(BlockTextures.class);
+
+  /**
+   * The number of the image of the texture for block value 1
+   */
+  private static final int FIRST_IMAGE = 42;
+
+  /**
+   * The textures shared by every block
+   */
+  private static BlockTextures shared;
+
+  /**
+   * Every texture side by side
+   */
+  private final Image atlas;
+
+  /**
+   * The x position of each texture in the atlas, indexed by block value
+   */
+  private final int[] offsets;
+
+  /**
+   * The width of each texture, indexed by block value
+   */
+  private final int[] widths;
+
+  /**
+   * The height of each texture, indexed by block value
+   */
+  private final int[] heights;
+
+  /**
+   * Decode every texture into a new atlas
+   */
+  private BlockTextures() {
+    var count = GameBlock.COLOURS.length;
+    var images = new Image[count];
+    offsets = new int[count];
+    widths = new int[count];
+    heights = new int[count];
+
+    var width = 0;
+    var height = 0;
+    for (var value = 1; value < count; value++) {
+      var path = "/images/" + (FIRST_IMAGE + value - 1) + ".png";
+      images[value] = new Image(getClass().getResource(path).toExternalForm());
+      offsets[value] = width;
+      widths[value] = (int) images[value].getWidth();
+      heights[value] = (int) images[value].getHeight();
+      width += widths[value];
+      height = Math.max(height, heights[value]);
+    }
+
+    var atlas = new WritableImage(width, height);
+    var writer = atlas.getPixelWriter();
+    for (var value = 1; value < count; value++) {
+      writer.setPixels(offsets[value], 0, widths[value], heights[value],
+          images[value].getPixelReader(), 0, 0);
+    }
+    this.atlas = atlas;
+    logger.info("Loaded {} block textures into a {}x{} atlas", count - 1, width, height);
+  }
+
+  /**
+   * Get the textures shared by every block, decoding them the first time
+   *
+   * @return the shared textures
+   */
+  public static synchronized BlockTextures shared() {
+    if (shared == null) {
+      shared = new BlockTextures();
+    }
+    return shared;
+  }
+
+  /**
+   * Draw the texture of a block value, scaled to fill a rectangle
+   *
+   * @param gc     the graphics context to draw on
+   * @param value  the block value, from 1
+   * @param x      the left of the rectangle
+   * @param y      the top of the rectangle
+   * @param width  the width of the rectangle
+   * @param height the height of the rectangle
+   */
+  public void draw(GraphicsContext gc, int value, double x, double y, double width,
+      double height) {
+    gc.drawImage(atlas, offsets[value], 0, widths[value], heights[value], x, y, width, height);
+  }
+}
@@ -0,0 +1,190 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.animation.AnimationTimer;
+import uk.ac.soton.comp1206.engine.CellSet;
+
+/**
+ * A BoardAnimator runs the effects on the cells of a board, such as blocks fading out when lines are
+ * cleared, from one AnimationTimer. Each pulse it moves every cell with an effect on in a single
+ * pass and asks the board to draw it, so a frame costs the same however the effects were started,
+ * and the timer stops as soon as no effects are left.
+ * <p>
+ * The state of every cell is allocated up front, so starting and running effects allocates nothing.
+ * Effects are timed on the pulse clock rather than counted in frames, so they take as long on a
+ * slow machine as on a fast one.
+ */
+public class BoardAnimator {
+
+  /**
+   * An effect a cell can show
+   */
+  public enum Effect {
+
+    /**
+     * The block fades out in green, after it has been cleared
+     */
+    FADE(180);
+
+    /**
+     * How long the effect lasts, in nanoseconds
+     */
+    private final long duration;
+
+    /**
+     * Create an effect
+     *
+     * @param millis how long the effect lasts, in milliseconds
+     */
+    Effect(long millis) {
+      this.duration = millis * 1_000_000L;
+    }
+  }
+
+  /**
+   * Draws a cell of the board as the effects move on
+   */
+  public interface CellPainter {
+
+    /**
+     * Draw a cell, showing its effect as given by {@link #getEffect(int, int)} and
+     * {@link #getProgress(int, int)}, or as normal if it has none
+     *
+     * @param x column
+     * @param y row
+     */
+    void paintCell(int x, int y);
+  }
+
+  /**
+   * All the effects, indexed by ordinal
+   */
+  private static final Effect[] EFFECTS = Effect.values();
+
+  /**
+   * Number of columns animated
+   */
+  private final int cols;
+
+  /**
+   * Draws the cells
+   */
+  private final CellPainter painter;
+
+  /**
+   * The effect on each cell, as its ordinal plus one, or 0 for none
+   */
+  private final byte[] effects;
+
+  /**
+   * When the effect on each cell started, on the pulse clock
+   */
+  private final long[] starts;
+
+  /**
+   * How far the effect on each cell has got, from 0 to 1
+   */
+  private final double[] progress;
+
+  /**
+   * The cells with an effect on
+   */
+  private final CellSet active;
+
+  /**
+   * Moves the effects on every pulse while there are any
+   */
+  private final AnimationTimer timer = new AnimationTimer() {
+    @Override
+    public void handle(long now) {
+      step(now);
+    }
+  };
+
+  /**
+   * Create an animator for a board
+   *
+   * @param cols    number of columns
+   * @param rows    number of rows
+   * @param painter draws the cells
+   */
+  public BoardAnimator(int cols, int rows, CellPainter painter) {
+    this.cols = cols;
+    this.painter = painter;
+    this.effects = new byte[cols * rows];
+    this.starts = new long[cols * rows];
+    this.progress = new double[cols * rows];
+    this.active = new CellSet(cols * rows);
+  }
+
+  /**
+   * Start an effect on a cell, replacing any effect it already has
+   *
+   * @param x      column
+   * @param y      row
+   * @param effect the effect
+   */
+  public void start(int x, int y, Effect effect) {
+    var index = y * cols + x;
+    effects[index] = (byte) (effect.ordinal() + 1);
+    starts[index] = System.nanoTime();
+    progress[index] = 0;
+    active.add(index);
+    painter.paintCell(x, y);
+    timer.start();
+  }
+
+  /**
+   * Get the effect on a cell
+   *
+   * @param x column
+   * @param y row
+   * @return the effect, or null if it has none
+   */
+  public Effect getEffect(int x, int y) {
+    var effect = effects[y * cols + x];
+    return effect == 0 ? null : EFFECTS[effect - 1];
+  }
+
+  /**
+   * Get how far the effect on a cell has got
+   *
+   * @param x column
+   * @param y row
+   * @return the progress, from 0 as it starts to 1 as it ends
+   */
+  public double getProgress(int x, int y) {
+    return progress[y * cols + x];
+  }
+
+  /**
+   * End every effect at once, without drawing the cells again
+   */
+  public void clear() {
+    for (var index = active.next(0); index >= 0; index = active.next(index + 1)) {
+      effects[index] = 0;
+    }
+    active.clear();
+    timer.stop();
+  }
+
+  /**
+   * Move every effect on to the given time, drawing each cell, and stop once none are left
+   *
+   * @param now the time of the pulse
+   */
+  private void step(long now) {
+    for (var index = active.next(0); index >= 0; index = active.next(index + 1)) {
+      var done = (double) (now - starts[index]) / EFFECTS[effects[index] - 1].duration;
+      if (done >= 1) {
+        effects[index] = 0;
+        active.remove(index);
+      } else {
+        progress[index] = Math.max(0, done);
+      }
+      painter.paintCell(index % cols, index / cols);
+    }
+    if (active.isEmpty()) {
+      timer.stop();
+    }
+  }
+}
@@ -0,0 +1,433 @@
+package uk.ac.soton.comp1206.component;
+
+import java.util.Set;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.engine.CellSet;
+import uk.ac.soton.comp1206.event.CellClickedListener;
+import uk.ac.soton.comp1206.event.PulseExecutor;
+import uk.ac.soton.comp1206.event.RightClickedListener;
+import uk.ac.soton.comp1206.game.Grid;
+
+/**
+ * A CanvasBoard shows a Grid like a GameBoard, but draws every block on one Canvas rather than
+ * making a GameBlock node for each, so a board costs one node however many blocks it has.
+ * <p>
+ * Blocks which change are marked dirty, and only the dirty blocks are redrawn, once per pulse
+ * however many changed. The mouse is tracked by working out the block under it from its position,
+ * rather than by handlers on every block. It draws blocks the same way GameBlock does.
+ * <p>
+ * The CanvasBoard is a Region, so it can be styled with a background like a GameBoard.
+ */
+public class CanvasBoard extends Region {
+
+  /**
+   * Logger
+   */
+  protected static final Logger logger = LogManager.getLogger(CanvasBoard.class);
+
+  /**
+   * Number of columns in the board
+   */
+  private final int cols;
+
+  /**
+   * Number of rows in the board
+   */
+  private final int rows;
+
+  /**
+   * The width of a block
+   */
+  private final double blockWidth;
+
+  /**
+   * The height of a block
+   */
+  private final double blockHeight;
+
+  /**
+   * The grid this board shows
+   */
+  protected final Grid grid;
+
+  /**
+   * The canvas every block is drawn on
+   */
+  private final Canvas canvas;
+
+  /**
+   * The blocks which need drawing again
+   */
+  private final CellSet dirty;
+
+  /**
+   * Whether a redraw has been asked for at the next pulse
+   */
+  private boolean repaintScheduled;
+
+  /**
+   * Runs the effects on the blocks, such as fading out
+   */
+  private final BoardAnimator animator;
+
+  /**
+   * The x coordinate of the aim
+   */
+  private int aimX = 2;
+
+  /**
+   * The y coordinate of the aim
+   */
+  private int aimY = 2;
+
+  /**
+   * Whether the aimed block is highlighted
+   */
+  private boolean highlighted;
+
+  /**
+   * Whether the aim follows the mouse and keyboard and is highlighted
+   */
+  private boolean aimShown = true;
+
+  /**
+   * Whether an indicator is drawn on the centre block
+   */
+  private boolean indicatorShown;
+
+  /**
+   * The listener to call when a block is clicked
+   */
+  private CellClickedListener cellClickedListener;
+
+  /**
+   * The listener to call when a right click has been performed
+   */
+  protected RightClickedListener rightClickedListener;
+
+  /**
+   * Create a new CanvasBoard showing a given grid, with a visual width and height
+   *
+   * @param grid   linked grid
+   * @param width  the visual width
+   * @param height the visual height
+   */
+  public CanvasBoard(Grid grid, double width, double height) {
+    this.grid = grid;
+    this.cols = grid.getCols();
+    this.rows = grid.getRows();
+    this.blockWidth = width / cols;
+    this.blockHeight = height / rows;
+    this.dirty = new CellSet(cols * rows);
+    this.animator = new BoardAnimator(cols, rows, this::paintCell);
+
+    setMinSize(width, height);
+    setPrefSize(width, height);
+    setMaxSize(width, height);
+
+    canvas = new Canvas(width, height);
+    getChildren().add(canvas);
+
+    grid.setGridChangedListener((x, y, value) -> markDirty(y * cols + x));
+
+    setOnMouseMoved(this::mouseMoved);
+    setOnMouseExited((e) -> setHighlighted(false));
+    setOnMouseClicked(this::mouseClicked);
+
+    //Draw every block the first time
+    dirty.addRange(0, cols * rows);
+    repaint();
+  }
+
+  /**
+   * Create a new CanvasBoard with its own internal grid, specifying the number of columns and rows,
+   * along with the visual width and height
+   *
+   * @param cols   number of columns for internal grid
+   * @param rows   number of rows for internal grid
+   * @param width  the visual width
+   * @param height the visual height
+   */
+  public CanvasBoard(int cols, int rows, double width, double height) {
+    this(new Grid(cols, rows), width, height);
+  }
+
+  /**
+   * Get the grid this board shows
+   *
+   * @return the grid
+   */
+  public Grid getGrid() {
+    return grid;
+  }
+
+  /**
+   * Return the x coordinate of the aim
+   *
+   * @return x coordinate
+   */
+  public int getAimX() {
+    return aimX;
+  }
+
+  /**
+   * Return the y coordinate of the aim
+   *
+   * @return y coordinate
+   */
+  public int getAimY() {
+    return aimY;
+  }
+
+  /**
+   * Set whether the aim follows the mouse and keyboard and is highlighted. Boards which only
+   * display something, such as a piece, do not show it.
+   *
+   * @param aimShown true to show the aim
+   */
+  public void setAimShown(boolean aimShown) {
+    this.aimShown = aimShown;
+    if (!aimShown) {
+      setHighlighted(false);
+    }
+  }
+
+  /**
+   * Set whether an indicator is drawn on the centre block
+   *
+   * @param indicatorShown true to draw the indicator
+   */
+  public void setIndicatorShown(boolean indicatorShown) {
+    this.indicatorShown = indicatorShown;
+    markDirty((rows / 2) * cols + cols / 2);
+  }
+
+  /**
+   * Move the aim by the given amounts (keyboard), staying on the board
+   *
+   * @param x the change in column
+   * @param y the change in row
+   */
+  public void aimChange(int x, int y) {
+    if (!aimShown) {
+      return;
+    }
+    moveAim(Math.max(0, Math.min(cols - 1, aimX + x)), Math.max(0, Math.min(rows - 1, aimY + y)));
+    logger.info("Aim is x:{} y:{}", aimX, aimY);
+  }
+
+  /**
+   * Fade out the given blocks, starting the fade again for any already fading
+   *
+   * @param blocks the coordinates of the blocks to be faded out
+   */
+  public void fadeOut(Set<GameBlockCoordinate> blocks) {
+    for (GameBlockCoordinate block : blocks) {
+      animator.start(block.getX(), block.getY(), BoardAnimator.Effect.FADE);
+    }
+  }
+
+  /**
+   * Set the listener to handle an event when a block is clicked
+   *
+   * @param listener listener to add
+   */
+  public void setOnBlockClick(CellClickedListener listener) {
+    this.cellClickedListener = listener;
+  }
+
+  /**
+   * Set the listener that will handle when the board is right-clicked
+   *
+   * @param listener listener to add
+   */
+  public void setOnRightClick(RightClickedListener listener) {
+    this.rightClickedListener = listener;
+  }
+
+  /**
+   * Work out the column under an x position on the board
+   *
+   * @param x the x position
+   * @return the column, or -1 if the position is off the board
+   */
+  public int columnAt(double x) {
+    var column = (int) Math.floor(x / blockWidth);
+    return column >= 0 && column < cols ? column : -1;
+  }
+
+  /**
+   * Work out the row under a y position on the board
+   *
+   * @param y the y position
+   * @return the row, or -1 if the position is off the board
+   */
+  public int rowAt(double y) {
+    var row = (int) Math.floor(y / blockHeight);
+    return row >= 0 && row < rows ? row : -1;
+  }
+
+  /**
+   * Aim at the block under the mouse
+   *
+   * @param event mouse event
+   */
+  private void mouseMoved(MouseEvent event) {
+    var x = columnAt(event.getX());
+    var y = rowAt(event.getY());
+    if (!aimShown || x < 0 || y < 0 || (x == aimX && y == aimY && highlighted)) {
+      return;
+    }
+    moveAim(x, y);
+  }
+
+  /**
+   * Call the attached listener for the block clicked, or the right click listener
+   *
+   * @param event mouse event
+   */
+  protected void mouseClicked(MouseEvent event) {
+    if (event.getButton() == MouseButton.SECONDARY) {
+      if (rightClickedListener != null) {
+        logger.info("Right clicked");
+        rightClickedListener.blockRightClicked();
+      }
+      return;
+    }
+
+    var x = columnAt(event.getX());
+    var y = rowAt(event.getY());
+    if (x >= 0 && y >= 0 && cellClickedListener != null
+        && event.getButton() == MouseButton.PRIMARY) {
+      logger.info("Block clicked: {} {}", x, y);
+      cellClickedListener.cellClicked(x, y);
+    }
+  }
+
+  /**
+   * Move the aim to a block and highlight it
+   *
+   * @param x column
+   * @param y row
+   */
+  private void moveAim(int x, int y) {
+    markDirty(aimY * cols + aimX);
+    aimX = x;
+    aimY = y;
+    highlighted = true;
+    markDirty(aimY * cols + aimX);
+  }
+
+  /**
+   * Show or hide the highlight on the aimed block
+   *
+   * @param highlighted true to show the highlight
+   */
+  private void setHighlighted(boolean highlighted) {
+    if (this.highlighted != highlighted) {
+      this.highlighted = highlighted;
+      markDirty(aimY * cols + aimX);
+    }
+  }
+
+  /**
+   * Mark a block as needing to be drawn again, and ask for a redraw at the next pulse
+   *
+   * @param index the cell index of the block
+   */
+  private void markDirty(int index) {
+    dirty.add(index);
+    if (!repaintScheduled) {
+      repaintScheduled = true;
+      PulseExecutor.shared().execute(this::repaint);
+    }
+  }
+
+  /**
+   * Draw every dirty block
+   */
+  private void repaint() {
+    repaintScheduled = false;
+    var gc = canvas.getGraphicsContext2D();
+    for (var index = dirty.next(0); index >= 0; index = dirty.next(index + 1)) {
+      paintBlock(gc, index % cols, index / cols);
+    }
+    dirty.clear();
+  }
+
+  /**
+   * Draw a block straight away, as its effect moves on
+   *
+   * @param x column
+   * @param y row
+   */
+  private void paintCell(int x, int y) {
+    paintBlock(canvas.getGraphicsContext2D(), x, y);
+  }
+
+  /**
+   * Draw a block, the same way a GameBlock draws itself
+   *
+   * @param gc the graphics context of the canvas
+   * @param x  column
+   * @param y  row
+   */
+  private void paintBlock(GraphicsContext gc, int x, int y) {
+    var index = y * cols + x;
+    var left = x * blockWidth;
+    var top = y * blockHeight;
+    var value = grid.getCell(index);
+
+    //Fading blocks get more transparent as the fade goes on
+    var fade = animator.getEffect(x, y) == BoardAnimator.Effect.FADE
+        ? 1 - animator.getProgress(x, y) : 0;
+
+    gc.clearRect(left, top, blockWidth, blockHeight);
+
+    if (value == 0 || fade > 0) {
+      //Empty
+      gc.setFill(Color.BLACK);
+      gc.setGlobalAlpha(0.6);
+      gc.fillRect(left, top, blockWidth, blockHeight);
+    } else {
+      //Texture fill
+      gc.setGlobalAlpha(1);
+      BlockTextures.shared().draw(gc, value, left, top, blockWidth, blockHeight);
+    }
+
+    //Border
+    gc.setStroke(Color.DARKORANGE);
+    gc.strokeRect(left, top, blockWidth, blockHeight);
+
+    //Fading out in green
+    if (fade > 0) {
+      gc.setFill(Color.GREEN);
+      gc.setGlobalAlpha(fade);
+      gc.fillRect(left, top, blockWidth, blockHeight);
+    }
+
+    //Highlight
+    if (highlighted && aimShown && x == aimX && y == aimY) {
+      gc.setFill(Color.ORANGE);
+      gc.setGlobalAlpha(0.3);
+      gc.fillRect(left, top, blockWidth, blockHeight);
+    }
+
+    //Indicator
+    if (indicatorShown && x == cols / 2 && y == rows / 2) {
+      var size = Math.min(blockWidth, blockHeight);
+      gc.setFill(Color.ORANGE);
+      gc.setGlobalAlpha(1);
+      gc.fillOval(left + (blockWidth - size) / 2 + size / 12, top + (blockHeight - size) / 2
+          + size / 12, size * 5 / 6, size * 5 / 6);
+    }
+    gc.setGlobalAlpha(1);
+  }
+}
@@ -1,14 +1,10 @@
 package uk.ac.soton.comp1206.component;
 
-import javafx.animation.AnimationTimer;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.value.ObservableValue;
 import javafx.scene.canvas.Canvas;
-import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
-import javafx.scene.paint.ImagePattern;
-import javafx.scene.paint.Paint;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -54,12 +50,12 @@ public class GameBlock extends Canvas {
   /**
    * The column this block exists as in the grid
    */
-  private final int x;
+  private int x;
 
   /**
    * The row this block exists as in the grid
    */
-  private final int y;
+  private int y;
 
   /**
    * The value of this block (0 = empty, otherwise specifies the colour to render as)
@@ -103,6 +99,26 @@ public class GameBlock extends Canvas {
     value.bind(input);
   }
 
+  /**
+   * Stop following the property this block was bound to
+   */
+  public void unbind() {
+    value.unbind();
+  }
+
+  /**
+   * Move this block to show another position in the grid. Used by a GameBoard showing part of a
+   * bigger grid to reuse its blocks as it scrolls; the block should be bound to the property of its
+   * new position afterwards.
+   *
+   * @param x the new column
+   * @param y the new row
+   */
+  void setPosition(int x, int y) {
+    this.x = x;
+    this.y = y;
+  }
+
   /**
    * A more descriptive toString method for when data is needed about a block
    *
@@ -164,8 +180,8 @@ public class GameBlock extends Canvas {
     if (value.get() == 0) {
       paintEmpty();
     } else {
-      //If the block is not empty, paint with the colour represented by the value
-      paintColor(COLOURS[value.get()]);
+      //If the block is not empty, paint with the texture of the value
+      paintTexture(value.get());
     }
   }
 
@@ -189,72 +205,19 @@ public class GameBlock extends Canvas {
   }
 
   /**
-   * Paint this canvas with the given colour
+   * Paint this canvas with the texture of the given block value
    *
-   * @param colour the colour to paint
+   * @param value the block value
    */
-  private void paintColor(Paint colour) {
+  private void paintTexture(int value) {
     var gc = getGraphicsContext2D();
 
-    String path = null;
     //Clear
     gc.clearRect(0, 0, width, height);
 
-    //Image fill
-    switch (colour.toString()) {
-      case "0xff1493ff":
-        path = getClass().getResource("/images/42.png").toExternalForm();
-        break;
-      case "0xff0000ff":
-        path = getClass().getResource("/images/43.png").toExternalForm();
-        break;
-      case "0xffa500ff":
-        path = getClass().getResource("/images/44.png").toExternalForm();
-        break;
-      case "0xffff00ff" :
-        path = getClass().getResource("/images/45.png").toExternalForm();
-        break;
-      case "0x9acd32ff":
-        path = getClass().getResource("/images/46.png").toExternalForm();
-        break;
-      case "0x00ff00ff":
-        path = getClass().getResource("/images/47.png").toExternalForm();
-        break;
-      case "0x008000ff":
-        path = getClass().getResource("/images/48.png").toExternalForm();
-        break;
-      case "0x006400ff":
-        path = getClass().getResource("/images/49.png").toExternalForm();
-        break;
-      case "0x00ced1ff":
-        path = getClass().getResource("/images/50.png").toExternalForm();
-        break;
-      case "0x00bfffff":
-        path = getClass().getResource("/images/51.png").toExternalForm();
-        break;
-      case "0x00ffffff":
-        path = getClass().getResource("/images/52.png").toExternalForm();
-        break;
-      case "0x7fffd4ff":
-        path = getClass().getResource("/images/53.png").toExternalForm();
-        break;
-      case "0x0000ffff":
-        path = getClass().getResource("/images/54.png").toExternalForm();
-        break;
-      case "0x9370dbff":
-        path = getClass().getResource("/images/55.png").toExternalForm();
-        break;
-      case "0x800080ff":
-        path = getClass().getResource("/images/56.png").toExternalForm();
-        break;
-    }
-
-    var image = new Image(path);
-    gc.setFill(new ImagePattern(image));
-
-    //gc.setFill(colour);
+    //Texture fill
     gc.setGlobalAlpha(1);
-    gc.fillRect(0, 0, width, height);
+    BlockTextures.shared().draw(gc, value, 0, 0, width, height);
 
     //Border
     gc.setStroke(Color.DARKORANGE);
@@ -301,37 +264,41 @@ public class GameBlock extends Canvas {
   }
 
   /**
-   * Plays an animation that fades out the currently selected block
+   * Plays an animation that fades out the currently selected block, run by the board's animator
    */
   public void fadeOut() {
     logger.info("Fading out {}", toString());
+    gameBoard.fadeOut(this);
+  }
 
-    var gc = getGraphicsContext2D();
-
-    var timer = new AnimationTimer() {
-      private double transparency = 1;
-
-      @Override
-      public void handle(long l) {
-
-        //Starts off by painting the block empty
-        paintEmpty();
-
-        gc.setFill(Color.GREEN);
-        gc.setGlobalAlpha(transparency);
+  /**
+   * Paint this block showing an effect from the board's animator, or as normal when it has none
+   *
+   * @param effect   the effect, or null for none
+   * @param progress how far the effect has got, from 0 to 1
+   */
+  void paintEffect(BoardAnimator.Effect effect, double progress) {
+    if (effect == BoardAnimator.Effect.FADE) {
+      paintFade(1 - progress);
+    } else {
+      paint();
+    }
+  }
 
-        //Then fills it with green
-        gc.fillRect(0, 0, width, height);
+  /**
+   * Paint this block part way through fading out
+   *
+   * @param transparency how much of the green is left, from 1 down to 0
+   */
+  private void paintFade(double transparency) {
+    var gc = getGraphicsContext2D();
 
-        //Which gets more transparent as time passes
-        transparency = transparency - 0.1;
+    //Starts off by painting the block empty
+    paintEmpty();
 
-        //Stop the animation when the block is invisible
-        if (transparency <= -0.1) {
-          stop();
-        }
-      }
-    };
-    timer.start();
+    //Then fills it with green, which gets more transparent as time passes
+    gc.setFill(Color.GREEN);
+    gc.setGlobalAlpha(transparency);
+    gc.fillRect(0, 0, width, height);
   }
 }
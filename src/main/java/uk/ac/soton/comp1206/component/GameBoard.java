@@ -3,6 +3,7 @@ package uk.ac.soton.comp1206.component;
 import java.util.Set;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
 import javafx.scene.layout.GridPane;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -19,6 +20,11 @@ import uk.ac.soton.comp1206.game.Grid;
  * <p>
  * The GameBoard is only a visual representation and should not contain game logic or model logic in
  * it, which should take place in the Grid.
+ * <p>
+ * A GameBoard can also show only part of a big grid, a viewport of a fixed number of columns and
+ * rows. Only the blocks in the viewport exist: when it scrolls, following the aim or the mouse
+ * wheel, the same blocks are moved to show their new positions rather than new ones being created,
+ * so the number of nodes and the cost of a frame do not grow with the size of the grid.
  */
 public class GameBoard extends GridPane {
 
@@ -37,6 +43,26 @@ public class GameBoard extends GridPane {
    */
   private final int rows;
 
+  /**
+   * Number of columns shown at once
+   */
+  private final int viewCols;
+
+  /**
+   * Number of rows shown at once
+   */
+  private final int viewRows;
+
+  /**
+   * The column shown at the left of the viewport
+   */
+  private int originX;
+
+  /**
+   * The row shown at the top of the viewport
+   */
+  private int originY;
+
   /**
    * The visual width of the board - has to be specified due to being a Canvas
    */
@@ -63,10 +89,15 @@ public class GameBoard extends GridPane {
   final Grid grid;
 
   /**
-   * The blocks inside the grid
+   * The blocks inside the viewport, indexed by their position in the viewport
    */
   GameBlock[][] blocks;
 
+  /**
+   * Runs the effects on the blocks inside the viewport, indexed by their position in the viewport
+   */
+  private BoardAnimator animator;
+
   /**
    * The listener to call when a specific block is clicked
    */
@@ -85,8 +116,24 @@ public class GameBoard extends GridPane {
    * @param height the visual height
    */
   public GameBoard(Grid grid, double width, double height) {
+    this(grid, grid.getCols(), grid.getRows(), width, height);
+  }
+
+  /**
+   * Create a new GameBoard showing part of a given grid, with a visual width and height. The
+   * viewport starts at the top left of the grid.
+   *
+   * @param grid     linked grid
+   * @param viewCols number of columns to show at once
+   * @param viewRows number of rows to show at once
+   * @param width    the visual width
+   * @param height   the visual height
+   */
+  public GameBoard(Grid grid, int viewCols, int viewRows, double width, double height) {
     this.cols = grid.getCols();
     this.rows = grid.getRows();
+    this.viewCols = Math.min(viewCols, cols);
+    this.viewRows = Math.min(viewRows, rows);
     this.width = width;
     this.height = height;
     this.grid = grid;
@@ -107,6 +154,8 @@ public class GameBoard extends GridPane {
   public GameBoard(int cols, int rows, double width, double height) {
     this.cols = cols;
     this.rows = rows;
+    this.viewCols = cols;
+    this.viewRows = rows;
     this.width = width;
     this.height = height;
     this.grid = new Grid(cols, rows);
@@ -156,10 +205,93 @@ public class GameBoard extends GridPane {
    *
    * @param x column
    * @param y row
-   * @return game block at the given column and row
+   * @return game block at the given column and row, or null if it is outside the viewport
    */
   public GameBlock getBlock(int x, int y) {
-    return blocks[x][y];
+    if (!isShown(x, y)) {
+      return null;
+    }
+    return blocks[x - originX][y - originY];
+  }
+
+  /**
+   * Check if a position in the grid is inside the viewport
+   *
+   * @param x column
+   * @param y row
+   * @return true if the block at that position is shown
+   */
+  public boolean isShown(int x, int y) {
+    return x >= originX && x < originX + viewCols && y >= originY && y < originY + viewRows;
+  }
+
+  /**
+   * Scroll the viewport so its top left is at the given position, as near as it can get without
+   * leaving the grid. The blocks already in the viewport are moved to their new positions and
+   * rebound, and the properties of the positions scrolled away from are released.
+   *
+   * @param x the column to show at the left
+   * @param y the row to show at the top
+   */
+  public void scrollTo(int x, int y) {
+    x = Math.max(0, Math.min(cols - viewCols, x));
+    y = Math.max(0, Math.min(rows - viewRows, y));
+    if (x == originX && y == originY) {
+      return;
+    }
+
+    var aimed = getBlock(aimX, aimY);
+    if (aimed != null) {
+      aimed.cleanHighlight();
+    }
+
+    //Effects belong to the positions scrolled away from
+    animator.clear();
+
+    for (var slotX = 0; slotX < viewCols; slotX++) {
+      for (var slotY = 0; slotY < viewRows; slotY++) {
+        var block = blocks[slotX][slotY];
+        block.unbind();
+        grid.releaseGridProperty(block.getX(), block.getY());
+        block.setPosition(x + slotX, y + slotY);
+        block.bind(grid.getGridProperty(x + slotX, y + slotY));
+        block.paint();
+      }
+    }
+    originX = x;
+    originY = y;
+    logger.debug("Viewport moved to {} {}", originX, originY);
+
+    //Keep the aim inside the viewport
+    aimX = Math.max(originX, Math.min(originX + viewCols - 1, aimX));
+    aimY = Math.max(originY, Math.min(originY + viewRows - 1, aimY));
+  }
+
+  /**
+   * Scroll the viewport as little as possible to show a position
+   *
+   * @param x column
+   * @param y row
+   */
+  private void scrollToShow(int x, int y) {
+    var newX = Math.max(Math.min(originX, x), x - viewCols + 1);
+    var newY = Math.max(Math.min(originY, y), y - viewRows + 1);
+    scrollTo(newX, newY);
+  }
+
+  /**
+   * Scroll the viewport a block at a time with the mouse wheel, sideways while shift is held
+   *
+   * @param event scroll event
+   */
+  private void scrolled(ScrollEvent event) {
+    var delta = event.getDeltaY() != 0 ? event.getDeltaY() : event.getDeltaX();
+    var step = delta > 0 ? -1 : delta < 0 ? 1 : 0;
+    if (event.isShiftDown() || event.getDeltaY() == 0) {
+      scrollTo(originX + step, originY);
+    } else {
+      scrollTo(originX, originY + step);
+    }
   }
 
   /**
@@ -173,16 +305,24 @@ public class GameBoard extends GridPane {
 
     setGridLinesVisible(true);
 
-    blocks = new GameBlock[cols][rows];
+    blocks = new GameBlock[viewCols][viewRows];
+    animator = new BoardAnimator(viewCols, viewRows,
+        (slotX, slotY) -> blocks[slotX][slotY].paintEffect(animator.getEffect(slotX, slotY),
+            animator.getProgress(slotX, slotY)));
 
-    for (var y = 0; y < rows; y++) {
-      for (var x = 0; x < cols; x++) {
-        createBlock(x, y);
+    for (var y = 0; y < viewRows; y++) {
+      for (var x = 0; x < viewCols; x++) {
+        createBlock(originX + x, originY + y);
       }
     }
 
     //Add a mouse click handler to the GameBoard to call the rightClicked method
     this.setOnMouseClicked(this::rightClicked);
+
+    //Only a board showing part of its grid has anywhere to scroll to
+    if (viewCols < cols || viewRows < rows) {
+      this.setOnScroll(this::scrolled);
+    }
   }
 
   /**
@@ -192,17 +332,17 @@ public class GameBoard extends GridPane {
    * @param y row
    */
   protected GameBlock createBlock(int x, int y) {
-    var blockWidth = width / cols;
-    var blockHeight = height / rows;
+    var blockWidth = width / viewCols;
+    var blockHeight = height / viewRows;
 
     //Create a new GameBlock UI component
     GameBlock block = new GameBlock(this, x, y, blockWidth, blockHeight);
 
     //Add to the GridPane
-    add(block, x, y);
+    add(block, x - originX, y - originY);
 
     //Add to our block directory
-    blocks[x][y] = block;
+    blocks[x - originX][y - originY] = block;
 
     //Link the GameBlock component to the corresponding value in the Grid
     block.bind(grid.getGridProperty(x, y));
@@ -238,6 +378,9 @@ public class GameBoard extends GridPane {
       setAimY(getAimY() + y);
     }
 
+    //Follow the aim if it has left the viewport
+    scrollToShow(aimX, aimY);
+
     logger.info("Aim is x:{} y:{}", aimX, aimY);
 
     //Draw a highlight on the block with the given coordinates
@@ -272,13 +415,35 @@ public class GameBoard extends GridPane {
   }
 
   /**
-   * Calls the fadeOut method of all the given blocks
+   * Fades out all the given blocks, together on the board's animator
    *
    * @param blocks the coordinates of the blocks to be faded out
    */
   public void fadeOut(Set<GameBlockCoordinate> blocks) {
     for (GameBlockCoordinate block : blocks) {
-      getBlock(block.getX(), block.getY()).fadeOut();
+      fadeOut(block.getX(), block.getY());
+    }
+  }
+
+  /**
+   * Fades out a single block on the board's animator
+   *
+   * @param block the block to fade out
+   */
+  void fadeOut(GameBlock block) {
+    fadeOut(block.getX(), block.getY());
+  }
+
+  /**
+   * Fades out the block at a position in the grid
+   *
+   * @param x column
+   * @param y row
+   */
+  private void fadeOut(int x, int y) {
+    //Blocks outside the viewport have nothing to fade
+    if (isShown(x, y)) {
+      animator.start(x - originX, y - originY, BoardAnimator.Effect.FADE);
     }
   }
 
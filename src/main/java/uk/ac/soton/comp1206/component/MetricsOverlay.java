@@ -0,0 +1,67 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.scene.control.Label;
+import javafx.util.Duration;
+import uk.ac.soton.comp1206.metrics.Metrics;
+
+/**
+ * A debug overlay listing every metric, refreshed once a second while it is shown. It starts
+ * hidden and does no work until it is toggled on.
+ */
+public class MetricsOverlay extends Label {
+
+  /**
+   * Refreshes the overlay while it is shown
+   */
+  private final Timeline refresh = new Timeline(
+      new KeyFrame(Duration.seconds(1), event -> refresh()));
+
+  /**
+   * Create a hidden overlay
+   */
+  public MetricsOverlay() {
+    getStyleClass().add("metrics");
+    setMouseTransparent(true);
+    setVisible(false);
+    refresh.setCycleCount(Timeline.INDEFINITE);
+  }
+
+  /**
+   * Show the overlay if it is hidden, or hide it if it is shown
+   */
+  public void toggle() {
+    setVisible(!isVisible());
+    if (isVisible()) {
+      refresh();
+      refresh.play();
+    } else {
+      refresh.stop();
+    }
+  }
+
+  /**
+   * Stop refreshing, for when the scene showing the overlay closes
+   */
+  public void stop() {
+    refresh.stop();
+  }
+
+  /**
+   * Show the current value of every metric
+   */
+  private void refresh() {
+    var text = new StringBuilder();
+    Metrics.snapshot().forEach((name, value) -> {
+      text.append(name).append(": ");
+      if (value instanceof Double) {
+        text.append(String.format("%.1f", value.doubleValue()));
+      } else {
+        text.append(value);
+      }
+      text.append('\n');
+    });
+    setText(text.toString().strip());
+  }
+}
@@ -4,12 +4,13 @@ import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.engine.GamePiece;
 
 /**
- * A PieceBoard is used to display a piece
+ * A PieceBoard is used to display a piece. It is drawn on a single canvas, as it only displays and
+ * is created many times over, for example once per piece on the instructions screen.
  */
-public class PieceBoard extends GameBoard {
+public class PieceBoard extends CanvasBoard {
 
   /**
    * The logger
@@ -27,8 +28,8 @@ public class PieceBoard extends GameBoard {
   public PieceBoard(int cols, int rows, double width, double height) {
     super(cols, rows, width, height);
 
-    //Add a mouse handler to call clicked when PieceBoard is clicked
-    this.setOnMouseClicked(this::clicked);
+    //The pieceboards don't display a highlight
+    setAimShown(false);
   }
 
   /**
@@ -37,13 +38,8 @@ public class PieceBoard extends GameBoard {
    * @param piece the piece to set
    */
   public void setPiece(GamePiece piece) {
-
     logger.info("Clearing piece");
-    for (int x = 0; x < grid.getCols(); x++) {
-      for (int y = 0; y < grid.getRows(); y++) {
-        grid.set(x, y, 0);
-      }
-    }
+    grid.reset();
     grid.playPiece(piece, 1, 1);
   }
 
@@ -52,38 +48,11 @@ public class PieceBoard extends GameBoard {
    *
    * @param event mouse event
    */
-  public void clicked(MouseEvent event) {
+  @Override
+  protected void mouseClicked(MouseEvent event) {
     logger.info("Piece Board has been clicked");
     if (rightClickedListener != null && event.getButton() == MouseButton.PRIMARY) {
       rightClickedListener.blockRightClicked();
     }
   }
-
-  /**
-   * Overridden here so the pieceboards don't display a highlight
-   *
-   * @param x the x coordinate of the aim
-   * @param y the y coordinate of the aim
-   */
-  @Override
-  public void aimChange(int x, int y) {
-  }
-
-  /**
-   * Overridden here so the pieceboards don't display a highlight
-   *
-   * @param block the block to retrieve the x and y coordinates from
-   */
-  @Override
-  public void aimChange(GameBlock block) {
-  }
-
-  /**
-   * Overridden here so the pieceboards don't clear a highlight
-   *
-   * @param block the block to clear the highlight of
-   */
-  @Override
-  public void exitedBlock(GameBlock block) {
-  }
 }
@@ -0,0 +1,494 @@
+package uk.ac.soton.comp1206.engine;
+
+/**
+ * The Board holds the state of a game board without any dependency on a user interface. It is made
+ * up of a set of values arranged in rows and columns, where 0 is an empty block and any other value
+ * is the value of the piece that filled it.
+ * <p>
+ * The values are held in primitive storage: a packed occupancy bitmask (a single long for boards of
+ * up to 64 cells, an array of longs for bigger boards) and a byte colour plane. Cells are indexed
+ * row by row, so the cell at x and y is bit {@code y * cols + x}. The number of filled blocks in
+ * every row and column is kept up to date as blocks change, so finding full lines does not need to
+ * rescan the board.
+ * <p>
+ * A Zobrist hash of the whole board is also kept up to date as blocks change, at the cost of one
+ * XOR per block changed, so positions can be looked up in a TranspositionTable without scanning
+ * the board. Boards of the same size with the same values in every block have the same hash.
+ * <p>
+ * Subclasses can observe every change to a block through {@link #blockChanged(int, int)}, which is
+ * how the Grid attaches its JavaFX properties.
+ */
+public class Board {
+
+  /**
+   * The largest board that can keep its occupancy in a single long
+   */
+  private static final int SINGLE_WORD_CELLS = Long.SIZE;
+
+  /**
+   * The number of columns in this board
+   */
+  protected final int cols;
+
+  /**
+   * The number of rows in this board
+   */
+  protected final int rows;
+
+  /**
+   * The occupancy bitmask for boards of up to 64 cells, one bit per cell
+   */
+  private long occupancy;
+
+  /**
+   * The occupancy bitmask for boards of more than 64 cells, null for smaller boards
+   */
+  private final long[] occupancyWords;
+
+  /**
+   * The value of every cell, indexed by {@code y * cols + x}
+   */
+  private final byte[] colours;
+
+  /**
+   * The number of filled blocks in each row
+   */
+  private final int[] rowCounts;
+
+  /**
+   * The number of filled blocks in each column
+   */
+  private final int[] colCounts;
+
+  /**
+   * The Zobrist hash of the board, the XOR of the key of every filled block
+   */
+  private long hash;
+
+  /**
+   * Create a new empty Board with the specified number of columns and rows
+   *
+   * @param cols number of columns
+   * @param rows number of rows
+   */
+  public Board(int cols, int rows) {
+    this.cols = cols;
+    this.rows = rows;
+
+    var cells = cols * rows;
+    colours = new byte[cells];
+    rowCounts = new int[rows];
+    colCounts = new int[cols];
+    occupancyWords = cells > SINGLE_WORD_CELLS ? new long[(cells + Long.SIZE - 1) / Long.SIZE]
+        : null;
+  }
+
+  /**
+   * Get the number of columns in this board
+   *
+   * @return number of columns
+   */
+  public int getCols() {
+    return cols;
+  }
+
+  /**
+   * Get the number of rows in this board
+   *
+   * @return number of rows
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * Get the total number of cells in this board
+   *
+   * @return number of cells
+   */
+  public int getCellCount() {
+    return colours.length;
+  }
+
+  /**
+   * Update the value at the given x and y index within the board
+   *
+   * @param x     column
+   * @param y     row
+   * @param value the new value
+   */
+  public void set(int x, int y, int value) {
+    if (x < 0 || x >= cols || y < 0 || y >= rows) {
+      throw new IndexOutOfBoundsException("No such block: " + x + "," + y);
+    }
+    setCell(y * cols + x, value);
+  }
+
+  /**
+   * Get the value represented at the given x and y index within the board
+   *
+   * @param x column
+   * @param y row
+   * @return the value, or -1 if there is no such block
+   */
+  public int get(int x, int y) {
+    if (x < 0 || x >= cols || y < 0 || y >= rows) {
+      //No such index
+      return -1;
+    }
+    return colours[y * cols + x];
+  }
+
+  /**
+   * Get the value of a cell by its index
+   *
+   * @param index the cell index, {@code y * cols + x}
+   * @return the value
+   */
+  public int getCell(int index) {
+    return colours[index];
+  }
+
+  /**
+   * Check whether the block at the given x and y is filled
+   *
+   * @param x column
+   * @param y row
+   * @return true if the block exists and holds a value
+   */
+  public boolean isOccupied(int x, int y) {
+    if (x < 0 || x >= cols || y < 0 || y >= rows) {
+      return false;
+    }
+    return isOccupied(y * cols + x);
+  }
+
+  /**
+   * Empty every block on the board
+   */
+  public void reset() {
+    //Only visit the filled blocks, so resetting a big, mostly empty board is cheap
+    if (occupancyWords == null) {
+      for (var filled = occupancy; filled != 0; filled &= filled - 1) {
+        setCell(Long.numberOfTrailingZeros(filled), 0);
+      }
+      return;
+    }
+    for (var word = 0; word < occupancyWords.length; word++) {
+      for (var filled = occupancyWords[word]; filled != 0; filled &= filled - 1) {
+        setCell(word * Long.SIZE + Long.numberOfTrailingZeros(filled), 0);
+      }
+    }
+  }
+
+  /**
+   * Copy the contents of another board of the same size into this one
+   *
+   * @param other the board to copy
+   */
+  public void copyFrom(Board other) {
+    if (other.cols != cols || other.rows != rows) {
+      throw new IllegalArgumentException("Boards are not the same size");
+    }
+    for (var index = 0; index < colours.length; index++) {
+      if (colours[index] != other.colours[index]) {
+        setCell(index, other.colours[index]);
+      }
+    }
+  }
+
+  /**
+   * Check if a piece can be placed at the given coordinates x and y. This has no side effects.
+   *
+   * @param piece the piece to be placed
+   * @param posX  the x coordinate to place at
+   * @param posY  the y coordinate to place at
+   * @return if the piece can be played or not
+   */
+  public boolean canPlayPiece(GamePiece piece, int posX, int posY) {
+    for (var block = 0; block < piece.getBlockCount(); block++) {
+      var x = posX + piece.getOffsetX(block);
+      var y = posY + piece.getOffsetY(block);
+      if (x < 0 || x >= cols || y < 0 || y >= rows || isOccupied(y * cols + x)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Places a piece on the board, using the x and y coordinates
+   *
+   * @param piece the piece to be placed
+   * @param posX  the x coordinate to place at
+   * @param posY  the y coordinate to place at
+   */
+  public void playPiece(GamePiece piece, int posX, int posY) {
+    var colour = piece.getValue();
+
+    for (var block = 0; block < piece.getBlockCount(); block++) {
+      set(posX + piece.getOffsetX(block), posY + piece.getOffsetY(block), colour);
+    }
+  }
+
+  /**
+   * Find every legal placement of a piece, in each of its rotations. This has no side effects.
+   *
+   * @param piece the piece to place, in any rotation
+   * @return the placements
+   */
+  public Placements findPlacements(GamePiece piece) {
+    var placements = new Placements(cols, rows);
+    findPlacements(piece, placements);
+    return placements;
+  }
+
+  /**
+   * Find every legal placement of a piece, in each of its rotations, replacing the contents of the
+   * given Placements. This has no side effects on the board.
+   * <p>
+   * Rather than checking each position in turn, the free cells of the board are shifted by the
+   * offset of each block of the piece and masked together, so one pass over the occupancy words per
+   * block finds every position that block fits in.
+   *
+   * @param piece      the piece to place, in any rotation
+   * @param placements where to put the placements, for a board of the same size
+   * @return the number of placements
+   */
+  public int findPlacements(GamePiece piece, Placements placements) {
+    if (placements.getCols() != cols || placements.getRows() != rows) {
+      throw new IllegalArgumentException("Placements are not for a board of this size");
+    }
+
+    var size = 0;
+    for (var rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+      size += findCentres(GamePiece.createPiece(piece.getPiece(), rotation),
+          placements.centres[rotation]);
+    }
+    placements.piece = piece.getPiece();
+    placements.size = size;
+    return size;
+  }
+
+  /**
+   * Find every cell a piece can be centred on without any of its blocks leaving the board or
+   * landing on a filled block
+   *
+   * @param piece   the piece, in the rotation to place it
+   * @param centres the set to put the centre cells in
+   * @return the number of centre cells
+   */
+  private int findCentres(GamePiece piece, CellSet centres) {
+    centres.clear();
+
+    //Start from every centre which keeps the whole piece on the board
+    var firstX = -piece.getMinX();
+    var lastX = cols - 1 - piece.getMaxX();
+    var firstY = -piece.getMinY();
+    var lastY = rows - 1 - piece.getMaxY();
+    if (firstX > lastX || firstY > lastY) {
+      return 0;
+    }
+    for (var y = firstY; y <= lastY; y++) {
+      centres.addRange(y * cols + firstX, y * cols + lastX + 1);
+    }
+
+    //A centre stays legal if the cell under every block is free. Centres are kept away from the
+    //edges above, so shifting by a block offset never wraps a row into its neighbour.
+    for (var block = 0; block < piece.getBlockCount(); block++) {
+      var offset = piece.getOffsetY(block) * cols + piece.getOffsetX(block);
+      var wordOffset = Math.floorDiv(offset, Long.SIZE);
+      var bitOffset = Math.floorMod(offset, Long.SIZE);
+
+      for (var word = 0; word < centres.getWordCount(); word++) {
+        if (centres.getWord(word) == 0) {
+          continue;
+        }
+        var free = freeWord(word + wordOffset) >>> bitOffset;
+        if (bitOffset != 0) {
+          free |= freeWord(word + wordOffset + 1) << (Long.SIZE - bitOffset);
+        }
+        centres.retainWord(word, free);
+      }
+    }
+    return centres.size();
+  }
+
+  /**
+   * Get one word of the free cells of the board, the inverse of the occupancy bitmask
+   *
+   * @param word the word number
+   * @return the free cells, with no cells free for words outside the board
+   */
+  private long freeWord(int word) {
+    if (occupancyWords == null) {
+      return word == 0 ? ~occupancy : 0;
+    }
+    return word < 0 || word >= occupancyWords.length ? 0 : ~occupancyWords[word];
+  }
+
+  /**
+   * Add every block that is part of a full row or column to the given set
+   *
+   * @param blocks the set to add the blocks of full lines to
+   * @return the number of full lines
+   */
+  public int collectFullLines(CellSet blocks) {
+    var lines = 0;
+
+    //Checking if any column lines can be cleared
+    for (var x = 0; x < cols; x++) {
+      if (colCounts[x] == rows) {
+        lines++;
+        for (var index = x; index < colours.length; index += cols) {
+          blocks.add(index);
+        }
+      }
+    }
+
+    //Checking if any row lines can be cleared
+    for (var y = 0; y < rows; y++) {
+      if (rowCounts[y] == cols) {
+        lines++;
+        blocks.addRange(y * cols, (y + 1) * cols);
+      }
+    }
+    return lines;
+  }
+
+  /**
+   * Empty every block in the given set
+   *
+   * @param blocks the blocks to empty
+   */
+  public void clearBlocks(CellSet blocks) {
+    for (var word = 0; word < blocks.getWordCount(); word++) {
+
+      //Only the blocks that are actually filled need to change
+      var cleared = blocks.getWord(word);
+      if (occupancyWords == null) {
+        cleared &= occupancy;
+        occupancy &= ~cleared;
+      } else {
+        cleared &= occupancyWords[word];
+        occupancyWords[word] &= ~cleared;
+      }
+
+      while (cleared != 0) {
+        var index = word * Long.SIZE + Long.numberOfTrailingZeros(cleared);
+        cleared &= cleared - 1;
+
+        hash ^= zobristKey(index, colours[index]);
+        colours[index] = 0;
+        rowCounts[index / cols]--;
+        colCounts[index % cols]--;
+        blockChanged(index, 0);
+      }
+    }
+  }
+
+  /**
+   * Get the Zobrist hash of the board. An empty board hashes to 0.
+   *
+   * @return the hash
+   */
+  public long getHash() {
+    return hash;
+  }
+
+  /**
+   * Get the Zobrist key of a block holding a value. Rather than a table of random keys, which would
+   * have to be sized for the biggest board, the key is made by mixing the cell index and value the
+   * same way SplittableRandom mixes its seeds, which gives keys just as well spread.
+   *
+   * @param index the cell index
+   * @param value the value, not 0
+   * @return the key
+   */
+  static long zobristKey(int index, int value) {
+    var z = ((long) index << 8 | (value & 0xFF)) * 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * Get the number of filled blocks in a row
+   *
+   * @param y row
+   * @return number of filled blocks
+   */
+  public int getRowCount(int y) {
+    return rowCounts[y];
+  }
+
+  /**
+   * Get the number of filled blocks in a column
+   *
+   * @param x column
+   * @return number of filled blocks
+   */
+  public int getColCount(int x) {
+    return colCounts[x];
+  }
+
+  /**
+   * Called whenever the value of a block changes. Does nothing by default.
+   *
+   * @param index the cell index, {@code y * cols + x}
+   * @param value the new value
+   */
+  protected void blockChanged(int index, int value) {
+  }
+
+  /**
+   * Check the occupancy bit of a cell
+   *
+   * @param index the cell index
+   * @return true if the cell is filled
+   */
+  protected boolean isOccupied(int index) {
+    if (occupancyWords == null) {
+      return (occupancy & (1L << index)) != 0;
+    }
+    return (occupancyWords[index >>> 6] & (1L << index)) != 0;
+  }
+
+  /**
+   * Write a value to a cell, keeping the occupancy bitmask, line counters and hash in step
+   *
+   * @param index the cell index
+   * @param value the new value
+   */
+  protected void setCell(int index, int value) {
+    var old = colours[index];
+    var wasFilled = old != 0;
+    colours[index] = (byte) value;
+
+    //Take the old value out of the hash and put the new one in
+    if (old != (byte) value) {
+      if (wasFilled) {
+        hash ^= zobristKey(index, old);
+      }
+      if (value != 0) {
+        hash ^= zobristKey(index, value);
+      }
+    }
+
+    //Keep the line counters in step when a block is filled or emptied
+    if (wasFilled != (value != 0)) {
+      var change = wasFilled ? -1 : 1;
+      rowCounts[index / cols] += change;
+      colCounts[index % cols] += change;
+
+      var bit = 1L << index;
+      if (occupancyWords == null) {
+        occupancy ^= bit;
+      } else {
+        occupancyWords[index >>> 6] ^= bit;
+      }
+    }
+
+    blockChanged(index, value);
+  }
+}
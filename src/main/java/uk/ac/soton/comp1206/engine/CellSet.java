@@ -0,0 +1,196 @@
+package uk.ac.soton.comp1206.engine;
+
+import java.util.Arrays;
+
+/**
+ * A CellSet is a reusable set of cells in a grid, held as a bitmask with one bit per cell index
+ * ({@code y * cols + x}).
+ * <p>
+ * It is used where a set of GameBlockCoordinates would otherwise be built, for example to collect
+ * the blocks cleared after a piece is played, without creating an object per cell.
+ */
+public class CellSet {
+
+  /**
+   * The bits of the set, one per cell
+   */
+  private final long[] words;
+
+  /**
+   * The number of cells this set can hold
+   */
+  private final int capacity;
+
+  /**
+   * Create a new empty CellSet which can hold the given number of cells
+   *
+   * @param capacity number of cells
+   */
+  public CellSet(int capacity) {
+    this.capacity = capacity;
+    this.words = new long[Math.max(1, (capacity + Long.SIZE - 1) / Long.SIZE)];
+  }
+
+  /**
+   * Get the number of cells this set can hold
+   *
+   * @return the capacity
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Add a cell to the set
+   *
+   * @param index the cell index
+   */
+  public void add(int index) {
+    words[index >>> 6] |= 1L << index;
+  }
+
+  /**
+   * Remove a cell from the set
+   *
+   * @param index the cell index
+   */
+  public void remove(int index) {
+    words[index >>> 6] &= ~(1L << index);
+  }
+
+  /**
+   * Add every cell from {@code from} (inclusive) to {@code to} (exclusive) to the set
+   *
+   * @param from the first cell index
+   * @param to   one past the last cell index
+   */
+  public void addRange(int from, int to) {
+    if (from >= to) {
+      return;
+    }
+    var firstWord = from >>> 6;
+    var lastWord = (to - 1) >>> 6;
+    var firstMask = -1L << from;
+    var lastMask = -1L >>> -to;
+
+    if (firstWord == lastWord) {
+      words[firstWord] |= firstMask & lastMask;
+      return;
+    }
+    words[firstWord] |= firstMask;
+    for (var word = firstWord + 1; word < lastWord; word++) {
+      words[word] = -1L;
+    }
+    words[lastWord] |= lastMask;
+  }
+
+  /**
+   * Add every cell of another set to this set
+   *
+   * @param other the set to add, which must not hold more cells than this set
+   */
+  public void addAll(CellSet other) {
+    for (var word = 0; word < other.words.length; word++) {
+      words[word] |= other.words[word];
+    }
+  }
+
+  /**
+   * Check if a cell is in the set
+   *
+   * @param index the cell index
+   * @return true if the cell is in the set
+   */
+  public boolean contains(int index) {
+    if (index < 0 || index >= capacity) {
+      return false;
+    }
+    return (words[index >>> 6] & (1L << index)) != 0;
+  }
+
+  /**
+   * Remove every cell from the set
+   */
+  public void clear() {
+    Arrays.fill(words, 0L);
+  }
+
+  /**
+   * Get the number of cells in the set
+   *
+   * @return number of cells
+   */
+  public int size() {
+    var size = 0;
+    for (long word : words) {
+      size += Long.bitCount(word);
+    }
+    return size;
+  }
+
+  /**
+   * Check if the set is empty
+   *
+   * @return true if there are no cells in the set
+   */
+  public boolean isEmpty() {
+    for (long word : words) {
+      if (word != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Find the first cell in the set at or after the given index
+   *
+   * @param from the index to start looking from
+   * @return the cell index, or -1 if there are no more cells
+   */
+  public int next(int from) {
+    if (from >= capacity) {
+      return -1;
+    }
+    var word = from >>> 6;
+    var bits = words[word] & (-1L << from);
+    while (true) {
+      if (bits != 0) {
+        return word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+      }
+      if (++word == words.length) {
+        return -1;
+      }
+      bits = words[word];
+    }
+  }
+
+  /**
+   * Get the number of 64 bit words backing this set
+   *
+   * @return number of words
+   */
+  public int getWordCount() {
+    return words.length;
+  }
+
+  /**
+   * Get one of the 64 bit words backing this set, for mask operations
+   *
+   * @param word the word number
+   * @return the bits of cells {@code word * 64} to {@code word * 64 + 63}
+   */
+  public long getWord(int word) {
+    return words[word];
+  }
+
+  /**
+   * Keep only the cells of one of the words backing this set which are also in the given mask
+   *
+   * @param word the word number
+   * @param mask the bits to keep
+   */
+  public void retainWord(int word, long mask) {
+    words[word] &= mask;
+  }
+}
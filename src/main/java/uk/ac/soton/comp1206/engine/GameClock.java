@@ -0,0 +1,22 @@
+package uk.ac.soton.comp1206.engine;
+
+/**
+ * The GameClock is where a GameEngine reads the time from. Games normally use the system clock;
+ * a simulation, test or replay can give the engine a clock it moves forward itself, so that a game
+ * depends only on its seed and the moves played.
+ */
+@FunctionalInterface
+public interface GameClock {
+
+  /**
+   * The system clock, from {@link System#nanoTime()}
+   */
+  GameClock SYSTEM = System::nanoTime;
+
+  /**
+   * Get the current time. Only the difference between two times is meaningful.
+   *
+   * @return the time in nanoseconds
+   */
+  long nanoTime();
+}
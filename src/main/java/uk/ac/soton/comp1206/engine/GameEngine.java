@@ -0,0 +1,461 @@
+package uk.ac.soton.comp1206.engine;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.jfr.GameLoopEvent;
+import uk.ac.soton.comp1206.jfr.LineClearEvent;
+import uk.ac.soton.comp1206.jfr.PiecePlacementEvent;
+
+/**
+ * The GameEngine holds the rules and state of a game of TetrECS: the board, the current and
+ * following pieces, the score, multiplier, level and lives, and the timer the player has to place
+ * each piece within.
+ * <p>
+ * The engine does not depend on JavaFX or on any audio, so it can run headless on a server, in a
+ * batch simulation or in a benchmark. Everything that happens is reported to a
+ * GameEngineListener, which is how the user interface (through Game) finds out about changes.
+ * <p>
+ * The engine is not thread safe. It expects to be driven from one thread at a time, including the
+ * expiry callbacks of its GameTimer.
+ */
+public class GameEngine {
+
+  private static final Logger logger = LogManager.getLogger(GameEngine.class);
+
+  /**
+   * A listener which ignores every event, used until a listener is set
+   */
+  private static final GameEngineListener NO_LISTENER = new GameEngineListener() {
+  };
+
+  /**
+   * The board the game is played on
+   */
+  protected final Board board;
+
+  /**
+   * Where new pieces come from
+   */
+  private final PieceSource pieceSource;
+
+  /**
+   * The timer that will keep track of the time that the player has to place a piece
+   */
+  private final GameTimer timer;
+
+  /**
+   * Where the time is read from
+   */
+  private final GameClock clock;
+
+  /**
+   * The listener told about everything that happens in the game
+   */
+  private GameEngineListener listener = NO_LISTENER;
+
+  /**
+   * The blocks cleared by the last piece played, reused for every piece
+   */
+  private final CellSet blocksToClear;
+
+  /**
+   * Keep track of the current piece that is selected
+   */
+  protected GamePiece currentPiece;
+
+  /**
+   * Keeps track of the piece that is after the current piece
+   */
+  protected GamePiece followingPiece;
+
+  /**
+   * Keeps track of the score
+   */
+  private int score = 0;
+
+  /**
+   * Keeps track of the level
+   */
+  private int level = 0;
+
+  /**
+   * Keeps track of the lives left
+   */
+  private int lives = 3;
+
+  /**
+   * Keeps track of the multiplier
+   */
+  private int multiplier = 1;
+
+  /**
+   * Create a new engine playing on the given board
+   *
+   * @param board       the board to play on
+   * @param pieceSource where new pieces come from
+   * @param timer       the timer to count down each piece with
+   */
+  public GameEngine(Board board, PieceSource pieceSource, GameTimer timer) {
+    this(board, pieceSource, timer, GameClock.SYSTEM);
+  }
+
+  /**
+   * Create a new engine playing on the given board and reading the time from the given clock. With
+   * a seeded piece source and a clock and timer that only move when told to, such as a
+   * ManualGameTimer, a game depends only on the moves played.
+   *
+   * @param board       the board to play on
+   * @param pieceSource where new pieces come from
+   * @param timer       the timer to count down each piece with
+   * @param clock       where the time is read from
+   */
+  public GameEngine(Board board, PieceSource pieceSource, GameTimer timer, GameClock clock) {
+    this.board = board;
+    this.pieceSource = pieceSource;
+    this.timer = timer;
+    this.clock = clock;
+    this.blocksToClear = new CellSet(board.getCellCount());
+  }
+
+  /**
+   * Set the listener told about everything that happens in the game
+   *
+   * @param listener listener to set
+   */
+  public void setListener(GameEngineListener listener) {
+    this.listener = listener == null ? NO_LISTENER : listener;
+  }
+
+  /**
+   * Start the game, starting the timer and dealing the first pieces
+   */
+  public void start() {
+    logger.info("Starting game");
+    startTimer();
+    nextPiece();
+  }
+
+  /**
+   * Stop the game timer
+   */
+  public void stop() {
+    timer.cancel();
+  }
+
+  /**
+   * Try to play the current piece centred on the given x and y coordinates. If it fits, the timer
+   * is restarted, full lines are cleared and the next piece is dealt.
+   *
+   * @param x the x coordinate to play at
+   * @param y the y coordinate to play at
+   * @return true if the piece was played
+   */
+  public boolean playPiece(int x, int y) {
+    if (currentPiece == null) {
+      return false;
+    }
+
+    var event = new PiecePlacementEvent();
+    event.begin();
+    event.x = x;
+    event.y = y;
+    if (event.isEnabled()) {
+      event.piece = currentPiece.toString();
+    }
+
+    if (!board.canPlayPiece(currentPiece, x, y)) {
+      event.commit();
+      logger.debug("Unable to play piece {} at {} {}", currentPiece, x, y);
+      listener.placementRejected(currentPiece, x, y);
+      return false;
+    }
+
+    logger.debug("Playing piece {} at position {} {}", currentPiece, x, y);
+    board.playPiece(currentPiece, x, y);
+    event.placed = true;
+    event.commit();
+
+    //Restart the timer when a block is placed
+    restartTimer();
+
+    listener.piecePlaced(currentPiece, x, y);
+
+    //Clean lines and spawn another piece
+    afterPiece();
+    nextPiece();
+    return true;
+  }
+
+  /**
+   * Checks if there are any lines that can be cleared, clears them and scores them
+   */
+  public void afterPiece() {
+    var event = new LineClearEvent();
+    event.begin();
+
+    //The board keeps count of the blocks in each line, so only full lines need to be looked at
+    blocksToClear.clear();
+    var linesToClear = board.collectFullLines(blocksToClear);
+    var blockCount = linesToClear > 0 ? blocksToClear.size() : 0;
+
+    logger.debug("There are {} lines and {} blocks to be cleared", linesToClear, blockCount);
+
+    if (linesToClear > 0) {
+      board.clearBlocks(blocksToClear);
+      listener.linesCleared(linesToClear, blocksToClear);
+    }
+    score(linesToClear, blockCount);
+
+    event.lines = linesToClear;
+    event.blocks = blockCount;
+    event.commit();
+  }
+
+  /**
+   * Calculates and sets the score based off of the lines to clear, blocks to clear and multiplier
+   *
+   * @param lineCount  the number of lines to clear
+   * @param blockCount the number of blocks to clear
+   */
+  public void score(int lineCount, int blockCount) {
+    var scoreToAdd = lineCount * blockCount * 10 * multiplier;
+    if (scoreToAdd > 0) {
+      score += scoreToAdd;
+      listener.scoreChanged(score);
+    }
+    multiplier(lineCount);
+    level();
+  }
+
+  /**
+   * Changes the multiplier based of the number of lines that are cleared
+   *
+   * @param lineCount the number of lines to clear
+   */
+  public void multiplier(int lineCount) {
+    setMultiplier(lineCount > 0 ? multiplier + 1 : 1);
+  }
+
+  /**
+   * Sets the level depending on the score
+   */
+  public void level() {
+    var newLevel = score / 1000;
+    if (newLevel != level) {
+      level = newLevel;
+      listener.levelChanged(level);
+    }
+  }
+
+  /**
+   * Sets the current piece to the following piece and replaces the following piece
+   */
+  public void nextPiece() {
+    if (followingPiece == null) {
+      followingPiece = spawnPiece();
+    }
+
+    currentPiece = followingPiece;
+    followingPiece = spawnPiece();
+    logger.debug("Current piece is {}, following piece is {}", currentPiece, followingPiece);
+
+    listener.piecesChanged(currentPiece, followingPiece);
+  }
+
+  /**
+   * Take a new piece from the piece source
+   *
+   * @return the new piece
+   */
+  private GamePiece spawnPiece() {
+    var piece = pieceSource.nextPiece();
+    listener.pieceSpawned(piece);
+    return piece;
+  }
+
+  /**
+   * Will rotate the current piece by the given rotations
+   *
+   * @param rotations the number of rotations clockwise
+   */
+  public void rotateCurrentPiece(int rotations) {
+    if (currentPiece == null) {
+      return;
+    }
+    currentPiece = currentPiece.rotate(rotations);
+    listener.piecesChanged(currentPiece, followingPiece);
+    listener.pieceRotated(currentPiece);
+  }
+
+  /**
+   * Swaps the current and following pieces
+   */
+  public void swapCurrentPiece() {
+    var tempPiece = currentPiece;
+
+    currentPiece = followingPiece;
+    followingPiece = tempPiece;
+
+    listener.piecesChanged(currentPiece, followingPiece);
+    listener.piecesSwapped();
+  }
+
+  /**
+   * Find every legal placement of a piece on the board, in each of its rotations
+   *
+   * @param piece the piece to place
+   * @return the placements
+   */
+  public Placements findPlacements(GamePiece piece) {
+    return board.findPlacements(piece);
+  }
+
+  /**
+   * Gets the amount of time the player has to play a piece
+   *
+   * @return the time in milliseconds
+   */
+  public int getTimerDelay() {
+    if (level <= 19) {
+      return 12000 - 500 * level;
+    } else {
+      return 2500;
+    }
+  }
+
+  /**
+   * Starts the game timer
+   */
+  public void startTimer() {
+    var delay = getTimerDelay();
+    listener.timerStarted(delay);
+    timer.start(delay, this::gameLoop);
+  }
+
+  /**
+   * Restarts the timer by cancelling its execution and starting it again
+   */
+  public void restartTimer() {
+    timer.cancel();
+    startTimer();
+  }
+
+  /**
+   * Handles the way the game acts when a piece has not been played for the given time duration
+   */
+  public void gameLoop() {
+    var event = new GameLoopEvent();
+    event.begin();
+
+    logger.info("Ran out of time!");
+    listener.timerExpired();
+
+    if (lives == 0) {
+      timer.cancel();
+      listener.gameOver();
+      event.gameOver = true;
+      event.commit();
+      return;
+    }
+
+    //Lives reduced by one
+    lives--;
+    listener.livesChanged(lives);
+
+    //Multiplier reset to 1
+    setMultiplier(1);
+
+    //Discard current piece
+    nextPiece();
+
+    //Restart timer
+    startTimer();
+
+    event.lives = lives;
+    event.commit();
+  }
+
+  /**
+   * Get the board the game is played on
+   *
+   * @return the board
+   */
+  public Board getBoard() {
+    return board;
+  }
+
+  /**
+   * Get the clock the game reads the time from
+   *
+   * @return the clock
+   */
+  public GameClock getClock() {
+    return clock;
+  }
+
+  /**
+   * Get the piece that is to be played
+   *
+   * @return the current piece, or null before the first piece is dealt
+   */
+  public GamePiece getCurrentPiece() {
+    return currentPiece;
+  }
+
+  /**
+   * Get the piece after the current piece
+   *
+   * @return the following piece, or null before the first piece is dealt
+   */
+  public GamePiece getFollowingPiece() {
+    return followingPiece;
+  }
+
+  /**
+   * Retrieves the score
+   *
+   * @return the score
+   */
+  public int getScore() {
+    return score;
+  }
+
+  /**
+   * Retrieves the level
+   *
+   * @return the level
+   */
+  public int getLevel() {
+    return level;
+  }
+
+  /**
+   * Retrieves the lives
+   *
+   * @return the lives
+   */
+  public int getLives() {
+    return lives;
+  }
+
+  /**
+   * Retrieves the multiplier
+   *
+   * @return the multiplier
+   */
+  public int getMultiplier() {
+    return multiplier;
+  }
+
+  /**
+   * Sets the multiplier, telling the listener if it changed
+   *
+   * @param multiplier the new multiplier
+   */
+  private void setMultiplier(int multiplier) {
+    if (multiplier != this.multiplier) {
+      this.multiplier = multiplier;
+      listener.multiplierChanged(multiplier);
+    }
+  }
+}
@@ -0,0 +1,121 @@
+package uk.ac.soton.comp1206.engine;
+
+/**
+ * The GameEngineListener is told about everything that happens inside a GameEngine. Every method
+ * does nothing by default, so a listener only needs to implement the events it cares about.
+ */
+public interface GameEngineListener {
+
+  /**
+   * Handles the current or following piece changing
+   *
+   * @param currentPiece   the piece to be played
+   * @param followingPiece the piece after the current piece
+   */
+  default void piecesChanged(GamePiece currentPiece, GamePiece followingPiece) {
+  }
+
+  /**
+   * Handles a new piece being taken from the PieceSource, before the pieces in play change
+   *
+   * @param piece the new piece
+   */
+  default void pieceSpawned(GamePiece piece) {
+  }
+
+  /**
+   * Handles a piece being played on the board
+   *
+   * @param piece the piece that was played
+   * @param x     the x coordinate it was played at
+   * @param y     the y coordinate it was played at
+   */
+  default void piecePlaced(GamePiece piece, int x, int y) {
+  }
+
+  /**
+   * Handles a piece not fitting where the player tried to play it
+   *
+   * @param piece the piece that did not fit
+   * @param x     the x coordinate it was tried at
+   * @param y     the y coordinate it was tried at
+   */
+  default void placementRejected(GamePiece piece, int x, int y) {
+  }
+
+  /**
+   * Handles the current piece being rotated
+   *
+   * @param piece the rotated piece
+   */
+  default void pieceRotated(GamePiece piece) {
+  }
+
+  /**
+   * Handles the current and following pieces being swapped
+   */
+  default void piecesSwapped() {
+  }
+
+  /**
+   * Handles lines being cleared
+   *
+   * @param lines  the number of lines cleared
+   * @param blocks the blocks that were cleared, only valid for the duration of the call
+   */
+  default void linesCleared(int lines, CellSet blocks) {
+  }
+
+  /**
+   * Handles the score changing
+   *
+   * @param score the new score
+   */
+  default void scoreChanged(int score) {
+  }
+
+  /**
+   * Handles the multiplier changing
+   *
+   * @param multiplier the new multiplier
+   */
+  default void multiplierChanged(int multiplier) {
+  }
+
+  /**
+   * Handles the level changing
+   *
+   * @param level the new level
+   */
+  default void levelChanged(int level) {
+  }
+
+  /**
+   * Handles the lives changing
+   *
+   * @param lives the new number of lives
+   */
+  default void livesChanged(int lives) {
+  }
+
+  /**
+   * Handles the timer being started
+   *
+   * @param delay the time in milliseconds the player has to play a piece
+   */
+  default void timerStarted(int delay) {
+  }
+
+  /**
+   * Handles the timer running out before a piece was played, before a life is lost or the game
+   * ends
+   */
+  default void timerExpired() {
+  }
+
+  /**
+   * Handles the game ending
+   */
+  default void gameOver() {
+  }
+}
@@ -0,0 +1,436 @@
+package uk.ac.soton.comp1206.engine;
+
+/**
+ * Instances of GamePiece Represents the model of a specific Game Piece with it's block makeup.
+ * <p>
+ * Every piece in every rotation is built once when the class is loaded and then shared, so a
+ * GamePiece is immutable. Rotating a piece returns the shared instance for the new rotation rather
+ * than changing the piece.
+ * <p>
+ * As well as the 3x3 block makeup, each piece carries a 9 bit mask of its blocks (bit
+ * {@code blockY * 3 + blockX}), the offset of each block from the centre of the piece and the
+ * bounding box of those offsets, so placement checks do not need to scan the 3x3 grid.
+ * <p>
+ * The GamePiece class also contains a factory for producing a GamePiece of a particular shape, as
+ * specified by it's number.
+ */
+public class GamePiece {
+
+  /**
+   * The total number of pieces in this game
+   */
+  public static final int PIECES = 15;
+
+  /**
+   * The number of distinct rotations of each piece
+   */
+  public static final int ROTATIONS = 4;
+
+  /**
+   * Every piece in every rotation, indexed by {@code piece * ROTATIONS + rotation}
+   */
+  private static final GamePiece[] TABLE = new GamePiece[PIECES * ROTATIONS];
+
+  static {
+    for (int piece = 0; piece < PIECES; piece++) {
+      var base = createBasePiece(piece);
+      TABLE[piece * ROTATIONS] = base;
+
+      var blocks = base.blocks;
+      for (int rotation = 1; rotation < ROTATIONS; rotation++) {
+        blocks = rotateBlocks(blocks);
+        TABLE[piece * ROTATIONS + rotation] = new GamePiece(base.name, piece, rotation, blocks,
+            base.value);
+      }
+    }
+  }
+
+  /**
+   * The 2D grid representation of the shape of this piece
+   */
+  private final int[][] blocks;
+
+  /**
+   * The value of this piece
+   */
+  private final int value;
+
+  /**
+   * The name of this piece
+   */
+  private final String name;
+
+  /**
+   * The piece number of this piece
+   */
+  private final int piece;
+
+  /**
+   * How many times this piece has been rotated clockwise from its starting shape
+   */
+  private final int rotation;
+
+  /**
+   * The blocks of this piece as a mask, bit {@code blockY * 3 + blockX}
+   */
+  private final int mask;
+
+  /**
+   * The x offset of each block from the centre of the piece
+   */
+  private final int[] offsetsX;
+
+  /**
+   * The y offset of each block from the centre of the piece
+   */
+  private final int[] offsetsY;
+
+  /**
+   * The bounding box of the block offsets
+   */
+  private final int minX;
+  private final int minY;
+  private final int maxX;
+  private final int maxY;
+
+  /**
+   * Get the GamePiece of the specified piece number
+   *
+   * @param piece piece number
+   * @return the GamePiece
+   */
+  public static GamePiece createPiece(int piece) {
+    return createPiece(piece, 0);
+  }
+
+  /**
+   * Get the GamePiece of the specified piece number and rotation
+   *
+   * @param piece    piece number
+   * @param rotation number of times to rotate
+   * @return the GamePiece
+   */
+  public static GamePiece createPiece(int piece, int rotation) {
+    if (piece < 0 || piece >= PIECES) {
+      //Not a valid piece number
+      throw new IndexOutOfBoundsException("No such piece: " + piece);
+    }
+    return TABLE[piece * ROTATIONS + Math.floorMod(rotation, ROTATIONS)];
+  }
+
+  /**
+   * Build the unrotated piece of the specified piece number
+   *
+   * @param piece piece number
+   * @return the created GamePiece
+   */
+  private static GamePiece createBasePiece(int piece) {
+    switch (piece) {
+      //Line
+      case 0 -> {
+        int[][] blocks = {{0, 0, 0}, {1, 1, 1}, {0, 0, 0}};
+        return new GamePiece("Line", piece, 0, blocks, 1);
+      }
+
+      //C
+      case 1 -> {
+        int[][] blocks = {{0, 0, 0}, {1, 1, 1}, {1, 0, 1}};
+        return new GamePiece("C", piece, 0, blocks, 2);
+      }
+
+      //Plus
+      case 2 -> {
+        int[][] blocks = {{0, 1, 0}, {1, 1, 1}, {0, 1, 0}};
+        return new GamePiece("Plus", piece, 0, blocks, 3);
+      }
+
+      //Dot
+      case 3 -> {
+        int[][] blocks = {{0, 0, 0}, {0, 1, 0}, {0, 0, 0}};
+        return new GamePiece("Dot", piece, 0, blocks, 4);
+      }
+
+      //Square
+      case 4 -> {
+        int[][] blocks = {{1, 1, 0}, {1, 1, 0}, {0, 0, 0}};
+        return new GamePiece("Square", piece, 0, blocks, 5);
+      }
+
+      //L
+      case 5 -> {
+        int[][] blocks = {{0, 0, 0}, {1, 1, 1}, {0, 0, 1}};
+        return new GamePiece("L", piece, 0, blocks, 6);
+      }
+
+      //J
+      case 6 -> {
+        int[][] blocks = {{0, 0, 1}, {1, 1, 1}, {0, 0, 0}};
+        return new GamePiece("J", piece, 0, blocks, 7);
+      }
+
+      //S
+      case 7 -> {
+        int[][] blocks = {{0, 0, 0}, {0, 1, 1}, {1, 1, 0}};
+        return new GamePiece("S", piece, 0, blocks, 8);
+      }
+
+      //Z
+      case 8 -> {
+        int[][] blocks = {{1, 1, 0}, {0, 1, 1}, {0, 0, 0}};
+        return new GamePiece("Z", piece, 0, blocks, 9);
+      }
+
+      //T
+      case 9 -> {
+        int[][] blocks = {{1, 0, 0}, {1, 1, 0}, {1, 0, 0}};
+        return new GamePiece("T", piece, 0, blocks, 10);
+      }
+
+      //X
+      case 10 -> {
+        int[][] blocks = {{1, 0, 1}, {0, 1, 0}, {1, 0, 1}};
+        return new GamePiece("X", piece, 0, blocks, 11);
+      }
+
+      //Corner
+      case 11 -> {
+        int[][] blocks = {{0, 0, 0}, {1, 1, 0}, {1, 0, 0}};
+        return new GamePiece("Corner", piece, 0, blocks, 12);
+      }
+
+      //Inverse Corner
+      case 12 -> {
+        int[][] blocks = {{1, 0, 0}, {1, 1, 0}, {0, 0, 0}};
+        return new GamePiece("Inverse Corner", piece, 0, blocks, 13);
+      }
+
+      //Diagonal
+      case 13 -> {
+        int[][] blocks = {{1, 0, 0}, {0, 1, 0}, {0, 0, 1}};
+        return new GamePiece("Diagonal", piece, 0, blocks, 14);
+      }
+
+      //Double
+      case 14 -> {
+        int[][] blocks = {{0, 1, 0}, {0, 1, 0}, {0, 0, 0}};
+        return new GamePiece("Double", piece, 0, blocks, 15);
+      }
+    }
+
+    //Not a valid piece number
+    throw new IndexOutOfBoundsException("No such piece: " + piece);
+  }
+
+  /**
+   * Rotate a 3x3 grid of blocks once clockwise, returning a new grid
+   *
+   * @param blocks the blocks to rotate
+   * @return the rotated blocks
+   */
+  private static int[][] rotateBlocks(int[][] blocks) {
+    int[][] rotated = new int[3][3];
+    for (int x = 0; x < 3; x++) {
+      for (int y = 0; y < 3; y++) {
+        rotated[2 - y][x] = blocks[x][y];
+      }
+    }
+    return rotated;
+  }
+
+  /**
+   * Create a new GamePiece with the given name, block makeup and value. Should not be called
+   * directly, only when building the table of pieces.
+   *
+   * @param name     name of the piece
+   * @param piece    the piece number
+   * @param rotation the rotation of this instance
+   * @param blocks   block makeup of the piece
+   * @param value    the value of this piece
+   */
+  private GamePiece(String name, int piece, int rotation, int[][] blocks, int value) {
+    this.name = name;
+    this.piece = piece;
+    this.rotation = rotation;
+    this.blocks = blocks;
+    this.value = value;
+
+    //Use the shape of the block to create a grid with either 0 (empty) or the value of this shape for each block.
+    var count = 0;
+    var bits = 0;
+    for (int x = 0; x < blocks.length; x++) {
+      for (int y = 0; y < blocks[x].length; y++) {
+        if (blocks[x][y] == 0) {
+          continue;
+        }
+        blocks[x][y] = value;
+        bits |= 1 << (y * 3 + x);
+        count++;
+      }
+    }
+    this.mask = bits;
+
+    //Record the offset of every block from the centre, along with their bounding box
+    offsetsX = new int[count];
+    offsetsY = new int[count];
+    int lowX = 1, lowY = 1, highX = -1, highY = -1;
+    var cell = 0;
+    for (int y = 0; y < 3; y++) {
+      for (int x = 0; x < 3; x++) {
+        if ((bits & (1 << (y * 3 + x))) == 0) {
+          continue;
+        }
+        offsetsX[cell] = x - 1;
+        offsetsY[cell] = y - 1;
+        lowX = Math.min(lowX, x - 1);
+        lowY = Math.min(lowY, y - 1);
+        highX = Math.max(highX, x - 1);
+        highY = Math.max(highY, y - 1);
+        cell++;
+      }
+    }
+    minX = lowX;
+    minY = lowY;
+    maxX = highX;
+    maxY = highY;
+  }
+
+  /**
+   * Get the value of this piece
+   *
+   * @return piece value
+   */
+  public int getValue() {
+    return value;
+  }
+
+  /**
+   * Get the piece number of this piece
+   *
+   * @return piece number
+   */
+  public int getPiece() {
+    return piece;
+  }
+
+  /**
+   * Get the number of clockwise rotations from the starting shape of this piece
+   *
+   * @return rotation between 0 and 3
+   */
+  public int getRotation() {
+    return rotation;
+  }
+
+  /**
+   * Get the block makeup of this piece. The grid is shared between every user of the piece and must
+   * not be modified.
+   *
+   * @return 2D grid of the blocks representing the piece shape
+   */
+  public int[][] getBlocks() {
+    return blocks;
+  }
+
+  /**
+   * Get the blocks of this piece as a mask, with bit {@code blockY * 3 + blockX} set for every
+   * block
+   *
+   * @return 9 bit mask of the blocks
+   */
+  public int getMask() {
+    return mask;
+  }
+
+  /**
+   * Get the number of blocks that make up this piece
+   *
+   * @return number of blocks
+   */
+  public int getBlockCount() {
+    return offsetsX.length;
+  }
+
+  /**
+   * Get the x offset of a block from the centre of the piece
+   *
+   * @param block the block number, below {@link #getBlockCount()}
+   * @return the x offset, between -1 and 1
+   */
+  public int getOffsetX(int block) {
+    return offsetsX[block];
+  }
+
+  /**
+   * Get the y offset of a block from the centre of the piece
+   *
+   * @param block the block number, below {@link #getBlockCount()}
+   * @return the y offset, between -1 and 1
+   */
+  public int getOffsetY(int block) {
+    return offsetsY[block];
+  }
+
+  /**
+   * Get the smallest x offset of any block
+   *
+   * @return the smallest x offset
+   */
+  public int getMinX() {
+    return minX;
+  }
+
+  /**
+   * Get the smallest y offset of any block
+   *
+   * @return the smallest y offset
+   */
+  public int getMinY() {
+    return minY;
+  }
+
+  /**
+   * Get the largest x offset of any block
+   *
+   * @return the largest x offset
+   */
+  public int getMaxX() {
+    return maxX;
+  }
+
+  /**
+   * Get the largest y offset of any block
+   *
+   * @return the largest y offset
+   */
+  public int getMaxY() {
+    return maxY;
+  }
+
+  /**
+   * Get this piece rotated the given number of rotations clockwise
+   *
+   * @param rotations number of rotations
+   * @return the rotated piece
+   */
+  public GamePiece rotate(int rotations) {
+    return TABLE[piece * ROTATIONS + Math.floorMod(rotation + rotations, ROTATIONS)];
+  }
+
+  /**
+   * Get this piece rotated exactly once clockwise
+   *
+   * @return the rotated piece
+   */
+  public GamePiece rotate() {
+    return rotate(1);
+  }
+
+  /**
+   * Return the string representation of this piece
+   *
+   * @return the name of this piece
+   */
+  public String toString() {
+    return this.name;
+  }
+}
@@ -0,0 +1,21 @@
+package uk.ac.soton.comp1206.engine;
+
+/**
+ * The GameTimer is the timer a GameEngine uses to give the player a limited time to place each
+ * piece. Only one countdown is running at a time; starting a new one replaces the previous one.
+ */
+public interface GameTimer {
+
+  /**
+   * Start counting down, replacing any countdown already running
+   *
+   * @param delay  the time in milliseconds before the countdown expires
+   * @param expiry what to run when the countdown expires
+   */
+  void start(int delay, Runnable expiry);
+
+  /**
+   * Cancel the running countdown, if there is one
+   */
+  void cancel();
+}
@@ -0,0 +1,100 @@
+package uk.ac.soton.comp1206.engine;
+
+/**
+ * A GameTimer which never expires by itself. Time only passes when {@link #advance(long)} is
+ * called, and the countdown can be expired straight away with {@link #expire()}, which lets a
+ * simulation or a test decide when the player runs out of time without waiting for it.
+ * <p>
+ * It is also a GameClock reading the same time, so an engine given it as both its timer and its
+ * clock runs entirely on simulated time.
+ */
+public class ManualGameTimer implements GameTimer, GameClock {
+
+  /**
+   * What to run when the countdown expires, or null when no countdown is running
+   */
+  private Runnable expiry;
+
+  /**
+   * The delay of the last countdown started
+   */
+  private int delay;
+
+  /**
+   * The simulated time, in nanoseconds
+   */
+  private long now;
+
+  /**
+   * When the running countdown expires, in simulated nanoseconds
+   */
+  private long deadline;
+
+  @Override
+  public void start(int delay, Runnable expiry) {
+    this.delay = delay;
+    this.expiry = expiry;
+    this.deadline = now + delay * 1_000_000L;
+  }
+
+  @Override
+  public long nanoTime() {
+    return now;
+  }
+
+  /**
+   * Move simulated time forward, expiring the countdown if its deadline is reached. Time stops at
+   * the deadline when the countdown expires, so a countdown started by the expiry is not cut short.
+   *
+   * @param millis the time to move forward in milliseconds
+   * @return true if the countdown expired
+   */
+  public boolean advance(long millis) {
+    var target = now + millis * 1_000_000L;
+    if (expiry != null && deadline <= target) {
+      now = deadline;
+      return expire();
+    }
+    now = target;
+    return false;
+  }
+
+  @Override
+  public void cancel() {
+    expiry = null;
+  }
+
+  /**
+   * Expire the running countdown now, moving simulated time forward to its deadline
+   *
+   * @return true if a countdown was running
+   */
+  public boolean expire() {
+    var running = expiry;
+    if (running == null) {
+      return false;
+    }
+    now = Math.max(now, deadline);
+    expiry = null;
+    running.run();
+    return true;
+  }
+
+  /**
+   * Check if a countdown is running
+   *
+   * @return true if running
+   */
+  public boolean isRunning() {
+    return expiry != null;
+  }
+
+  /**
+   * Get the delay of the last countdown started
+   *
+   * @return the delay in milliseconds
+   */
+  public int getDelay() {
+    return delay;
+  }
+}
@@ -0,0 +1,15 @@
+package uk.ac.soton.comp1206.engine;
+
+/**
+ * A PieceSource supplies the pieces a GameEngine plays with, for example at random for a single
+ * player game or from the server for a multiplayer game.
+ */
+public interface PieceSource {
+
+  /**
+   * Get the next piece to be played
+   *
+   * @return the next piece
+   */
+  GamePiece nextPiece();
+}
@@ -0,0 +1,133 @@
+package uk.ac.soton.comp1206.engine;
+
+/**
+ * Every legal placement of a piece on a board, in each of its rotations. Filled in by
+ * {@link Board#findPlacements(GamePiece, Placements)}.
+ * <p>
+ * The placements for each rotation are held as a CellSet of the cells the centre of the piece can
+ * be played on ({@code y * cols + x}), so no object is created per placement and one Placements
+ * can be reused for every search on boards of the same size. Rotations which give the same shape,
+ * such as every rotation of the square, are each reported.
+ */
+public class Placements {
+
+  /**
+   * The number of columns in the board searched
+   */
+  private final int cols;
+
+  /**
+   * The number of rows in the board searched
+   */
+  private final int rows;
+
+  /**
+   * The legal centre cells for each rotation
+   */
+  final CellSet[] centres = new CellSet[GamePiece.ROTATIONS];
+
+  /**
+   * The piece number the placements are for, or -1 before the first search
+   */
+  int piece = -1;
+
+  /**
+   * The total number of placements over every rotation
+   */
+  int size;
+
+  /**
+   * Create a new empty Placements for boards with the given number of columns and rows
+   *
+   * @param cols number of columns
+   * @param rows number of rows
+   */
+  public Placements(int cols, int rows) {
+    this.cols = cols;
+    this.rows = rows;
+    for (var rotation = 0; rotation < centres.length; rotation++) {
+      centres[rotation] = new CellSet(cols * rows);
+    }
+  }
+
+  /**
+   * Get the number of columns in the boards these placements are for
+   *
+   * @return number of columns
+   */
+  public int getCols() {
+    return cols;
+  }
+
+  /**
+   * Get the number of rows in the boards these placements are for
+   *
+   * @return number of rows
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * Get the piece number the placements were found for
+   *
+   * @return the piece number, or -1 if nothing has been searched yet
+   */
+  public int getPiece() {
+    return piece;
+  }
+
+  /**
+   * Get the cells the centre of the piece can be played on in the given rotation. The set is
+   * reused by the next search, so it must not be modified or kept.
+   *
+   * @param rotation the rotation, from 0 to 3
+   * @return the legal centre cells
+   */
+  public CellSet getCentres(int rotation) {
+    return centres[rotation];
+  }
+
+  /**
+   * Check if the piece can be played centred on the given x and y in the given rotation
+   *
+   * @param x        column
+   * @param y        row
+   * @param rotation the rotation, from 0 to 3
+   * @return true if the placement is legal
+   */
+  public boolean contains(int x, int y, int rotation) {
+    if (x < 0 || x >= cols || y < 0 || y >= rows) {
+      return false;
+    }
+    return centres[rotation].contains(y * cols + x);
+  }
+
+  /**
+   * Get the number of legal placements over every rotation
+   *
+   * @return number of placements
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Get the number of legal placements in one rotation
+   *
+   * @param rotation the rotation, from 0 to 3
+   * @return number of placements
+   */
+  public int size(int rotation) {
+    return centres[rotation].size();
+  }
+
+  /**
+   * Check if the piece cannot be played anywhere
+   *
+   * @return true if there are no legal placements
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+}
@@ -0,0 +1,52 @@
+package uk.ac.soton.comp1206.engine;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * The RandomPieceSource spawns pieces at random, with every piece equally likely
+ */
+public class RandomPieceSource implements PieceSource {
+
+  /**
+   * Random number generator
+   */
+  private final RandomGenerator rnd;
+
+  /**
+   * Create a source of random pieces with its own unseeded generator
+   */
+  public RandomPieceSource() {
+    this(new SplittableRandom());
+  }
+
+  /**
+   * Create a source of random pieces from a seed. Sources with the same seed spawn the same
+   * pieces.
+   *
+   * @param seed the seed
+   */
+  public RandomPieceSource(long seed) {
+    this(new SplittableRandom(seed));
+  }
+
+  /**
+   * Create a source of random pieces drawing from the given generator, so a sequence of pieces can
+   * be repeated by seeding it
+   *
+   * @param rnd the generator to draw from
+   */
+  public RandomPieceSource(RandomGenerator rnd) {
+    this.rnd = rnd;
+  }
+
+  /**
+   * Spawns a random piece
+   *
+   * @return the random piece
+   */
+  @Override
+  public GamePiece nextPiece() {
+    return GamePiece.createPiece(rnd.nextInt(GamePiece.PIECES));
+  }
+}
@@ -0,0 +1,150 @@
+package uk.ac.soton.comp1206.engine;
+
+import java.util.concurrent.Executor;
+
+/**
+ * A GameTimer that counts down on a TimerService and hands each expiry to a callback executor, so
+ * the game can choose which thread it is told about the expiry on.
+ * <p>
+ * Restarting and cancelling are cheap: they only move the deadline, and never remove anything from
+ * the scheduler. A wake-up is only scheduled when the new deadline is earlier than the one already
+ * waiting; a wake-up that finds the deadline has moved later goes back to sleep until it, and one
+ * that finds the countdown cancelled does nothing.
+ * <p>
+ * An expiry which has already been handed to the callback executor is dropped if the countdown is
+ * cancelled or restarted before it runs.
+ */
+public class ScheduledGameTimer implements GameTimer {
+
+  /**
+   * Runs the expiry callbacks
+   */
+  private final Executor callbacks;
+
+  /**
+   * The service the countdowns are scheduled on
+   */
+  private final TimerService service;
+
+  /**
+   * What to run when the countdown expires, or null when no countdown is running
+   */
+  private Runnable expiry;
+
+  /**
+   * When the running countdown expires, as a {@link System#nanoTime()}
+   */
+  private long deadline;
+
+  /**
+   * When the earliest wake-up still waiting on the service is due, or {@link Long#MAX_VALUE} if
+   * there is none
+   */
+  private long wakeUp = Long.MAX_VALUE;
+
+  /**
+   * Counts the countdowns started and cancelled, so a stale expiry can be recognised
+   */
+  private long generation;
+
+  /**
+   * Create a new timer on the shared service which runs expiry callbacks on the timer thread
+   */
+  public ScheduledGameTimer() {
+    this(Runnable::run);
+  }
+
+  /**
+   * Create a new timer on the shared service which runs expiry callbacks on the given executor
+   *
+   * @param callbacks the executor to run expiry callbacks on
+   */
+  public ScheduledGameTimer(Executor callbacks) {
+    this(callbacks, TimerService.shared());
+  }
+
+  /**
+   * Create a new timer which runs expiry callbacks on the given executor
+   *
+   * @param callbacks the executor to run expiry callbacks on
+   * @param service   the service to schedule the countdowns on
+   */
+  public ScheduledGameTimer(Executor callbacks, TimerService service) {
+    this.callbacks = callbacks;
+    this.service = service;
+  }
+
+  @Override
+  public synchronized void start(int delay, Runnable expiry) {
+    generation++;
+    this.expiry = expiry;
+    this.deadline = System.nanoTime() + delay * 1_000_000L;
+    if (deadline < wakeUp) {
+      wakeUp(deadline);
+    }
+  }
+
+  @Override
+  public synchronized void cancel() {
+    generation++;
+    expiry = null;
+  }
+
+  /**
+   * Get the time left on the running countdown
+   *
+   * @return the time left in milliseconds, or 0 if no countdown is running
+   */
+  public synchronized long getRemaining() {
+    if (expiry == null) {
+      return 0;
+    }
+    return Math.max(0, (deadline - System.nanoTime()) / 1_000_000L);
+  }
+
+  /**
+   * Schedule a wake-up on the service
+   *
+   * @param time when to wake up, as a {@link System#nanoTime()}
+   */
+  private void wakeUp(long time) {
+    wakeUp = time;
+    service.schedule(time, this::wake);
+  }
+
+  /**
+   * Called on the timer thread by every wake-up. Expires the countdown if its deadline has passed,
+   * or sleeps again until the deadline if it has moved later.
+   */
+  private synchronized void wake() {
+    //This was the earliest wake-up waiting, and any others are for later deadlines
+    wakeUp = Long.MAX_VALUE;
+    if (expiry == null) {
+      return;
+    }
+
+    if (System.nanoTime() < deadline) {
+      wakeUp(deadline);
+      return;
+    }
+
+    var countdown = generation;
+    var expired = expiry;
+    expiry = null;
+    callbacks.execute(() -> {
+      if (isCurrent(countdown)) {
+        expired.run();
+      }
+    });
+  }
+
+  /**
+   * Check if a countdown is still the one running
+   *
+   * @param countdown the generation of the countdown
+   * @return true if it has not been cancelled or replaced
+   */
+  private synchronized boolean isCurrent(long countdown) {
+    return countdown == generation;
+  }
+}
@@ -0,0 +1,89 @@
+package uk.ac.soton.comp1206.engine;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The TimerService runs every countdown and repeating task in the application on one shared
+ * scheduler thread, rather than each game or scene starting threads of its own.
+ * <p>
+ * Deadlines are given as {@link System#nanoTime()} values, so they are not affected by changes to
+ * the wall clock. Tasks should be short: anything which takes time or touches the user interface
+ * should be handed on to another executor.
+ */
+public class TimerService {
+
+  /**
+   * The service shared by the whole application
+   */
+  private static final TimerService SHARED = new TimerService("game-timer");
+
+  /**
+   * The scheduler the tasks run on
+   */
+  private final ScheduledThreadPoolExecutor scheduler;
+
+  /**
+   * Create a new service with its own scheduler thread
+   *
+   * @param name the name of the scheduler thread
+   */
+  public TimerService(String name) {
+    scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+      var thread = new Thread(runnable, name);
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    //Cancelled repeating tasks should not stay queued until their next run
+    scheduler.setRemoveOnCancelPolicy(true);
+  }
+
+  /**
+   * Get the service shared by the whole application
+   *
+   * @return the shared service
+   */
+  public static TimerService shared() {
+    return SHARED;
+  }
+
+  /**
+   * Run a task once a deadline has passed
+   *
+   * @param deadline the {@link System#nanoTime()} to run the task at
+   * @param task     the task to run
+   */
+  public void schedule(long deadline, Runnable task) {
+    scheduler.schedule(task, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Run a task now and then repeatedly at a fixed rate until it is cancelled
+   *
+   * @param task   the task to run
+   * @param period the time between runs
+   * @param unit   the unit of the period
+   * @return the future used to cancel the task
+   */
+  public ScheduledFuture<?> repeat(Runnable task, long period, TimeUnit unit) {
+    return scheduler.scheduleAtFixedRate(task, 0, period, unit);
+  }
+
+  /**
+   * Get the number of scheduler threads running
+   *
+   * @return the number of threads
+   */
+  public int getThreadCount() {
+    return scheduler.getPoolSize();
+  }
+
+  /**
+   * Stop the scheduler thread, dropping any tasks still waiting
+   */
+  public void shutdown() {
+    scheduler.shutdownNow();
+  }
+}
@@ -0,0 +1,125 @@
+package uk.ac.soton.comp1206.engine;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A TranspositionTable remembers values worked out for positions, so a search or evaluation which
+ * reaches a position it has seen before can reuse the value rather than work it out again. A
+ * position is keyed by the Zobrist hash of its board and the pieces in play, see
+ * {@link #key(long, GamePiece, GamePiece)}.
+ * <p>
+ * The table has a fixed number of slots and a new value always replaces whatever was in its slot,
+ * so it never grows. It can be shared by any number of threads without locking: each slot holds the
+ * value and the key XORed with the value, and a slot is only believed if the two agree. A slot
+ * half overwritten by another thread fails the check and reads as missing, so a lookup can miss but
+ * never returns the value of another position (short of two positions' 64 bit keys colliding).
+ */
+public class TranspositionTable {
+
+  /**
+   * The key of each slot XORed with its value
+   */
+  private final AtomicLongArray checks;
+
+  /**
+   * The bits of the value in each slot
+   */
+  private final AtomicLongArray values;
+
+  /**
+   * The slot bits of a key
+   */
+  private final int mask;
+
+  /**
+   * Create an empty table
+   *
+   * @param capacity the number of slots, rounded up to a power of two
+   */
+  public TranspositionTable(int capacity) {
+    if (capacity < 1 || capacity > 1 << 30) {
+      throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+    }
+    var slots = Integer.highestOneBit(capacity);
+    if (slots < capacity) {
+      slots <<= 1;
+    }
+    this.checks = new AtomicLongArray(slots);
+    this.values = new AtomicLongArray(slots);
+    this.mask = slots - 1;
+  }
+
+  /**
+   * Get the key of a position
+   *
+   * @param boardHash the hash of the board, from {@link Board#getHash()}
+   * @param current   the piece to be played, or null if none
+   * @param following the piece after it, or null if none
+   * @return the key
+   */
+  public static long key(long boardHash, GamePiece current, GamePiece following) {
+    //Rotations of the same piece share a key, as a search tries every rotation anyway
+    var pieces = (current == null ? 0 : current.getPiece() + 1) * (GamePiece.PIECES + 1)
+        + (following == null ? 0 : following.getPiece() + 1);
+    return boardHash ^ Board.zobristKey(-1 - pieces, 1);
+  }
+
+  /**
+   * Look up the value of a position
+   *
+   * @param key the key of the position
+   * @return the value, or NaN if the table does not hold it
+   */
+  public double get(long key) {
+    key = nonZero(key);
+    var slot = (int) key & mask;
+    var value = values.getOpaque(slot);
+    if ((checks.getOpaque(slot) ^ value) != key) {
+      return Double.NaN;
+    }
+    return Double.longBitsToDouble(value);
+  }
+
+  /**
+   * Remember the value of a position, replacing whatever was in its slot
+   *
+   * @param key   the key of the position
+   * @param value the value
+   */
+  public void put(long key, double value) {
+    key = nonZero(key);
+    var slot = (int) key & mask;
+    var bits = Double.doubleToRawLongBits(value);
+    values.setOpaque(slot, bits);
+    checks.setOpaque(slot, key ^ bits);
+  }
+
+  /**
+   * Forget every value
+   */
+  public void clear() {
+    for (var slot = 0; slot <= mask; slot++) {
+      values.setOpaque(slot, 0);
+      checks.setOpaque(slot, 0);
+    }
+  }
+
+  /**
+   * Get the number of slots in the table
+   *
+   * @return the capacity
+   */
+  public int getCapacity() {
+    return mask + 1;
+  }
+
+  /**
+   * Move a key of 0 elsewhere, as an empty slot would otherwise read as holding it with the value 0
+   *
+   * @param key the key
+   * @return the key, never 0
+   */
+  private static long nonZero(long key) {
+    return key == 0 ? 1 : key;
+  }
+}
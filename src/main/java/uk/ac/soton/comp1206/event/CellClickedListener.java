@@ -0,0 +1,16 @@
+package uk.ac.soton.comp1206.event;
+
+/**
+ * The CellClickedListener is used to handle the event when a cell of a board drawn on a single
+ * canvas is clicked
+ */
+public interface CellClickedListener {
+
+  /**
+   * Handle a cell clicked event
+   *
+   * @param x the column of the cell that was clicked
+   * @param y the row of the cell that was clicked
+   */
+  void cellClicked(int x, int y);
+}
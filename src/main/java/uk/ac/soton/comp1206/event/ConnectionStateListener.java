@@ -0,0 +1,17 @@
+package uk.ac.soton.comp1206.event;
+
+import uk.ac.soton.comp1206.network.ConnectionState;
+
+/**
+ * The ConnectionStateListener is used for listening to the connection to the server being lost
+ * and made again. It is called on the communicator's threads, not the application thread.
+ */
+public interface ConnectionStateListener {
+
+  /**
+   * Handle the state of the connection changing
+   *
+   * @param state the new state
+   */
+  void connectionStateChanged(ConnectionState state);
+}
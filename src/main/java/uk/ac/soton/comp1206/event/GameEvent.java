@@ -0,0 +1,113 @@
+package uk.ac.soton.comp1206.event;
+
+import java.util.HashSet;
+import java.util.Set;
+import uk.ac.soton.comp1206.component.GameBlockCoordinate;
+import uk.ac.soton.comp1206.engine.GamePiece;
+
+/**
+ * A GameEvent is something that happened in a game which the user interface shows, published on a
+ * GameEventBus.
+ * <p>
+ * Most events describe the latest state of something, such as the score, so when several of the
+ * same kind are published before they are delivered only the latest matters. Events which carry
+ * more than the latest state say how to combine with a later one in {@link #coalesce(GameEvent)}.
+ */
+public sealed interface GameEvent {
+
+  /**
+   * Combine this event with a later event of the same kind published before this one was
+   * delivered. By default the later event replaces this one.
+   *
+   * @param later the later event
+   * @return the event to deliver in place of both
+   */
+  default GameEvent coalesce(GameEvent later) {
+    return later;
+  }
+
+  /**
+   * The current or following piece changed
+   *
+   * @param current   the piece to be played
+   * @param following the piece after the current piece
+   */
+  record PiecesChanged(GamePiece current, GamePiece following) implements GameEvent {
+
+  }
+
+  /**
+   * Lines were cleared
+   *
+   * @param lines  the number of lines cleared
+   * @param blocks the blocks that were cleared
+   */
+  record LinesCleared(int lines, Set<GameBlockCoordinate> blocks) implements GameEvent {
+
+    /**
+     * Combine with lines cleared later, clearing the blocks of both
+     *
+     * @param later the later event
+     * @return the combined event
+     */
+    @Override
+    public GameEvent coalesce(GameEvent later) {
+      var other = (LinesCleared) later;
+      var union = new HashSet<>(blocks);
+      union.addAll(other.blocks);
+      return new LinesCleared(lines + other.lines, union);
+    }
+  }
+
+  /**
+   * The score changed
+   *
+   * @param score the new score
+   */
+  record ScoreChanged(int score) implements GameEvent {
+
+  }
+
+  /**
+   * The multiplier changed
+   *
+   * @param multiplier the new multiplier
+   */
+  record MultiplierChanged(int multiplier) implements GameEvent {
+
+  }
+
+  /**
+   * The level changed
+   *
+   * @param level the new level
+   */
+  record LevelChanged(int level) implements GameEvent {
+
+  }
+
+  /**
+   * The number of lives changed
+   *
+   * @param lives the new number of lives
+   */
+  record LivesChanged(int lives) implements GameEvent {
+
+  }
+
+  /**
+   * The timer started counting down a new piece
+   *
+   * @param delay the time in milliseconds the player has to play a piece
+   */
+  record TimerStarted(int delay) implements GameEvent {
+
+  }
+
+  /**
+   * The game ended
+   */
+  record GameEnded() implements GameEvent {
+
+  }
+}
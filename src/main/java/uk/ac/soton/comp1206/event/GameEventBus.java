@@ -0,0 +1,167 @@
+package uk.ac.soton.comp1206.event;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The GameEventBus delivers GameEvents to any number of subscribers for each kind of event.
+ * <p>
+ * Events are not delivered as they are published. The first event published schedules a delivery
+ * on the bus's dispatcher, normally a {@link PulseExecutor} so the JavaFX application thread gets
+ * one batch of updates per pulse, and every event published before it runs is coalesced into that
+ * batch: a burst such as a line clear, which changes the score, multiplier and level together,
+ * reaches the user interface as one update. Within a batch the kinds of event are delivered in the
+ * order they were first published.
+ * <p>
+ * A bus can be suppressed, for example while a game is fast forwarded, in which case events are
+ * dropped as they are published and nothing is delivered.
+ */
+public class GameEventBus {
+
+  private static final Logger logger = LogManager.getLogger(GameEventBus.class);
+
+  /**
+   * A subscription to events, which can be cancelled
+   */
+  public interface Subscription {
+
+    /**
+     * Stop delivering events to the subscriber
+     */
+    void cancel();
+  }
+
+  /**
+   * Runs the delivery of each batch of events
+   */
+  private final Executor dispatcher;
+
+  /**
+   * The subscribers to each kind of event
+   */
+  private final Map<Class<? extends GameEvent>, List<Consumer<GameEvent>>> subscribers =
+      new HashMap<>();
+
+  /**
+   * The events waiting to be delivered, at most one of each kind, in the order first published
+   */
+  private final Map<Class<? extends GameEvent>, GameEvent> pending = new LinkedHashMap<>();
+
+  /**
+   * Whether a delivery has been scheduled and not yet run
+   */
+  private boolean scheduled;
+
+  /**
+   * Whether events are being dropped
+   */
+  private volatile boolean suppressed;
+
+  /**
+   * Create a bus
+   *
+   * @param dispatcher runs the delivery of each batch of events, for example a PulseExecutor, or
+   *                   {@code Runnable::run} to deliver each event as it is published
+   */
+  public GameEventBus(Executor dispatcher) {
+    this.dispatcher = dispatcher;
+  }
+
+  /**
+   * Subscribe to one kind of event
+   *
+   * @param type       the kind of event
+   * @param subscriber called with each event of that kind delivered
+   * @param <E>        the kind of event
+   * @return the subscription
+   */
+  @SuppressWarnings("unchecked")
+  public <E extends GameEvent> Subscription subscribe(Class<E> type,
+      Consumer<? super E> subscriber) {
+    var consumer = (Consumer<GameEvent>) subscriber;
+    List<Consumer<GameEvent>> list;
+    synchronized (this) {
+      list = subscribers.computeIfAbsent(type, key -> new CopyOnWriteArrayList<>());
+    }
+    list.add(consumer);
+    return () -> list.remove(consumer);
+  }
+
+  /**
+   * Publish an event, to be delivered with the next batch
+   *
+   * @param event the event
+   */
+  public void publish(GameEvent event) {
+    if (suppressed) {
+      return;
+    }
+
+    synchronized (this) {
+      pending.merge(event.getClass(), event, GameEvent::coalesce);
+      if (scheduled) {
+        return;
+      }
+      scheduled = true;
+    }
+    dispatcher.execute(this::deliver);
+  }
+
+  /**
+   * Drop events rather than deliver them, or go back to delivering them. Events already waiting
+   * are dropped too, so subscribers should refresh from the game when events are resumed.
+   *
+   * @param suppressed true to drop events
+   */
+  public void setSuppressed(boolean suppressed) {
+    this.suppressed = suppressed;
+    if (suppressed) {
+      synchronized (this) {
+        pending.clear();
+      }
+    }
+  }
+
+  /**
+   * Check if events are being dropped
+   *
+   * @return true if suppressed
+   */
+  public boolean isSuppressed() {
+    return suppressed;
+  }
+
+  /**
+   * Deliver every waiting event to its subscribers
+   */
+  private void deliver() {
+    List<GameEvent> batch;
+    synchronized (this) {
+      batch = new ArrayList<>(pending.values());
+      pending.clear();
+      scheduled = false;
+    }
+
+    for (GameEvent event : batch) {
+      var list = subscribers.get(event.getClass());
+      if (list == null) {
+        continue;
+      }
+      for (Consumer<GameEvent> subscriber : list) {
+        try {
+          subscriber.accept(event);
+        } catch (RuntimeException e) {
+          logger.error("Subscriber to {} failed", event, e);
+        }
+      }
+    }
+  }
+}
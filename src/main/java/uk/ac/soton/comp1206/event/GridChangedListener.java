@@ -0,0 +1,17 @@
+package uk.ac.soton.comp1206.event;
+
+/**
+ * The GridChangedListener is told whenever a block of a Grid is set, so a view can redraw it
+ * without binding a property to every block
+ */
+public interface GridChangedListener {
+
+  /**
+   * Handle a block being set
+   *
+   * @param x     the column of the block
+   * @param y     the row of the block
+   * @param value the new value
+   */
+  void blockChanged(int x, int y, int value);
+}
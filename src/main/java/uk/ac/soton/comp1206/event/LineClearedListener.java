@@ -11,7 +11,8 @@ public interface LineClearedListener {
   /**
    * Handles the way a line cleared event is handled
    *
-   * @param blocks the set of coordinates of the blocks that will be cleared
+   * @param blocks the set of coordinates of the blocks that will be cleared. The set is reused by
+   *               the game and is only valid for the duration of the call
    */
   void lineClear(Set<GameBlockCoordinate> blocks);
 }
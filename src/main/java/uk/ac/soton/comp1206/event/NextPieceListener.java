@@ -1,6 +1,6 @@
 package uk.ac.soton.comp1206.event;
 
-import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.engine.GamePiece;
 
 /**
  * The NextPieceListener handles the event when a new piece needs to be displayed on a PieceBoard
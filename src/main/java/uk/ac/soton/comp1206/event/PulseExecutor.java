@@ -0,0 +1,70 @@
+package uk.ac.soton.comp1206.event;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+/**
+ * An Executor which runs its tasks on the JavaFX application thread at the start of the next pulse,
+ * before the scene is laid out and drawn, so everything a batch of tasks changes is shown in the
+ * same frame. The underlying AnimationTimer only runs while there are tasks waiting.
+ */
+public class PulseExecutor implements Executor {
+
+  /**
+   * The executor shared by everything on the application thread
+   */
+  private static PulseExecutor shared;
+
+  /**
+   * The tasks waiting for the next pulse, only touched on the application thread
+   */
+  private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+  /**
+   * Runs the waiting tasks on each pulse
+   */
+  private final AnimationTimer timer = new AnimationTimer() {
+    @Override
+    public void handle(long now) {
+      runTasks();
+    }
+  };
+
+  /**
+   * Get the executor shared by everything on the application thread
+   *
+   * @return the shared executor
+   */
+  public static synchronized PulseExecutor shared() {
+    if (shared == null) {
+      shared = new PulseExecutor();
+    }
+    return shared;
+  }
+
+  @Override
+  public void execute(Runnable task) {
+    if (!Platform.isFxApplicationThread()) {
+      Platform.runLater(() -> execute(task));
+      return;
+    }
+    if (tasks.isEmpty()) {
+      timer.start();
+    }
+    tasks.add(task);
+  }
+
+  /**
+   * Run every waiting task, including any they add, and stop until more arrive
+   */
+  private void runTasks() {
+    timer.stop();
+    Runnable task;
+    while ((task = tasks.poll()) != null) {
+      task.run();
+    }
+  }
+}
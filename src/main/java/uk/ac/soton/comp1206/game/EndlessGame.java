@@ -0,0 +1,59 @@
+package uk.ac.soton.comp1206.game;
+
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.GameTimer;
+import uk.ac.soton.comp1206.engine.RandomPieceSource;
+
+/**
+ * The EndlessGame is a game on a board of any size without a timer: pieces never run out of time,
+ * so no lives are lost and the game goes on until the player leaves it.
+ */
+public class EndlessGame extends Game {
+
+  /**
+   * The biggest board an endless game can be played on, in each direction
+   */
+  public static final int MAX_SIZE = 512;
+
+  /**
+   * Create a new endless game with the specified rows and columns and a new random seed
+   *
+   * @param cols number of columns
+   * @param rows number of rows
+   */
+  public EndlessGame(int cols, int rows) {
+    super(checkSize(cols), checkSize(rows));
+  }
+
+  /**
+   * Create an engine with a timer that never runs out
+   *
+   * @param grid the grid the engine plays on
+   * @return the engine
+   */
+  @Override
+  protected GameEngine createEngine(Grid grid) {
+    return new GameEngine(grid, new RandomPieceSource(seed), new GameTimer() {
+      @Override
+      public void start(int delay, Runnable expiry) {
+      }
+
+      @Override
+      public void cancel() {
+      }
+    });
+  }
+
+  /**
+   * Check a board size is one an endless game can be played on
+   *
+   * @param size the number of columns or rows
+   * @return the size
+   */
+  private static int checkSize(int size) {
+    if (size < 1 || size > MAX_SIZE) {
+      throw new IllegalArgumentException("Endless boards must be 1 to " + MAX_SIZE + " wide");
+    }
+    return size;
+  }
+}
@@ -1,11 +1,12 @@
 package uk.ac.soton.comp1206.game;
 
-import java.util.HashSet;
-import java.util.Random;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SplittableRandom;
 import javafx.application.Platform;
 import javafx.beans.binding.StringBinding;
 import javafx.beans.property.SimpleIntegerProperty;
@@ -14,25 +15,58 @@ import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.Multimedia;
 import uk.ac.soton.comp1206.component.GameBlock;
 import uk.ac.soton.comp1206.component.GameBlockCoordinate;
+import uk.ac.soton.comp1206.engine.CellSet;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.GameEngineListener;
+import uk.ac.soton.comp1206.engine.GamePiece;
+import uk.ac.soton.comp1206.engine.Placements;
+import uk.ac.soton.comp1206.engine.RandomPieceSource;
+import uk.ac.soton.comp1206.engine.ScheduledGameTimer;
 import uk.ac.soton.comp1206.event.GameEndListener;
+import uk.ac.soton.comp1206.event.GameEvent.GameEnded;
+import uk.ac.soton.comp1206.event.GameEvent.LevelChanged;
+import uk.ac.soton.comp1206.event.GameEvent.LinesCleared;
+import uk.ac.soton.comp1206.event.GameEvent.LivesChanged;
+import uk.ac.soton.comp1206.event.GameEvent.MultiplierChanged;
+import uk.ac.soton.comp1206.event.GameEvent.PiecesChanged;
+import uk.ac.soton.comp1206.event.GameEvent.ScoreChanged;
+import uk.ac.soton.comp1206.event.GameEvent.TimerStarted;
+import uk.ac.soton.comp1206.event.GameEventBus;
+import uk.ac.soton.comp1206.event.GameEventBus.Subscription;
 import uk.ac.soton.comp1206.event.GameLoopListener;
 import uk.ac.soton.comp1206.event.LineClearedListener;
 import uk.ac.soton.comp1206.event.NextPieceListener;
+import uk.ac.soton.comp1206.event.PulseExecutor;
 import uk.ac.soton.comp1206.event.ScoreChangedListener;
+import uk.ac.soton.comp1206.metrics.Counter;
+import uk.ac.soton.comp1206.metrics.Metrics;
+import uk.ac.soton.comp1206.replay.ReplayWriter;
 
 /**
- * The Game class handles the main logic, state and properties of the TetrECS game. Methods to
- * manipulate the game state and to handle actions made by the player should take place inside this
- * class.
+ * The Game class links a TetrECS GameEngine to the user interface. The rules and state of the game
+ * live in the engine; the Game exposes them as JavaFX properties, publishes engine events on its
+ * {@link GameEventBus} and plays the sounds that go with them.
+ * <p>
+ * The engine is only ever driven from the JavaFX application thread: actions come from input
+ * handlers and timer expiries are passed to the application thread before they reach the engine.
+ * Events reach the user interface, including the properties, in one batch at the next pulse, so a
+ * placement which clears lines and changes the score, multiplier and level is shown in one update.
+ * <p>
+ * Every game is recorded to a replay log in the {@link #REPLAY_DIRECTORY} while it is played.
  */
-public class Game {
+public class Game implements GameEngineListener {
 
   private static final Logger logger = LogManager.getLogger(Game.class);
 
   /**
-   * The milliseconds that the timer will run for
+   * Counts the pieces placed in every game
    */
-  Integer timeLeft;
+  private static final Counter PLACEMENTS = Metrics.counter("game.placements");
+
+  /**
+   * The directory games are recorded to
+   */
+  public static final Path REPLAY_DIRECTORY = Path.of("replays");
 
   /**
    * Number of rows
@@ -50,62 +84,49 @@ public class Game {
   protected final Grid grid;
 
   /**
-   * Keep track of the current piece that is selected
-   */
-  protected GamePiece currentPiece;
-
-  /**
-   * Keeps track of the piece that is after the current piece
-   */
-  protected GamePiece followingPiece;
-
-  /**
-   * Random number generator
+   * The seed the pieces of this game are drawn from
    */
-  private final Random rnd = new Random();
+  protected final long seed;
 
   /**
-   * The timer that will keep track of the time that the player has to place a piece
+   * The engine that holds the rules and state of the game
    */
-  private ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+  protected final GameEngine engine;
 
   /**
-   * Used to cancel the timers execution
+   * The bus events of this game are published on
    */
-  protected ScheduledFuture<?> future;
+  protected final GameEventBus events;
 
   /**
-   * Used to get the future of the timer
-   * @return the future to use to cancel
+   * Records the game while it is played, or null when it is not being recorded
    */
-  public ScheduledFuture<?> getFuture() {
-    return future;
-  }
+  private ReplayWriter replay;
 
   /**
-   * The listener that is called when a new piece is spawned
+   * The subscription of the listener that is called when a new piece is spawned
    */
-  protected NextPieceListener nextPieceListener;
+  private Subscription nextPieceListener;
 
   /**
-   * The listener that is called when a line is to be cleared
+   * The subscription of the listener that is called when a line is to be cleared
    */
-  private LineClearedListener clearedListener;
+  private Subscription clearedListener;
 
   /**
-   * The listener that is called when the timer is started
+   * The subscription of the listener that is called when the timer is started
    */
-  private GameLoopListener gameLoopListener;
+  private Subscription gameLoopListener;
 
   /**
-   * The listener that is called when the game ends
+   * The subscription of the listener that is called when the game ends
    */
-  private GameEndListener gameEndListener;
+  protected Subscription gameEndListener;
 
   /**
-   * The listener that is called when the score changes
+   * The subscription of the listener that is called when the score changes
    */
-  private ScoreChangedListener scoreChangedListener;
+  private Subscription scoreChangedListener;
 
   /**
    * Keeps track of the score
@@ -128,36 +149,65 @@ public class Game {
   SimpleIntegerProperty multiplier = new SimpleIntegerProperty(1);
 
   /**
-   * Sets the score
+   * Create a new game with the specified rows and columns and a new random seed. Creates a
+   * corresponding grid model.
    *
-   * @param score the new score
+   * @param cols number of columns
+   * @param rows number of rows
    */
-  public void setScore(int score) {
-    logger.info("Score is set to {}", score);
-    this.score.set(score);
+  public Game(int cols, int rows) {
+    this(cols, rows, new SplittableRandom().nextLong());
   }
 
   /**
-   * Retrieves the score
+   * Create a new game with the specified rows and columns whose pieces are drawn from the given
+   * seed. Games with the same seed are dealt the same pieces. Creates a corresponding grid model.
    *
-   * @return the score
+   * @param cols number of columns
+   * @param rows number of rows
+   * @param seed the seed to draw pieces from
    */
-  public int getScore() {
-    return score.get();
+  public Game(int cols, int rows, long seed) {
+    this.cols = cols;
+    this.rows = rows;
+    this.seed = seed;
+
+    //Create a new grid model to represent the game state
+    this.grid = new Grid(cols, rows);
+
+    this.engine = createEngine(grid);
+    this.engine.setListener(this);
+
+    //The properties follow the events, so they are batched with everything else
+    this.events = new GameEventBus(PulseExecutor.shared());
+    events.subscribe(ScoreChanged.class, event -> score.set(event.score()));
+    events.subscribe(MultiplierChanged.class, event -> multiplier.set(event.multiplier()));
+    events.subscribe(LevelChanged.class, event -> level.set(event.level()));
+    events.subscribe(LivesChanged.class, event -> lives.set(event.lives()));
   }
 
-  public StringBinding scoreProperty() {
-    return score.asString();
+  /**
+   * Create the engine that runs this game
+   *
+   * @param grid the grid the engine plays on
+   * @return the engine
+   */
+  protected GameEngine createEngine(Grid grid) {
+    return new GameEngine(grid, new RandomPieceSource(seed),
+        new ScheduledGameTimer(Platform::runLater));
   }
 
   /**
-   * Sets the level
+   * Retrieves the score
    *
-   * @param level the new level
+   * @return the score
    */
-  public void setLevel(int level) {
-    logger.info("Level is set to {}", level);
-    this.level.set(level);
+  public int getScore() {
+    return engine.getScore();
+  }
+
+  public StringBinding scoreProperty() {
+    return score.asString();
   }
 
   /**
@@ -166,79 +216,46 @@ public class Game {
    * @return the level
    */
   public int getLevel() {
-    return level.get();
+    return engine.getLevel();
   }
 
   public StringBinding levelProperty() {
     return level.asString();
   }
 
-  /**
-   * Sets the live(s)
-   *
-   * @param lives the new live(s)
-   */
-  public void setLives(int lives) {
-    logger.info("Lives are set to {}", lives);
-    this.lives.set(lives);
-  }
-
   /**
    * Retrieves the lives
    *
    * @return the lives
    */
   public int getLives() {
-    return lives.get();
+    return engine.getLives();
   }
 
   public StringBinding livesProperty() {
     return lives.asString();
   }
 
-  /**
-   * Sets the multiplier
-   *
-   * @param multiplier the new multiplier
-   */
-  public void setMultiplier(int multiplier) {
-    logger.info("Multiplier is set to {}", multiplier);
-    this.multiplier.set(multiplier);
-  }
-
   /**
    * Retrieves the multiplier
    *
    * @return the multiplier
    */
   public int getMultiplier() {
-    return multiplier.get();
+    return engine.getMultiplier();
   }
 
   public StringBinding multiplierProperty() {
     return multiplier.asString();
   }
 
-  /**
-   * Create a new game with the specified rows and columns. Creates a corresponding grid model.
-   *
-   * @param cols number of columns
-   * @param rows number of rows
-   */
-  public Game(int cols, int rows) {
-    this.cols = cols;
-    this.rows = rows;
-
-    //Create a new grid model to represent the game state
-    this.grid = new Grid(cols, rows);
-  }
-
   /**
    * Start the game
    */
   public void start() {
-    logger.info("Starting game");
-    startTimer();
+    logger.info("Starting game with seed {}", seed);
+    startRecording();
+    engine.startTimer();
     initialiseGame();
   }
 
@@ -249,7 +266,32 @@ public class Game {
     logger.info("Initialising game");
 
     //Call nextPiece() to get the current piece
-    nextPiece();
+    engine.nextPiece();
+  }
+
+  /**
+   * Stop the game and its timer, and finish the recording
+   */
+  public void stop() {
+    engine.stop();
+    if (replay != null) {
+      replay.close();
+      replay = null;
+    }
+  }
+
+  /**
+   * Start recording the game to a new replay log. The game is still played if the log cannot be
+   * created.
+   */
+  private void startRecording() {
+    var file = REPLAY_DIRECTORY.resolve(System.currentTimeMillis() + "-" + seed + ".replay");
+    try {
+      replay = ReplayWriter.create(file, engine.getClock(), cols, rows, seed);
+      logger.info("Recording game to {}", file);
+    } catch (IOException e) {
+      logger.error("Unable to record game to {}", file, e);
+    }
   }
 
   /**
@@ -258,23 +300,7 @@ public class Game {
    * @param gameBlock the block that was clicked
    */
   public void blockClicked(GameBlock gameBlock) {
-
-    //Get the position of this block
-    int x = gameBlock.getX();
-    int y = gameBlock.getY();
-
-    if (grid.canPlayPiece(currentPiece, x, y)) {
-      grid.playPiece(currentPiece, x, y);
-
-      //Restart the timer when a block is placed
-      restartTimer();
-
-      Multimedia.playAudio("place.wav");
-
-      //Clean lines and spawn another piece
-      afterPiece();
-      nextPiece();
-    }
+    blockClicked(gameBlock.getX(), gameBlock.getY());
   }
 
   /**
@@ -285,64 +311,145 @@ public class Game {
    * @param y the y coordinate of the clicked block
    */
   public void blockClicked(int x, int y) {
+    engine.playPiece(x, y);
+  }
 
-    if (grid.canPlayPiece(currentPiece, x, y)) {
-      grid.playPiece(currentPiece, x, y);
+  /**
+   * Will rotate the current piece by the given rotations
+   *
+   * @param rotations the number of rotations clockwise
+   */
+  public void rotateCurrentPiece(int rotations) {
+    logger.info("Rotating current piece");
+    engine.rotateCurrentPiece(rotations);
+  }
 
-      //Restart the timer when a block is placed
-      restartTimer();
+  /**
+   * Swaps the current and following pieces
+   */
+  public void swapCurrentPiece() {
+    logger.info("Swapping current and following piece");
+    engine.swapCurrentPiece();
+  }
 
-      Multimedia.playAudio("place.wav");
+  /**
+   * Find every legal placement of a piece on the current board, in each of its rotations. This
+   * does not change the game or play any sounds.
+   *
+   * @param piece the piece to place
+   * @return the placements
+   */
+  public Placements findPlacements(GamePiece piece) {
+    return engine.findPlacements(piece);
+  }
+
+  /**
+   * Gets the amount of time the player has to play a piece
+   *
+   * @return the time in milliseconds
+   */
+  public int getTimerDelay() {
+    return engine.getTimerDelay();
+  }
+
+  /**
+   * Get the bus the events of this game are published on, for anything else that wants to follow
+   * the game
+   *
+   * @return the event bus
+   */
+  public GameEventBus getEvents() {
+    return events;
+  }
 
-      //Clean lines and spawn another piece
-      afterPiece();
-      nextPiece();
+  /**
+   * Stop or restart delivering events, for example while the game is played faster than it can be
+   * shown. The properties and listeners are brought up to date when events are restarted.
+   *
+   * @param suppressed true to stop delivering events
+   */
+  public void setEventsSuppressed(boolean suppressed) {
+    events.setSuppressed(suppressed);
+    if (!suppressed) {
+      events.publish(new PiecesChanged(engine.getCurrentPiece(), engine.getFollowingPiece()));
+      events.publish(new ScoreChanged(engine.getScore()));
+      events.publish(new MultiplierChanged(engine.getMultiplier()));
+      events.publish(new LevelChanged(engine.getLevel()));
+      events.publish(new LivesChanged(engine.getLives()));
     }
   }
 
   /**
-   * Sets the listener
+   * Sets the listener, replacing any set before. Further listeners can subscribe to the events.
    *
    * @param listener listener to set
    */
   public void setNextPieceListener(NextPieceListener listener) {
-    this.nextPieceListener = listener;
+    cancel(nextPieceListener);
+    nextPieceListener = events.subscribe(PiecesChanged.class,
+        event -> listener.nextPiece(event.current(), event.following()));
   }
 
   /**
-   * Sets the listener
+   * Sets the listener, replacing any set before. Further listeners can subscribe to the events.
    *
    * @param listener listener to set
    */
   public void setClearedListener(LineClearedListener listener) {
-    this.clearedListener = listener;
+    cancel(clearedListener);
+    clearedListener = events.subscribe(LinesCleared.class,
+        event -> listener.lineClear(event.blocks()));
   }
 
   /**
-   * Sets the listener
+   * Sets the listener, replacing any set before. Further listeners can subscribe to the events.
    *
    * @param listener listener to set
    */
   public void setGameLoopListener(GameLoopListener listener) {
-    this.gameLoopListener = listener;
+    cancel(gameLoopListener);
+    gameLoopListener = events.subscribe(TimerStarted.class, event -> listener.loop(event.delay()));
   }
 
   /**
-   * Sets the listener
+   * Sets the listener, replacing any set before. Further listeners can subscribe to the events.
    *
    * @param listener listener to set
    */
   public void setGameEndListener(GameEndListener listener) {
-    this.gameEndListener = listener;
+    cancel(gameEndListener);
+    gameEndListener = events.subscribe(GameEnded.class, event -> listener.endGame(this));
   }
 
   /**
-   * Sets the listener
+   * Sets the listener, replacing any set before. Further listeners can subscribe to the events.
    *
    * @param listener listener to set
    */
   public void setScoreChangedListener(ScoreChangedListener listener) {
-    this.scoreChangedListener = listener;
+    cancel(scoreChangedListener);
+    scoreChangedListener = events.subscribe(ScoreChanged.class,
+        event -> listener.scoreChanged());
+  }
+
+  /**
+   * Cancel a subscription made by one of the listener setters, if there is one
+   *
+   * @param subscription the subscription, or null
+   */
+  protected static void cancel(Subscription subscription) {
+    if (subscription != null) {
+      subscription.cancel();
+    }
+  }
+
+  /**
+   * Get the seed the pieces of this game are drawn from
+   *
+   * @return the seed
+   */
+  public long getSeed() {
+    return seed;
   }
 
   /**
@@ -354,6 +461,15 @@ public class Game {
     return grid;
   }
 
+  /**
+   * Get the engine running this game
+   *
+   * @return the engine
+   */
+  public GameEngine getEngine() {
+    return engine;
+  }
+
   /**
    * Get the number of columns in this game
    *
@@ -372,243 +488,165 @@ public class Game {
     return rows;
   }
 
-  /**
-   * Spawns a random piece
-   *
-   * @return the random piece
-   */
-  public GamePiece spawnPiece() {
-
-    logger.info("Spawning new piece");
-
-    var pieceNum = GamePiece.PIECES;
-    var pieceId = rnd.nextInt(pieceNum);
-
-    return GamePiece.createPiece(pieceId);
+  @Override
+  public void piecesChanged(GamePiece currentPiece, GamePiece followingPiece) {
+    logger.info("Current piece is {}, following piece is {}", currentPiece, followingPiece);
+    events.publish(new PiecesChanged(currentPiece, followingPiece));
   }
 
-  /**
-   * Sets the current piece to the following piece and replaces the following piece
-   */
-  public void nextPiece() {
-
-    if (followingPiece == null) {
-      followingPiece = spawnPiece();
+  @Override
+  public void pieceSpawned(GamePiece piece) {
+    if (replay != null) {
+      replay.pieceSpawned(piece);
     }
-
-    currentPiece = followingPiece;
-    logger.info("Current piece is {}", currentPiece);
-
-    followingPiece = spawnPiece();
-    logger.info("The following piece is {}", followingPiece);
-
-    nextPieceListener.nextPiece(currentPiece, followingPiece);
   }
 
-  /**
-   * Checks if there are any lines that can be cleared and keeps track of them
-   */
-  public void afterPiece() {
-    logger.info("Checking if any lines can be cleared");
-    var linesToClear = 0;
-    HashSet<GameBlockCoordinate> blocksToClear = new HashSet<>();
-
-    //Checking if any column lines can be cleared
-    for (var x = 0; x < cols; x++) {
-      var counter = 0;
-
-      for (var y = 0; y < rows; y++) {
-        if (grid.get(x, y) == 0) {
-          break;
-        }
-        counter++;
-      }
-      if (counter == rows) {
-        linesToClear++;
-
-        //Add all the blocks that are on the current column to the HashSet
-        for (int coordY = 0; coordY < rows; coordY++) {
-          blocksToClear.add(new GameBlockCoordinate(x, coordY));
-        }
-      }
+  @Override
+  public void piecePlaced(GamePiece piece, int x, int y) {
+    if (replay != null) {
+      replay.piecePlaced(piece, x, y);
     }
+    PLACEMENTS.increment();
+    Multimedia.playAudio("place.wav");
+  }
 
-    //Checking if any row lines can be cleared
-    for (var y = 0; y < rows; y++) {
-      var counter = 0;
-
-      for (var x = 0; x < cols; x++) {
-        if (grid.get(x, y) == 0) {
-          break;
-        }
-        counter++;
-      }
-      if (counter == cols) {
-        linesToClear++;
+  @Override
+  public void placementRejected(GamePiece piece, int x, int y) {
+    logger.info("Unable to play piece {} at {} {}", piece, x, y);
+    Multimedia.playAudio("cannotplace.wav");
+  }
 
-        //Add all the blocks that are on the current row to the HashSet
-        for (int coordX = 0; coordX < cols; coordX++) {
-          blocksToClear.add(new GameBlockCoordinate(coordX, y));
-        }
-      }
+  @Override
+  public void pieceRotated(GamePiece piece) {
+    if (replay != null) {
+      replay.pieceRotated(piece);
     }
+    Multimedia.playAudio("rotate.wav");
+  }
 
-    logger.debug("Blocks to clear {}", blocksToClear);
-    logger.info("There are {} lines and {} blocks to be cleared", linesToClear,
-        blocksToClear.size());
-
-    clearLines(blocksToClear);
-    score(linesToClear, blocksToClear.size());
+  @Override
+  public void piecesSwapped() {
+    if (replay != null) {
+      replay.piecesSwapped();
+    }
+    Multimedia.playAudio("swap.wav");
   }
 
-  /**
-   * Clears the blocks that have formed a line
-   *
-   * @param blocksToClear the blocks that are a part of a line(s)
-   */
-  public void clearLines(HashSet<GameBlockCoordinate> blocksToClear) {
-    for (GameBlockCoordinate block : blocksToClear) {
-      grid.set(block.getX(), block.getY(), 0);
+  @Override
+  public void linesCleared(int lines, CellSet blocks) {
+    logger.info("Cleared {} lines", lines);
+    if (events.isSuppressed()) {
+      return;
     }
 
-    //Calls the listener
-    clearedListener.lineClear(blocksToClear);
+    //The engine reuses its set, so the event gets a copy
+    var cleared = new CellSet(blocks.getCapacity());
+    cleared.addAll(blocks);
+    events.publish(new LinesCleared(lines, new CellSetView(cleared, cols)));
   }
 
-  /**
-   * Calculates and sets the score based off of the lines to clear, blocks to clear and multiplier
-   *
-   * @param lineCount  the number of lines to clear
-   * @param blockCount the number of blocks to clear
-   */
-  public void score(int lineCount, int blockCount) {
-    var scoreToAdd = (lineCount * blockCount * 10 * getMultiplier());
-    logger.info("Attempting to add score {}", scoreToAdd);
-    setScore(scoreToAdd + getScore());
-    scoreChangedListener.scoreChanged();
-    multiplier(lineCount);
-    level();
+  @Override
+  public void scoreChanged(int score) {
+    logger.info("Score is set to {}", score);
+    events.publish(new ScoreChanged(score));
   }
 
-  /**
-   * Changes the multiplier based of the number of lines that are cleared
-   *
-   * @param lineCount the number of lines to clear
-   */
-  public void multiplier(int lineCount) {
-    logger.info("Attempting to change multiplier");
-    if (lineCount > 0) {
-      setMultiplier(getMultiplier() + 1);
-    } else {
-      setMultiplier(1);
-    }
+  @Override
+  public void multiplierChanged(int multiplier) {
+    logger.info("Multiplier is set to {}", multiplier);
+    events.publish(new MultiplierChanged(multiplier));
   }
 
-  /**
-   * Sets the level depending on the score
-   */
-  public void level() {
-    logger.info("Checking if user can level up");
-    setLevel(getScore() / 1000);
+  @Override
+  public void levelChanged(int level) {
+    logger.info("Level is set to {}", level);
+    events.publish(new LevelChanged(level));
   }
 
-  /**
-   * Will rotate the current piece by the given rotations
-   * @param rotations the number of rotations clockwise
-   */
-  public void rotateCurrentPiece(int rotations) {
-    logger.info("Rotating current piece");
-    currentPiece.rotate(rotations);
-    nextPieceListener.nextPiece(currentPiece, followingPiece);
-    Multimedia.playAudio("rotate.wav");
+  @Override
+  public void livesChanged(int lives) {
+    logger.info("Lives are set to {}", lives);
+    events.publish(new LivesChanged(lives));
   }
 
-  /**
-   * Swaps the current and following pieces
-   */
-  public void swapCurrentPiece() {
-    logger.info("Swapping current and following piece");
-    var tempPiece = currentPiece;
-
-    currentPiece = followingPiece;
-    followingPiece = tempPiece;
-
-    nextPieceListener.nextPiece(currentPiece, followingPiece);
-    Multimedia.playAudio("swap.wav");
+  @Override
+  public void timerStarted(int delay) {
+    events.publish(new TimerStarted(delay));
   }
 
-  /**
-   * Gets the amount of time the player has to play a piece
-   *
-   * @return the time in milliseconds
-   */
-  public int getTimerDelay() {
-    if (getLevel() <= 19) {
-      return 12000 - 500 * getLevel();
-    } else {
-      return 2500;
+  @Override
+  public void timerExpired() {
+    if (replay != null) {
+      replay.timerExpired();
     }
   }
 
+  @Override
+  public void gameOver() {
+    events.publish(new GameEnded());
+  }
+
   /**
-   * Starts the game timer
+   * A read only Set of GameBlockCoordinates backed by a CellSet. Coordinates are only created as
+   * the set is iterated, and the view always reflects the current contents of the CellSet.
    */
-  public void startTimer() {
+  private static class CellSetView extends AbstractSet<GameBlockCoordinate> {
 
-    //Set the new delay each time the timer is started
-    timeLeft = getTimerDelay();
+    /**
+     * The cells this view is backed by
+     */
+    private final CellSet cells;
 
-    gameLoopListener.loop(timeLeft);
+    /**
+     * The number of columns in the grid the cells belong to
+     */
+    private final int cols;
 
-    //Set the pool for the executor
-    executor = Executors.newScheduledThreadPool(1);
+    /**
+     * Create a new view of cells in a grid with the given number of columns
+     *
+     * @param cells the cells to view
+     * @param cols  number of columns in the grid
+     */
+    CellSetView(CellSet cells, int cols) {
+      this.cells = cells;
+      this.cols = cols;
+    }
 
-    //Use the future to later cancel the execution
-    future = executor.scheduleAtFixedRate(() -> {
+    @Override
+    public Iterator<GameBlockCoordinate> iterator() {
+      return new Iterator<>() {
+        private int next = cells.next(0);
 
-      //Deduct half a second every half a second
-      timeLeft -= 500;
+        @Override
+        public boolean hasNext() {
+          return next >= 0;
+        }
 
-      logger.info("Timer started {}", timeLeft);
+        @Override
+        public GameBlockCoordinate next() {
+          if (next < 0) {
+            throw new NoSuchElementException();
+          }
+          var coordinate = new GameBlockCoordinate(next % cols, next / cols);
+          next = cells.next(next + 1);
+          return coordinate;
+        }
+      };
+    }
 
-      //If the time has run out, shutdown the executor and call gameLoop()
-      if (timeLeft.equals(0)) {
-        logger.info("Ran out of time!");
-        executor.shutdown();
-        gameLoop();
+    @Override
+    public boolean contains(Object o) {
+      if (!(o instanceof GameBlockCoordinate coordinate)) {
+        return false;
       }
-    }, 0, 500, TimeUnit.MILLISECONDS);
-  }
-
-  /**
-   * Restarts the timer by cancelling its execution and starting it again
-   */
-  public void restartTimer() {
-    logger.info("Timer is reset");
-    future.cancel(false);
-    startTimer();
-  }
-
-  /**
-   * Handles the way the game acts when a piece has not been played for the given time duration
-   */
-  public void gameLoop() {
-
-    if (getLives() == 0) {
-      gameEndListener.endGame(this);
-      return;
+      var x = coordinate.getX();
+      return x >= 0 && x < cols && cells.contains(coordinate.getY() * cols + x);
     }
 
-    //Lives reduced by one
-    Platform.runLater(() -> setLives(getLives() - 1));
-
-    //Multiplier reset to 1
-    Platform.runLater(() -> setMultiplier(1));
-
-    //Discard current piece
-    nextPiece();
-
-    //Restart timer
-    startTimer();
+    @Override
+    public int size() {
+      return cells.size();
+    }
   }
 }
@@ -2,40 +2,31 @@ package uk.ac.soton.comp1206.game;
 
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-import uk.ac.soton.comp1206.Multimedia;
+import uk.ac.soton.comp1206.engine.Board;
+import uk.ac.soton.comp1206.event.GridChangedListener;
 
 /**
  * The Grid is a model which holds the state of a game board. It is made up of a set of Integer
  * values arranged in a 2D arrow, with rows and columns.
  * <p>
- * Each value inside the Grid is an IntegerProperty can be bound to enable modification and display
- * of the contents of the grid.
- * <p>
- * The Grid contains functions related to modifying the model, for example, placing a piece inside
- * the grid.
+ * The values themselves are held by the engine Board this extends. The Grid adds a JavaFX view on
+ * top: an IntegerProperty for a block is only created when something asks for it (normally a
+ * GameBoard binding to it), so grids that are never displayed do not pay for the JavaFX property
+ * machinery.
  * <p>
  * The Grid should be linked to a GameBoard for it's display.
  */
-public class Grid {
-
-  private static final Logger logger = LogManager.getLogger(Game.class);
-
-  /**
-   * The number of columns in this grid
-   */
-  private final int cols;
+public class Grid extends Board {
 
   /**
-   * The number of rows in this grid
+   * The properties handed out for binding, created on first use. Null until a view is attached.
    */
-  private final int rows;
+  private SimpleIntegerProperty[] view;
 
   /**
-   * The grid is a 2D arrow with rows and columns of SimpleIntegerProperties.
+   * The listener told about every block that is set, or null if there is none
    */
-  private final SimpleIntegerProperty[][] grid;
+  private GridChangedListener changedListener;
 
   /**
    * Create a new Grid with the specified number of columns and rows and initialise them
@@ -44,137 +35,76 @@ public class Grid {
    * @param rows number of rows
    */
   public Grid(int cols, int rows) {
-    this.cols = cols;
-    this.rows = rows;
-
-    //Create the grid itself
-    grid = new SimpleIntegerProperty[cols][rows];
-
-    //Add a SimpleIntegerProperty to every block in the grid
-    for (var y = 0; y < rows; y++) {
-      for (var x = 0; x < cols; x++) {
-        grid[x][y] = new SimpleIntegerProperty(0);
-      }
-    }
+    super(cols, rows);
   }
 
   /**
    * Get the Integer property contained inside the grid at a given row and column index. Can be used
    * for binding.
+   * <p>
+   * The property is created the first time it is requested and is kept up to date from then on.
    *
    * @param x column
    * @param y row
    * @return the IntegerProperty at the given x and y in this grid
    */
   public IntegerProperty getGridProperty(int x, int y) {
-    return grid[x][y];
-  }
+    if (x < 0 || x >= cols || y < 0 || y >= rows) {
+      throw new IndexOutOfBoundsException("No such block: " + x + "," + y);
+    }
 
-  /**
-   * Update the value at the given x and y index within the grid
-   *
-   * @param x     column
-   * @param y     row
-   * @param value the new value
-   */
-  public void set(int x, int y, int value) {
-    grid[x][y].set(value);
+    //Attach the view layer the first time anything binds to this grid
+    if (view == null) {
+      view = new SimpleIntegerProperty[getCellCount()];
+    }
+
+    var index = y * cols + x;
+    var property = view[index];
+    if (property == null) {
+      property = new SimpleIntegerProperty(getCell(index));
+      view[index] = property;
+    }
+    return property;
   }
 
   /**
-   * Get the value represented at the given x and y index within the grid
+   * Let go of the property for a block, once whatever was bound to it has been unbound. A view
+   * which only shows part of a big grid releases the blocks it scrolls away from, so the grid only
+   * holds properties for the blocks on screen.
    *
    * @param x column
    * @param y row
-   * @return the value
    */
-  public int get(int x, int y) {
-    try {
-      //Get the value held in the property at the x and y index provided
-      return grid[x][y].get();
-    } catch (ArrayIndexOutOfBoundsException e) {
-      //No such index
-      return -1;
+  public void releaseGridProperty(int x, int y) {
+    if (view != null && x >= 0 && x < cols && y >= 0 && y < rows) {
+      view[y * cols + x] = null;
     }
   }
 
   /**
-   * Get the number of columns in this game
-   *
-   * @return number of columns
-   */
-  public int getCols() {
-    return cols;
-  }
-
-  /**
-   * Get the number of rows in this game
+   * Set the listener told about every block that is set, for views which draw the grid themselves
+   * rather than binding to its properties
    *
-   * @return number of rows
+   * @param listener listener to set
    */
-  public int getRows() {
-    return rows;
+  public void setGridChangedListener(GridChangedListener listener) {
+    this.changedListener = listener;
   }
 
   /**
-   * Check if a piece can be placed at the given coordinates x and y
+   * Keep any attached property and listener up to date when a block changes
    *
-   * @param piece the piece to be placed
-   * @param posX  the x coordinate to place at
-   * @param posY  the y coordinate to place at
-   * @return if the piece can be played or not
+   * @param index the cell index
+   * @param value the new value
    */
-  public boolean canPlayPiece(GamePiece piece, int posX, int posY) {
-
-    logger.info("Checking if piece {} can be played at the position {} {}", piece, posX, posY);
-    int[][] layout = piece.getBlocks();
-
-    var topX = posX - 1;
-    var topY = posY - 1;
-
-    for (var blockX = 0; blockX < layout.length; blockX++) {
-      for (var blockY = 0; blockY < layout.length; blockY++) {
-
-        var blockValue = layout[blockX][blockY];
-        if (blockValue > 0) {
-
-          var gridValue = get(blockX + topX, blockY + topY);
-          if (gridValue != 0) {
-            logger.info("Unable to play piece {} at {} {}", piece, posX, posY);
-            Multimedia.playAudio("cannotplace.wav");
-            return false;
-          }
-        }
-      }
+  @Override
+  protected void blockChanged(int index, int value) {
+    //Only touch the property machinery if a view has been attached
+    if (view != null && view[index] != null) {
+      view[index].set(value);
     }
-    return true;
-  }
-
-  /**
-   * Places a piece on the grid if possible, using the x and y coordinates
-   *
-   * @param piece the piece to be placed
-   * @param posX  the x coordinate to place at
-   * @param posY  the y coordinate to place at
-   */
-  public void playPiece(GamePiece piece, int posX, int posY) {
-
-    logger.info("Playing piece {} at position {} {}", piece, posX, posY);
-
-    var colour = piece.getValue();
-    int[][] layout = piece.getBlocks();
-
-    var topX = posX - 1;
-    var topY = posY - 1;
-
-    for (var blockX = 0; blockX < layout.length; blockX++) {
-      for (var blockY = 0; blockY < layout.length; blockY++) {
-
-        var blockValue = layout[blockX][blockY];
-        if (blockValue > 0) {
-          set(blockX + topX, blockY + topY, colour);
-        }
-      }
+    if (changedListener != null) {
+      changedListener.blockChanged(index % cols, index / cols, value);
     }
   }
 }
@@ -1,46 +1,86 @@
 package uk.ac.soton.comp1206.game;
 
-import java.util.LinkedList;
+import java.util.ArrayDeque;
 import java.util.Queue;
+import java.util.concurrent.ThreadLocalRandom;
 import javafx.application.Platform;
 import javafx.beans.property.SimpleListProperty;
 import javafx.collections.FXCollections;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import uk.ac.soton.comp1206.Multimedia;
-import uk.ac.soton.comp1206.component.GameBlock;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.GamePiece;
+import uk.ac.soton.comp1206.engine.ScheduledGameTimer;
+import uk.ac.soton.comp1206.event.GameEvent.GameEnded;
 import uk.ac.soton.comp1206.event.MultiplayerGameEndListener;
+import uk.ac.soton.comp1206.metrics.Gauge;
+import uk.ac.soton.comp1206.metrics.Metrics;
 import uk.ac.soton.comp1206.event.ReceiveMessageListener;
+import uk.ac.soton.comp1206.network.BoardSync;
 import uk.ac.soton.comp1206.network.Communicator;
+import uk.ac.soton.comp1206.network.ConnectionState;
+import uk.ac.soton.comp1206.network.Message;
 
 /**
  * The MultiplayerGame class handles the main logic of the multiplayer part of the game. It extends
- * Game so the gameplay is similar with some changes.
+ * Game so the gameplay is similar with some changes: pieces come from the server rather than at
+ * random, the level does not change, and the board, score and lives are sent to the server.
  */
 public class MultiplayerGame extends Game {
 
   private static final Logger logger = LogManager.getLogger(MultiplayerGame.class);
 
+  /**
+   * The number of pieces asked for ahead, so the program does not have to wait for the server
+   */
+  private static final int PIECE_QUEUE_DEPTH = 6;
+
+  /**
+   * The name of the gauge measuring the queue of pieces
+   */
+  private static final String PIECE_QUEUE_GAUGE = "multiplayer.pieceQueue";
+
   /**
    * The communicator used to communicate with the server
    */
   private final Communicator communicator;
 
+  /**
+   * Sends the board to the server whenever it changes
+   */
+  private final BoardSync boardSync;
+
   /**
    * The queue that is used to store the game pieces that are received from the server
    */
-  private Queue<String> pieceQueue;
+  private final Queue<GamePiece> pieceQueue = new ArrayDeque<>();
 
   /**
-   * The listener that is called when the game ends
+   * Measures the queue of pieces while the game is running
    */
-  private MultiplayerGameEndListener multiplayerGameEndListener;
+  private final Gauge pieceQueueGauge = pieceQueue::size;
 
   /**
    * The listener that is called when a chat message is received from the server
    */
   private ReceiveMessageListener receiveMessageListener;
 
+  /**
+   * The number of pieces asked for which the server has not sent yet
+   */
+  private int requested;
+
+  /**
+   * Whether the connection to the server has been lost since the game was last in sync with it.
+   * The game is paused meanwhile.
+   */
+  private boolean disconnected;
+
+  /**
+   * Whether the game is over
+   */
+  private boolean ended;
+
   /**
    * The property that stores the scores of the players
    */
@@ -57,138 +97,144 @@ public class MultiplayerGame extends Game {
   public MultiplayerGame(int cols, int rows, Communicator communicator) {
     super(cols, rows);
     this.communicator = communicator;
+    this.boardSync = new BoardSync(communicator);
+
+    //Only the latest game's queue is measured, until it is stopped
+    Metrics.gauge(PIECE_QUEUE_GAUGE, pieceQueueGauge);
   }
 
   /**
-   * Initialise a new game and set up anything that needs to be done at the start
+   * Stop the game, and stop measuring its queue of pieces
    */
   @Override
-  public void initialiseGame() {
-    logger.info("Initialising game");
-
-    pieceQueue = new LinkedList<>();
-
-    getScores();
-
-    //Request 5 pieces so the program does not have to wait for the server later on
-    for(int i = 0; i < 6; i++)
-    {
-      requestPiece();
-    }
-
-    //Handles all the communicators messages
-    communicator.addListener((message) -> {
+  public void stop() {
+    Metrics.removeGauge(PIECE_QUEUE_GAUGE, pieceQueueGauge);
+    super.stop();
+  }
 
-      //Handles received messages
-      if (message.startsWith("MSG")) {
-        receiveMessage(message);
+  /**
+   * Create an engine which takes its pieces from the queue of pieces sent by the server, asking the
+   * server for a replacement every time one is taken, and which does not level up. The seed of a
+   * multiplayer game does not decide its pieces.
+   *
+   * @param grid the grid the engine plays on
+   * @return the engine
+   */
+  @Override
+  protected GameEngine createEngine(Grid grid) {
+    return new GameEngine(grid, this::takePiece, new ScheduledGameTimer(Platform::runLater)) {
+      @Override
+      public void level() {
       }
 
-      //Handles the next piece
-      if (message.startsWith("PIECE")) {
-        pieceQueue.add(message);
-        logger.info(pieceQueue);
-        if (currentPiece == null || followingPiece == null) {
-          nextPiece(pieceQueue.remove());
+      //Running out of time takes the next piece, so wait for the server to send it first
+      @Override
+      public void gameLoop() {
+        if (pieceQueue.isEmpty() && getLives() > 0) {
+          logger.info("Waiting for the server to send a piece");
+          startTimer();
+          return;
         }
+        super.gameLoop();
       }
-
-      //Handles received scores
-      if (message.startsWith("SCORES")) {
-        receiveScores(message);
-      }
-
-      //Handles received errors
-      if (message.startsWith("ERROR")) {
-        logger.error(message);
-      }
-    });
+    };
   }
 
   /**
-   * Handle what should happen when a particular block is clicked
-   *
-   * @param gameBlock the block that was clicked
+   * Initialise a new game and set up anything that needs to be done at the start
    */
   @Override
-  public void blockClicked(GameBlock gameBlock) {
-
-    StringBuilder values = new StringBuilder();
-
-    //Get the position of this block
-    int x = gameBlock.getX();
-    int y = gameBlock.getY();
-
-    if (grid.canPlayPiece(currentPiece, x, y)) {
-      grid.playPiece(currentPiece, x, y);
-
-      //Restart the timer when a block is placed
-      restartTimer();
-
-      Multimedia.playAudio("place.wav");
+  public void initialiseGame() {
+    logger.info("Initialising game");
 
-      //Clean lines and spawn another piece
-      afterPiece();
+    getScores();
+    boardSync.negotiate();
 
-      //Request next piece
+    //Request pieces so the program does not have to wait for the server later on
+    for(int i = 0; i < PIECE_QUEUE_DEPTH; i++)
+    {
       requestPiece();
-
-      //Gets the next piece from the queue
-      nextPiece(pieceQueue.remove());
-    }
-
-    for (int i = 0; i < getCols(); i++) {
-      for (int j = 0; j < getRows(); j++) {
-        values.append(grid.get(i, j)).append(" ");
-      }
     }
 
-    //Send the board
-    communicator.send("BOARD" + " " + values);
+    //Handles the communicators messages on the application thread, where the engine runs
+    communicator.subscribe(Message.Msg.class, (message) -> Platform.runLater(
+        () -> receiveMessage(message)));
+    communicator.subscribe(Message.Piece.class, (piece) -> Platform.runLater(
+        () -> receivePiece(piece)));
+    communicator.subscribe(Message.Scores.class, (scores) -> Platform.runLater(
+        () -> receiveScores(scores)));
+    communicator.subscribe(Message.Features.class, (features) -> Platform.runLater(
+        () -> boardSync.receiveFeatures(features)));
+    communicator.subscribe(Message.Error.class, (error) -> logger.error(error.text()));
+    communicator.addStateListener((state) -> Platform.runLater(
+        () -> connectionStateChanged(state)));
   }
 
   /**
-   * Handles what happens when a block is clicked and only needs x and y coordinates (mainly for
-   * keyboard)
+   * Handles what happens when a block is clicked and only needs x and y coordinates, then sends the
+   * board to the server if it has changed. Clicks are ignored while the game is paused, and until
+   * the server has sent the piece to follow.
    *
    * @param x the x coordinate of the clicked block
    * @param y the y coordinate of the clicked block
    */
   @Override
   public void blockClicked(int x, int y) {
-
-    StringBuilder values = new StringBuilder();
-
-    if (grid.canPlayPiece(currentPiece, x, y)) {
-      grid.playPiece(currentPiece, x, y);
-
-      //Restart the timer when a block is placed
-      restartTimer();
-
-      Multimedia.playAudio("place.wav");
-
-      //Clean lines and spawn another piece
-      afterPiece();
-      nextPiece();
+    if (disconnected || pieceQueue.isEmpty()) {
+      return;
     }
+    super.blockClicked(x, y);
+
+    //Send the board
+    boardSync.sync(grid);
+  }
 
-    for (int i = 0; i < getCols(); i++) {
-      for (int j = 0; j < getRows(); j++) {
-        values.append(grid.get(i, j)).append(" ");
+  /**
+   * Pauses the game when the connection to the server is lost, and brings the server back in sync
+   * and carries on once it has been made again
+   *
+   * @param state the state of the connection
+   */
+  private void connectionStateChanged(ConnectionState state) {
+    if (state != ConnectionState.CONNECTED && !disconnected) {
+      disconnected = true;
+      engine.stop();
+    } else if (state == ConnectionState.CONNECTED && disconnected) {
+      disconnected = false;
+      resync();
+      if (!ended && engine.getCurrentPiece() != null) {
+        engine.startTimer();
       }
     }
+  }
 
-    //Send the board
-    communicator.send("BOARD" + " " + values);
+  /**
+   * Brings the server back in sync with the game after connecting again: sends the whole board,
+   * the score and lives, asks for the scores again, and tops up the pieces asked for. Pieces asked
+   * for while disconnected are still waiting to be sent, so only enough to fill the queue on top of
+   * every piece not yet sent by the server are asked for.
+   */
+  public void resync() {
+    logger.info("Resynchronising with the server");
+    getScores();
+    boardSync.negotiate();
+    boardSync.reset();
+    boardSync.sync(grid);
+    communicator.send("SCORE" + " " + getScore());
+    communicator.send("LIVES" + " " + getLives());
+    for (int i = pieceQueue.size() + requested; i < PIECE_QUEUE_DEPTH; i++) {
+      requestPiece();
+    }
   }
 
   /**
-   * Sets the listener
+   * Sets the listener, replacing any set before
    *
    * @param listener listener to set
    */
   public void setGameEndListener(MultiplayerGameEndListener listener) {
-    this.multiplayerGameEndListener = listener;
+    cancel(gameEndListener);
+    gameEndListener = events.subscribe(GameEnded.class, event -> listener.endGame(this));
   }
 
   /**
@@ -202,128 +248,103 @@ public class MultiplayerGame extends Game {
   }
 
   /**
-   * Takes the piece that is at the beginning of the queue and sets the current piece to the
-   * following piece, which is replaced by the given piece from the queue
+   * Adds a piece received from the server to the queue. The first pieces are dealt as soon as two
+   * have arrived.
    *
-   * @param value the next piece gotten from the queue
+   * @param piece the PIECE message from the server
    */
-  public void nextPiece(String value) {
-
-    //Get rid of the message start e.g. PIECE
-    value = value.substring(value.indexOf(" ") + 1);
-
-    if (followingPiece == null) {
-      followingPiece = GamePiece.createPiece(Integer.parseInt(value));
-      return;
+  public void receivePiece(Message.Piece piece) {
+    if (requested > 0) {
+      requested--;
     }
+    pieceQueue.add(GamePiece.createPiece(piece.value()));
+    logger.info(pieceQueue);
 
-    currentPiece = followingPiece;
-    logger.info("Current piece is {}", currentPiece);
-
-    followingPiece = GamePiece.createPiece(Integer.parseInt(value));
-    logger.info("The following piece is {}", followingPiece);
-
-    nextPieceListener.nextPiece(currentPiece, followingPiece);
+    if (engine.getCurrentPiece() == null && pieceQueue.size() >= 2) {
+      engine.nextPiece();
+    }
   }
 
   /**
-   * Takes the chat message that has been received from the server and cleans it up, then calls the
-   * given listener
+   * Takes the piece that is at the beginning of the queue and asks the server for another. Moves
+   * wait for the server while the queue is empty, but should it be empty anyway, a random piece is
+   * played rather than ending the game.
    *
-   * @param message chat message to clean and display
+   * @return the next piece from the server
    */
-  public void receiveMessage(String message) {
-    String[] messageSplitter = message.split(":");
-
-    //Get rid of the message start e.g. MSG
-    messageSplitter[0] = messageSplitter[0].substring(messageSplitter[0].indexOf(" ") + 1);
+  private GamePiece takePiece() {
+    requestPiece();
+    var piece = pieceQueue.poll();
+    if (piece == null) {
+      logger.error("No piece from the server to play, playing a random piece");
+      piece = GamePiece.createPiece(ThreadLocalRandom.current().nextInt(GamePiece.PIECES));
+    }
+    return piece;
+  }
 
-    receiveMessageListener.receiveMessage(messageSplitter[0] + ":" + messageSplitter[1]);
+  /**
+   * Passes the chat message that has been received from the server to the given listener
+   *
+   * @param message chat message to display
+   */
+  public void receiveMessage(Message.Msg message) {
+    receiveMessageListener.receiveMessage(message.player() + ":" + message.text());
   }
 
   /**
-   * Calculates and sets the score based off of the lines to clear, blocks to clear and multiplier
-   * then sends the new score to the server
+   * Sends the new score to the server as well as updating the display
    *
-   * @param lineCount  the number of lines to clear
-   * @param blockCount the number of blocks to clear
+   * @param score the new score
    */
   @Override
-  public void score(int lineCount, int blockCount) {
-    var scoreToAdd = (lineCount * blockCount * 10 * getMultiplier());
-    logger.info("Attempting to add score {}", scoreToAdd);
-
-    setScore(scoreToAdd + getScore());
-
-    //If there is something to clear send an updated score to the server
-    if (lineCount != 0) {
-      communicator.send("SCORE" + " " + getScore());
-    }
-
-    multiplier(lineCount);
+  public void scoreChanged(int score) {
+    super.scoreChanged(score);
+    communicator.send("SCORE" + " " + score);
   }
 
   /**
-   * Handles the way the game acts when a piece has not been played for the given time duration
+   * Sends the lives left to the server as well as updating the display
+   *
+   * @param lives the new number of lives
    */
   @Override
-  public void gameLoop() {
-
-    //If there are no more lives send the DIE message to the server and show the scores screen
-    if (getLives() == 0) {
-      communicator.send("DIE");
-      multiplayerGameEndListener.endGame(this);
-      return;
-    }
-
-    //Lives reduced by one
-    Platform.runLater(() -> setLives(getLives() - 1));
-
-    //Send the new lives to the server
-    communicator.send("LIVES" + " " + (getLives() - 1));
-
-    //Multiplier reset to 1
-    Platform.runLater(() -> setMultiplier(1));
-
-    //Request a piece from the server
-    requestPiece();
-
-    //Discard current piece
-    nextPiece(pieceQueue.remove());
+  public void livesChanged(int lives) {
+    super.livesChanged(lives);
+    communicator.send("LIVES" + " " + lives);
+  }
 
-    //Restart timer
-    startTimer();
+  /**
+   * When there are no more lives send the DIE message to the server and show the scores screen
+   */
+  @Override
+  public void gameOver() {
+    ended = true;
+    communicator.send("DIE");
+    super.gameOver();
   }
 
   /**
-   * Sends a PIECE message to the server
+   * Sends a PIECE message to the server, counting it until the piece arrives
    */
   public void requestPiece() {
-    communicator.send("PIECE");
+    if (communicator.send("PIECE")) {
+      requested++;
+    }
   }
 
   /**
-   * Cleans the received score from the server and puts them in a list property
+   * Puts the scores received from the server in a list property
    *
-   * @param message the scores from the server
+   * @param scores the scores from the server
    */
-  public void receiveScores(String message) {
+  public void receiveScores(Message.Scores scores) {
     logger.info("Receiving scores");
 
     //Clear any previous scores
     scoresProperty.clear();
 
-    String[] scoresSplitter = message.split("\n");
-
-    //Get rid of the message start e.g. SCORES
-    scoresSplitter[0] = scoresSplitter[0].substring(scoresSplitter[0].indexOf(" ") + 1);
-
-    for (String score : scoresSplitter) {
-      //Split the result into name, score, lives
-      String[] splitter = score.split(":");
-      logger.debug(splitter);
-
-      addScore(new String[]{splitter[0], splitter[1], splitter[2]});
+    for (Message.PlayerScore score : scores.scores()) {
+      addScore(new String[]{score.name(), String.valueOf(score.score()), score.lives()});
     }
   }
 
@@ -0,0 +1,62 @@
+package uk.ac.soton.comp1206.game;
+
+import javafx.util.Pair;
+
+/**
+ * A saved score: the name of the player and their score, as the Pair shown in a ScoresList, along
+ * with the seed of the game it was scored in so the game can be played again.
+ * <p>
+ * In the scores file a record is written as {@code name:score:seed}. Records from before seeds were
+ * saved have no seed and are written as {@code name:score}, which is also all older readers look
+ * at.
+ */
+public class ScoreRecord extends Pair<String, Integer> {
+
+  /**
+   * The seed of the game, or null if it is not known
+   */
+  private final Long seed;
+
+  /**
+   * Create a new record
+   *
+   * @param name  the name of the player
+   * @param score the score
+   * @param seed  the seed of the game, or null if it is not known
+   */
+  public ScoreRecord(String name, Integer score, Long seed) {
+    super(name, score);
+    this.seed = seed;
+  }
+
+  /**
+   * Read a record from a line of the scores file
+   *
+   * @param line the line, as {@code name:score} or {@code name:score:seed}
+   * @return the record
+   * @throws NumberFormatException if the score or seed is not a number
+   */
+  public static ScoreRecord parse(String line) {
+    String[] splitter = line.split(":");
+    var seed = splitter.length > 2 ? Long.valueOf(splitter[2]) : null;
+    return new ScoreRecord(splitter[0], Integer.parseInt(splitter[1]), seed);
+  }
+
+  /**
+   * Get the seed of the game the score was made in
+   *
+   * @return the seed, or null if it is not known
+   */
+  public Long getSeed() {
+    return seed;
+  }
+
+  /**
+   * Get the line written to the scores file for this record
+   *
+   * @return the line, without a line break
+   */
+  public String toLine() {
+    return seed == null ? getKey() + ":" + getValue() : getKey() + ":" + getValue() + ":" + seed;
+  }
+}
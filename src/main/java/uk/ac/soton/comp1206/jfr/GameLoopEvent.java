@@ -0,0 +1,30 @@
+package uk.ac.soton.comp1206.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recorded when the timer runs out before a piece is played, timing the loss of a life and the
+ * next piece being dealt
+ */
+@Name("uk.ac.soton.comp1206.GameLoop")
+@Label("Game Loop")
+@Category({"TetrECS", "Game"})
+@Description("Handling the timer running out before a piece was played")
+public class GameLoopEvent extends Event {
+
+  /**
+   * The lives left afterwards
+   */
+  @Label("Lives")
+  public int lives;
+
+  /**
+   * Whether the game ended
+   */
+  @Label("Game Over")
+  public boolean gameOver;
+}
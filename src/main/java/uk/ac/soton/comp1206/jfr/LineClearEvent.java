@@ -0,0 +1,29 @@
+package uk.ac.soton.comp1206.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recorded after a piece is placed, timing the search for full lines, clearing them and scoring
+ */
+@Name("uk.ac.soton.comp1206.LineClear")
+@Label("Line Clear")
+@Category({"TetrECS", "Game"})
+@Description("Finding, clearing and scoring the full lines after a piece is placed")
+public class LineClearEvent extends Event {
+
+  /**
+   * The number of lines cleared
+   */
+  @Label("Lines")
+  public int lines;
+
+  /**
+   * The number of blocks cleared
+   */
+  @Label("Blocks")
+  public int blocks;
+}
@@ -0,0 +1,37 @@
+package uk.ac.soton.comp1206.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recorded when a message is received from the server, timing it being relayed to the listeners
+ */
+@Name("uk.ac.soton.comp1206.MessageReceived")
+@Label("Message Received")
+@Category({"TetrECS", "Network"})
+@Description("A message received from the server and relayed to the listeners")
+public class MessageReceivedEvent extends Event {
+
+  /**
+   * The type of message, its first word
+   */
+  @Label("Type")
+  public String type;
+
+  /**
+   * The length of the message
+   */
+  @Label("Size")
+  @DataAmount
+  public int size;
+
+  /**
+   * The number of listeners the message was relayed to
+   */
+  @Label("Listeners")
+  public int listeners;
+}
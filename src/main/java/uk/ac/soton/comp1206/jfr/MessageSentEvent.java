@@ -0,0 +1,38 @@
+package uk.ac.soton.comp1206.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recorded when a message has been written to the server. The duration is the time the message
+ * was queued for, from being sent by the game until it was written to the socket.
+ */
+@Name("uk.ac.soton.comp1206.MessageSent")
+@Label("Message Sent")
+@Category({"TetrECS", "Network"})
+@Description("A message queued and written to the server")
+public class MessageSentEvent extends Event {
+
+  /**
+   * The type of message, its first word
+   */
+  @Label("Type")
+  public String type;
+
+  /**
+   * The length of the message
+   */
+  @Label("Size")
+  @DataAmount
+  public int size;
+
+  /**
+   * Whether the message was written, rather than dropped because the connection failed
+   */
+  @Label("Written")
+  public boolean written;
+}
@@ -0,0 +1,42 @@
+package uk.ac.soton.comp1206.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recorded when a piece is played, timing the check that the piece fits and placing it on the
+ * board
+ */
+@Name("uk.ac.soton.comp1206.PiecePlacement")
+@Label("Piece Placement")
+@Category({"TetrECS", "Game"})
+@Description("Checking a piece fits on the board and placing it")
+public class PiecePlacementEvent extends Event {
+
+  /**
+   * The piece played
+   */
+  @Label("Piece")
+  public String piece;
+
+  /**
+   * The column the piece was played at
+   */
+  @Label("X")
+  public int x;
+
+  /**
+   * The row the piece was played at
+   */
+  @Label("Y")
+  public int y;
+
+  /**
+   * Whether the piece fitted and was placed
+   */
+  @Label("Placed")
+  public boolean placed;
+}
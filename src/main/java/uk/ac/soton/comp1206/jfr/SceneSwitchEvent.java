@@ -0,0 +1,30 @@
+package uk.ac.soton.comp1206.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recorded when the window switches scene, timing the cleanup of the old scene and building the
+ * new one
+ */
+@Name("uk.ac.soton.comp1206.SceneSwitch")
+@Label("Scene Switch")
+@Category({"TetrECS", "UI"})
+@Description("Cleaning up the previous scene and building the next")
+public class SceneSwitchEvent extends Event {
+
+  /**
+   * The scene switched from, or null if there was none
+   */
+  @Label("From")
+  public String from;
+
+  /**
+   * The scene switched to
+   */
+  @Label("To")
+  public String to;
+}
@@ -0,0 +1,105 @@
+package uk.ac.soton.comp1206.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A Counter counts things that happen, such as pieces placed or messages sent, and how many
+ * happened recently so a rate can be shown.
+ * <p>
+ * Counting never allocates or locks. The total is a striped LongAdder; recent counts are kept in a
+ * ring of one slot per second. A slot is reset by the first count of a new second, and a count made
+ * by another thread at the same instant may be lost, so recent counts are close rather than exact.
+ */
+public class Counter {
+
+  /**
+   * The number of seconds of recent counts kept, a power of two
+   */
+  private static final int SLOTS = 64;
+
+  /**
+   * The longest window a rate can be taken over, in seconds, leaving the slot being reset alone
+   */
+  public static final int MAX_WINDOW = SLOTS - 2;
+
+  /**
+   * The count of everything that ever happened
+   */
+  private final LongAdder total = new LongAdder();
+
+  /**
+   * The count in each second of the ring
+   */
+  private final AtomicLongArray counts = new AtomicLongArray(SLOTS);
+
+  /**
+   * The second each slot of the ring holds the count of
+   */
+  private final AtomicLongArray seconds = new AtomicLongArray(SLOTS);
+
+  /**
+   * Count one thing happening
+   */
+  public void increment() {
+    add(1);
+  }
+
+  /**
+   * Count some things happening
+   *
+   * @param count the number of things
+   */
+  public void add(long count) {
+    total.add(count);
+
+    var second = now();
+    var slot = (int) second & (SLOTS - 1);
+    var held = seconds.get(slot);
+    if (held != second && seconds.compareAndSet(slot, held, second)) {
+      counts.set(slot, 0);
+    }
+    counts.addAndGet(slot, count);
+  }
+
+  /**
+   * Get the count of everything that ever happened
+   *
+   * @return the total
+   */
+  public long getCount() {
+    return total.sum();
+  }
+
+  /**
+   * Get the count of things that happened in the last whole seconds, not including the current
+   * second
+   *
+   * @param window the number of seconds, at most {@link #MAX_WINDOW}
+   * @return the count
+   */
+  public long getRecent(int window) {
+    if (window < 1 || window > MAX_WINDOW) {
+      throw new IllegalArgumentException("Window must be between 1 and " + MAX_WINDOW);
+    }
+    var now = now();
+    var count = 0L;
+    for (var second = now - window; second < now; second++) {
+      var slot = (int) second & (SLOTS - 1);
+      var value = counts.get(slot);
+      if (seconds.get(slot) == second) {
+        count += value;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Get the current second
+   *
+   * @return the seconds of the monotonic clock
+   */
+  private static long now() {
+    return System.nanoTime() / 1_000_000_000L;
+  }
+}
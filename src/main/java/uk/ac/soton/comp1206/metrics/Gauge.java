@@ -0,0 +1,16 @@
+package uk.ac.soton.comp1206.metrics;
+
+/**
+ * A Gauge reads a value as it is now, such as the length of a queue, whenever the metrics are
+ * looked at. Reading should be cheap and safe from any thread.
+ */
+@FunctionalInterface
+public interface Gauge {
+
+  /**
+   * Read the value
+   *
+   * @return the current value
+   */
+  long read();
+}
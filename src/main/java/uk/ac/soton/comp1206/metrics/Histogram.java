@@ -0,0 +1,154 @@
+package uk.ac.soton.comp1206.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A Histogram records the spread of values, such as how long something took in nanoseconds, so the
+ * mean and percentiles can be shown.
+ * <p>
+ * Values are counted in preallocated buckets laid out like an HDR histogram: each power of two is
+ * split into {@value #SUB_BUCKETS} linear buckets, so any value is known to within an eighth
+ * whatever its size, and every non-negative long fits in under 500 buckets. Recording never
+ * allocates or locks.
+ */
+public class Histogram {
+
+  /**
+   * The number of bits of each value kept below its highest bit
+   */
+  private static final int SUB_BITS = 3;
+
+  /**
+   * The number of buckets each power of two is split into
+   */
+  private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+  /**
+   * The number of buckets needed for every non-negative long
+   */
+  private static final int BUCKETS = (Long.SIZE - SUB_BITS) * SUB_BUCKETS;
+
+  /**
+   * The count of values in each bucket
+   */
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+  /**
+   * The number of values recorded
+   */
+  private final LongAdder count = new LongAdder();
+
+  /**
+   * The sum of the values recorded
+   */
+  private final LongAdder sum = new LongAdder();
+
+  /**
+   * The largest value recorded
+   */
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Record a value, negative values are recorded as 0
+   *
+   * @param value the value
+   */
+  public void record(long value) {
+    value = Math.max(0, value);
+    buckets.incrementAndGet(bucket(value));
+    count.increment();
+    sum.add(value);
+
+    var largest = max.get();
+    while (value > largest && !max.compareAndSet(largest, value)) {
+      largest = max.get();
+    }
+  }
+
+  /**
+   * Get the number of values recorded
+   *
+   * @return the count
+   */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * Get the mean of the values recorded
+   *
+   * @return the mean, or 0 if none have been recorded
+   */
+  public double getMean() {
+    var values = count.sum();
+    return values == 0 ? 0 : (double) sum.sum() / values;
+  }
+
+  /**
+   * Get the largest value recorded
+   *
+   * @return the largest value, or 0 if none have been recorded
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Get a percentile of the values recorded, to within the width of its bucket
+   *
+   * @param percentile the percentile, from 0 to 100
+   * @return the largest value in the bucket the percentile falls in, or 0 if none have been
+   *     recorded
+   */
+  public long getPercentile(double percentile) {
+    var total = 0L;
+    for (var i = 0; i < BUCKETS; i++) {
+      total += buckets.get(i);
+    }
+    if (total == 0) {
+      return 0;
+    }
+
+    var rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+    var seen = 0L;
+    for (var i = 0; i < BUCKETS; i++) {
+      seen += buckets.get(i);
+      if (seen >= rank) {
+        return Math.min(highest(i), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  /**
+   * Get the bucket a value is counted in
+   *
+   * @param value the value, not negative
+   * @return the bucket
+   */
+  static int bucket(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    var exponent = 63 - Long.numberOfLeadingZeros(value);
+    var sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+  }
+
+  /**
+   * Get the largest value counted in a bucket
+   *
+   * @param bucket the bucket
+   * @return the largest value
+   */
+  static long highest(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    var shift = bucket / SUB_BUCKETS - 1;
+    var lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+}
@@ -0,0 +1,168 @@
+package uk.ac.soton.comp1206.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.engine.TimerService;
+
+/**
+ * The Metrics registry holds the counters, gauges and histograms of the whole application by name.
+ * <p>
+ * Metrics are registered once, usually in a static field, and recording to them afterwards never
+ * allocates or locks, so they are always on. They can be read through JMX once
+ * {@link #registerMBean()} has been called, and in game with the MetricsOverlay.
+ */
+public class Metrics {
+
+  private static final Logger logger = LogManager.getLogger(Metrics.class);
+
+  /**
+   * The name the metrics are exported to JMX under
+   */
+  public static final String OBJECT_NAME = "uk.ac.soton.comp1206:type=Metrics";
+
+  /**
+   * The number of seconds rates per second are averaged over
+   */
+  private static final int RATE_WINDOW = 5;
+
+  /**
+   * Every metric by name, in name order
+   */
+  private static final SortedMap<String, Object> metrics = new ConcurrentSkipListMap<>();
+
+  static {
+    gauge("executor.timer.threads", TimerService.shared()::getThreadCount);
+    gauge("executor.search.threads", () -> ForkJoinPool.commonPool().getPoolSize());
+  }
+
+  /**
+   * Metrics are only held statically
+   */
+  private Metrics() {
+  }
+
+  /**
+   * Get the counter with the given name, creating it if there is none
+   *
+   * @param name the name
+   * @return the counter
+   */
+  public static Counter counter(String name) {
+    return get(name, Counter.class, Counter::new);
+  }
+
+  /**
+   * Get the histogram with the given name, creating it if there is none
+   *
+   * @param name the name
+   * @return the histogram
+   */
+  public static Histogram histogram(String name) {
+    return get(name, Histogram.class, Histogram::new);
+  }
+
+  /**
+   * Register a gauge, replacing any gauge with the same name
+   *
+   * @param name  the name
+   * @param gauge the gauge
+   */
+  public static void gauge(String name, Gauge gauge) {
+    metrics.compute(name, (key, previous) -> {
+      if (previous != null && !(previous instanceof Gauge)) {
+        throw new IllegalArgumentException(name + " is not a Gauge");
+      }
+      return gauge;
+    });
+  }
+
+  /**
+   * Unregister a gauge, if it is still the one registered with its name, so a gauge which has
+   * since replaced it is kept
+   *
+   * @param name  the name
+   * @param gauge the gauge
+   */
+  public static void removeGauge(String name, Gauge gauge) {
+    metrics.remove(name, gauge);
+  }
+
+  /**
+   * Get every metric by name, in name order
+   *
+   * @return a read only view of the metrics
+   */
+  public static Map<String, Object> getAll() {
+    return Collections.unmodifiableSortedMap(metrics);
+  }
+
+  /**
+   * Read every metric as named values, in name order: a counter gives its total and its rates per
+   * second and per minute, a histogram its count, mean, 50th and 99th percentiles and maximum, and
+   * a gauge its value
+   *
+   * @return the values by name
+   */
+  public static Map<String, Number> snapshot() {
+    var values = new LinkedHashMap<String, Number>();
+    metrics.forEach((name, metric) -> {
+      if (metric instanceof Counter counter) {
+        values.put(name + ".count", counter.getCount());
+        values.put(name + ".perSecond", counter.getRecent(RATE_WINDOW) / (double) RATE_WINDOW);
+        values.put(name + ".perMinute", counter.getRecent(60));
+      } else if (metric instanceof Histogram histogram) {
+        values.put(name + ".count", histogram.getCount());
+        values.put(name + ".mean", histogram.getMean());
+        values.put(name + ".p50", histogram.getPercentile(50));
+        values.put(name + ".p99", histogram.getPercentile(99));
+        values.put(name + ".max", histogram.getMax());
+      } else if (metric instanceof Gauge gauge) {
+        values.put(name, gauge.read());
+      }
+    });
+    return values;
+  }
+
+  /**
+   * Export the metrics through the platform MBean server. Does nothing if they already have been.
+   */
+  public static synchronized void registerMBean() {
+    try {
+      var server = ManagementFactory.getPlatformMBeanServer();
+      var name = new ObjectName(OBJECT_NAME);
+      if (!server.isRegistered(name)) {
+        server.registerMBean(new MetricsMBean(), name);
+        logger.info("Exported metrics as {}", name);
+      }
+    } catch (JMException e) {
+      logger.error("Unable to export metrics", e);
+    }
+  }
+
+  /**
+   * Get the metric with the given name, creating it if there is none
+   *
+   * @param name    the name
+   * @param type    the type of metric
+   * @param factory creates the metric
+   * @param <T>     the type of metric
+   * @return the metric
+   */
+  private static <T> T get(String name, Class<T> type, Supplier<T> factory) {
+    var metric = metrics.computeIfAbsent(name, key -> factory.get());
+    if (!type.isInstance(metric)) {
+      throw new IllegalArgumentException(name + " is not a " + type.getSimpleName());
+    }
+    return type.cast(metric);
+  }
+}
@@ -0,0 +1,67 @@
+package uk.ac.soton.comp1206.metrics;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+
+/**
+ * The MetricsMBean exports every metric in the registry to JMX as a read only attribute, named as
+ * in {@link Metrics#snapshot()}. The attributes follow the registry, so metrics registered later
+ * appear too.
+ */
+class MetricsMBean implements DynamicMBean {
+
+  @Override
+  public Object getAttribute(String attribute) throws AttributeNotFoundException {
+    var value = Metrics.snapshot().get(attribute);
+    if (value == null) {
+      throw new AttributeNotFoundException(attribute);
+    }
+    return value;
+  }
+
+  @Override
+  public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+    throw new AttributeNotFoundException("Metrics are read only");
+  }
+
+  @Override
+  public AttributeList getAttributes(String[] attributes) {
+    var values = Metrics.snapshot();
+    var list = new AttributeList();
+    for (String attribute : attributes) {
+      var value = values.get(attribute);
+      if (value != null) {
+        list.add(new Attribute(attribute, value));
+      }
+    }
+    return list;
+  }
+
+  @Override
+  public AttributeList setAttributes(AttributeList attributes) {
+    return new AttributeList();
+  }
+
+  @Override
+  public Object invoke(String actionName, Object[] params, String[] signature) {
+    throw new UnsupportedOperationException("Metrics have no operations");
+  }
+
+  @Override
+  public MBeanInfo getMBeanInfo() {
+    var values = Metrics.snapshot();
+    var attributes = new MBeanAttributeInfo[values.size()];
+    var i = 0;
+    for (var entry : values.entrySet()) {
+      attributes[i++] = new MBeanAttributeInfo(entry.getKey(),
+          entry.getValue().getClass().getName(), entry.getKey(), true, false, false);
+    }
+    return new MBeanInfo(getClass().getName(), "TetrECS metrics", attributes, null,
+        new MBeanOperationInfo[0], null);
+  }
+}
@@ -0,0 +1,85 @@
+package uk.ac.soton.comp1206.metrics;
+
+import javafx.event.Event;
+import javafx.scene.Scene;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseEvent;
+
+/**
+ * SceneMetrics measures how long JavaFX pulses take on a scene, and how long it is from the player
+ * pressing a key or mouse button until the next pulse has laid out the scene ready to be drawn.
+ * <p>
+ * The pulse time covers applying CSS and laying out the scene, from its pre-layout to its
+ * post-layout pulse listener; animation and event handling before that are not included.
+ */
+public class SceneMetrics {
+
+  /**
+   * The time taken to lay out a scene in each pulse, in microseconds
+   */
+  private static final Histogram PULSE = Metrics.histogram("fx.pulse.micros");
+
+  /**
+   * The time from input to the scene being laid out, in microseconds
+   */
+  private static final Histogram INPUT_LATENCY = Metrics.histogram("fx.inputLatency.micros");
+
+  /**
+   * When the current pulse started laying out
+   */
+  private long pulseStart;
+
+  /**
+   * When the earliest input not yet shown arrived, or 0 if there is none
+   */
+  private long inputTime;
+
+  /**
+   * Instances are created by {@link #instrument(Scene)}
+   */
+  private SceneMetrics() {
+  }
+
+  /**
+   * Start measuring pulses and input on a scene
+   *
+   * @param scene the scene
+   */
+  public static void instrument(Scene scene) {
+    var metrics = new SceneMetrics();
+    scene.addPreLayoutPulseListener(metrics::layoutStarted);
+    scene.addPostLayoutPulseListener(metrics::layoutFinished);
+    scene.addEventFilter(KeyEvent.KEY_PRESSED, metrics::input);
+    scene.addEventFilter(MouseEvent.MOUSE_PRESSED, metrics::input);
+  }
+
+  /**
+   * Note when input arrives, unless earlier input is still waiting to be shown
+   *
+   * @param event the input
+   */
+  private void input(Event event) {
+    if (inputTime == 0) {
+      inputTime = System.nanoTime();
+    }
+  }
+
+  /**
+   * Note when a pulse starts laying out the scene
+   */
+  private void layoutStarted() {
+    pulseStart = System.nanoTime();
+  }
+
+  /**
+   * Record the pulse, and the latency of any input it shows
+   */
+  private void layoutFinished() {
+    var now = System.nanoTime();
+    PULSE.record((now - pulseStart) / 1000);
+    if (inputTime != 0) {
+      INPUT_LATENCY.record((now - inputTime) / 1000);
+      inputTime = 0;
+    }
+  }
+}
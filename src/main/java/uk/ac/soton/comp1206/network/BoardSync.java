@@ -0,0 +1,192 @@
+package uk.ac.soton.comp1206.network;
+
+import uk.ac.soton.comp1206.engine.Board;
+
+/**
+ * The BoardSync keeps the server's copy of a board up to date, sending as little as it can.
+ * <p>
+ * It remembers the board as it was last sent. When asked to sync, it only sends if the board has
+ * changed since then. The stock server only understands the full form, {@code BOARD} followed by
+ * every block column by column, so that is what is sent unless the server has said it understands
+ * the delta form:
+ * <pre>
+ * BOARDDELTA x,y,value x,y,value ...
+ * </pre>
+ * which lists only the blocks changed since the last board sent. Servers say this by replying to
+ * {@link #FEATURES_REQUEST} with a FEATURES message listing {@link #DELTA_FEATURE}. The stock
+ * server replies with an error instead, so it is never sent a delta. A full board is also sent
+ * whenever it would be shorter than the delta.
+ * <p>
+ * The board is only remembered as sent once the communicator has accepted the message, so if a
+ * message is dropped the next sync sends the changes again.
+ */
+public class BoardSync {
+
+  /**
+   * The message asking the server which extra features it understands
+   */
+  public static final String FEATURES_REQUEST = "FEATURES";
+
+  /**
+   * The feature a server lists if it understands BOARDDELTA messages
+   */
+  public static final String DELTA_FEATURE = "BOARDDELTA";
+
+  /**
+   * The start of the full form of board
+   */
+  private static final String BOARD_PREFIX = "BOARD ";
+
+  /**
+   * The communicator the boards are sent through
+   */
+  private final Communicator communicator;
+
+  /**
+   * Every block of the board as it was last sent, column by column, or null if none has been sent
+   */
+  private int[] sent;
+
+  /**
+   * Whether the server understands the delta form
+   */
+  private boolean deltaSupported;
+
+  /**
+   * Create a sync which sends boards through the given communicator
+   *
+   * @param communicator the communicator
+   */
+  public BoardSync(Communicator communicator) {
+    this.communicator = communicator;
+  }
+
+  /**
+   * Ask the server whether it understands the delta form. Until it says it does, full boards are
+   * sent, so a server which has been replaced by one that does not is not sent deltas.
+   */
+  public void negotiate() {
+    deltaSupported = false;
+    communicator.send(FEATURES_REQUEST);
+  }
+
+  /**
+   * Handle the server's FEATURES message, turning on the delta form if it is listed
+   *
+   * @param features the FEATURES message from the server
+   */
+  public void receiveFeatures(Message.Features features) {
+    deltaSupported = features.features().contains(DELTA_FEATURE);
+  }
+
+  /**
+   * Check whether the delta form is being used
+   *
+   * @return true if the server understands the delta form
+   */
+  public boolean isDeltaSupported() {
+    return deltaSupported;
+  }
+
+  /**
+   * Forget the board last sent, so the next sync sends the whole board
+   */
+  public void reset() {
+    sent = null;
+  }
+
+  /**
+   * Send the board if it has changed since it was last sent, as a delta if the server understands
+   * one and it is shorter
+   *
+   * @param board the board
+   * @return true if a message was sent
+   */
+  public boolean sync(Board board) {
+    var cols = board.getCols();
+    var rows = board.getRows();
+    var full = sent == null || sent.length != cols * rows;
+
+    StringBuilder delta = new StringBuilder(DELTA_FEATURE);
+    var changed = 0;
+    //The length of the full form, so it is only built if it is sent
+    var fullLength = BOARD_PREFIX.length();
+    if (!full) {
+      for (int x = 0; x < cols; x++) {
+        for (int y = 0; y < rows; y++) {
+          var value = board.get(x, y);
+          fullLength += stringSize(value) + 1;
+          if (sent[x * rows + y] != value) {
+            delta.append(' ').append(x).append(',').append(y).append(',').append(value);
+            changed++;
+          }
+        }
+      }
+      if (changed == 0) {
+        return false;
+      }
+    }
+
+    var message = !full && deltaSupported && delta.length() < fullLength ? delta.toString()
+        : boardMessage(board);
+    if (!communicator.send(message)) {
+      return false;
+    }
+
+    //Remember the board as sent
+    if (full) {
+      sent = new int[cols * rows];
+    }
+    for (int x = 0; x < cols; x++) {
+      for (int y = 0; y < rows; y++) {
+        sent[x * rows + y] = board.get(x, y);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Build the BOARD message describing every block on a board, column by column
+   *
+   * @param board the board to describe
+   * @return the BOARD message
+   */
+  public static String boardMessage(Board board) {
+    StringBuilder values = new StringBuilder(BOARD_PREFIX);
+    for (int i = 0; i < board.getCols(); i++) {
+      for (int j = 0; j < board.getRows(); j++) {
+        values.append(board.get(i, j)).append(" ");
+      }
+    }
+    return values.toString();
+  }
+
+  /**
+   * Get the number of characters a block's value takes when written out
+   *
+   * @param value the value
+   * @return the number of characters
+   */
+  private static int stringSize(int value) {
+    var size = value < 0 ? 2 : 1;
+    for (var rest = Math.abs(value); rest >= 10; rest /= 10) {
+      size++;
+    }
+    return size;
+  }
+
+  /**
+   * Apply a BOARDDELTA message to a board, for a server keeping a copy of each player's board
+   *
+   * @param message the BOARDDELTA message
+   * @param board   the board to change
+   */
+  public static void applyDelta(String message, Board board) {
+    var cells = message.trim().split(" ");
+    for (int i = 1; i < cells.length; i++) {
+      var parts = cells[i].split(",");
+      board.set(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]),
+          Integer.parseInt(parts[2]));
+    }
+  }
+}
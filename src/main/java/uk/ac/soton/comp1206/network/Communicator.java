@@ -1,47 +1,268 @@
 package uk.ac.soton.comp1206.network;
 
 import com.neovisionaries.ws.client.*;
-import javafx.scene.control.Alert;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.engine.TimerService;
 import uk.ac.soton.comp1206.event.CommunicationsListener;
+import uk.ac.soton.comp1206.event.ConnectionStateListener;
+import uk.ac.soton.comp1206.jfr.MessageReceivedEvent;
+import uk.ac.soton.comp1206.jfr.MessageSentEvent;
+import uk.ac.soton.comp1206.metrics.Counter;
+import uk.ac.soton.comp1206.metrics.Histogram;
+import uk.ac.soton.comp1206.metrics.Metrics;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 /**
  * Uses web sockets to talk to a web socket server and relays communication to attached listeners
  *
+ * Messages received are parsed once into a {@link Message} and handed to the listeners subscribed to
+ * their type. Messages are written from a thread of their own, so sending never holds up the caller. Only the
+ * newest BOARD and SCORE waiting are written, see {@link OutboundQueue}.
+ *
+ * If the connection is lost, or cannot be made, it is made again after a backoff which doubles with each
+ * attempt, with jitter so a server restart is not met by every client at once. Messages sent meanwhile wait in
+ * the queue, and once connected again the writer sets the nickname and channel again before they are written. The
+ * state of the connection is passed to the {@link ConnectionStateListener}s. A communicator no longer needed is
+ * closed, which stops its threads and any attempt to connect again.
+ *
  * YOU DO NOT NEED TO WORRY ABOUT THIS CLASS! Leave it be :-)
  */
 public class Communicator {
 
     private static final Logger logger = LogManager.getLogger(Communicator.class);
 
+    /**
+     * Counts the messages sent to the server
+     */
+    private static final Counter MESSAGES_OUT = Metrics.counter("network.messages.out");
+
+    /**
+     * Counts the messages received from the server
+     */
+    private static final Counter MESSAGES_IN = Metrics.counter("network.messages.in");
+
+    /**
+     * Counts the messages replaced by a newer message of the same type before they were written
+     */
+    private static final Counter MESSAGES_COALESCED = Metrics.counter("network.outbound.coalesced");
+
+    /**
+     * Counts the messages dropped because too many were waiting
+     */
+    private static final Counter MESSAGES_DROPPED = Metrics.counter("network.outbound.dropped");
+
+    /**
+     * The time messages wait before they are written, in microseconds
+     */
+    private static final Histogram WAIT = Metrics.histogram("network.outbound.wait.micros");
+
+    /**
+     * The outbound queue of every communicator, so their depth is measured together
+     */
+    private static final Set<OutboundQueue> QUEUES = ConcurrentHashMap.newKeySet();
+
+    static {
+        //One gauge adding up every queue, as a gauge registered by each communicator would replace the last
+        Metrics.gauge("network.outbound.depth", () -> QUEUES.stream().mapToLong(OutboundQueue::size).sum());
+    }
+
+    /**
+     * The most messages that can wait to be written
+     */
+    private static final int OUTBOUND_CAPACITY = 256;
+
+    /**
+     * The longest the writer waits to hear a message has gone before writing the next, in seconds
+     */
+    private static final long WRITE_TIMEOUT = 5;
+
+    /**
+     * The longest a connection can take to be made, in milliseconds
+     */
+    private static final int CONNECT_TIMEOUT = 5000;
+
+    /**
+     * The backoff before the first attempt to connect again, in milliseconds
+     */
+    private static final long RECONNECT_BASE = 500;
+
+    /**
+     * The longest backoff between attempts to connect again, in milliseconds
+     */
+    private static final long RECONNECT_MAX = 30000;
+
     /**
      * Attached communication listeners listening to messages on this Communicator. Each will be sent any messages.
      */
     private final List<CommunicationsListener> handlers = new ArrayList<>();
 
-    private WebSocket ws = null;
+    /**
+     * The listeners subscribed to each type of message
+     */
+    private final Map<Class<? extends Message>, List<Consumer<Message>>> subscribers = new ConcurrentHashMap<>();
+
+    /**
+     * The messages waiting to be written
+     */
+    private final OutboundQueue outbound = new OutboundQueue(OUTBOUND_CAPACITY);
+
+    /**
+     * Given a permit when the message being written has gone, or failed to
+     */
+    private final Semaphore writeDone = new Semaphore(0);
+
+    /**
+     * The message being written, or null if there is none
+     */
+    private volatile OutboundQueue.Pending writing;
+
+    /**
+     * The listeners told when the state of the connection changes
+     */
+    private final List<ConnectionStateListener> stateListeners = new CopyOnWriteArrayList<>();
 
     /**
-     * Create a new communicator to the given web socket server
+     * Guards the state of the connection
+     */
+    private final ReentrantLock connection = new ReentrantLock();
+
+    /**
+     * Signalled when connected
+     */
+    private final Condition connected = connection.newCondition();
+
+    /**
+     * The state of the connection
+     */
+    private volatile ConnectionState state = ConnectionState.CONNECTING;
+
+    /**
+     * The number of attempts to connect since the last connection was made
+     */
+    private int attempts;
+
+    /**
+     * Whether an attempt to connect again is waiting to be made
+     */
+    private boolean reconnectScheduled;
+
+    /**
+     * The server to connect to
+     */
+    private final String server;
+
+    /**
+     * Creates the sockets
+     */
+    private final WebSocketFactory socketFactory = new WebSocketFactory().setConnectionTimeout(CONNECT_TIMEOUT);
+
+    /**
+     * The nickname last written, to set again after connecting again, or null if none has been
+     */
+    private volatile String nickname;
+
+    /**
+     * The channel last joined or created, to join again after connecting again, or null if not in one
+     */
+    private volatile String channel;
+
+    private volatile WebSocket ws = null;
+
+    /**
+     * Writes the waiting messages
+     */
+    private final Thread writer;
+
+    /**
+     * Whether the communicator has been closed, after which it never connects again
+     */
+    private volatile boolean closed;
+
+    /**
+     * Create a new communicator to the given web socket server. The connection is made in the background, and
+     * messages sent before it has been made are written once it has.
      *
      * @param server server to connect to
      */
     public Communicator(String server) {
+        this.server = server;
+
+        //Write messages from a thread of our own
+        writer = new Thread(this::write, "communicator-writer");
+        writer.setDaemon(true);
+        writer.start();
+        QUEUES.add(outbound);
 
+        connect();
+    }
+
+    /**
+     * Close the communicator for good: stop the writer, drop any attempt to connect again and disconnect. Messages
+     * still waiting are not written.
+     */
+    public void close() {
+        WebSocket socket;
+        connection.lock();
         try {
-            var socketFactory = new WebSocketFactory();
+            closed = true;
+            socket = ws;
+        } finally {
+            connection.unlock();
+        }
+        writer.interrupt();
+        QUEUES.remove(outbound);
+
+        if(socket != null) {
+            socket.disconnect();
+        }
+        logger.info("Closed connection to {}", server);
+    }
 
-            //Connect to the server
-            ws = socketFactory.createSocket(server);
-            ws.connect();
-            logger.info("Connected to " + server);
+    /**
+     * Start connecting to the server with a new socket, unless closed
+     */
+    private void connect() {
+        if(closed) {
+            return;
+        }
+        try {
+            var socket = socketFactory.createSocket(server);
 
             //When a message is received, call the receive method
-            ws.addListener(new WebSocketAdapter() {
+            socket.addListener(new WebSocketAdapter() {
+                @Override
+                public void onConnected(WebSocket websocket, Map<String, List<String>> headers) throws Exception {
+                    Communicator.this.connected(websocket);
+                }
+                @Override
+                public void onConnectError(WebSocket websocket, WebSocketException e) throws Exception {
+                    logger.error("Unable to connect to {}: {}", server, e.getMessage());
+                    reconnect(websocket);
+                }
+                @Override
+                public void onDisconnected(WebSocket websocket, WebSocketFrame serverCloseFrame,
+                    WebSocketFrame clientCloseFrame, boolean closedByServer) throws Exception {
+                    //Disconnecting is only an error when the communicator was not closed
+                    if(closed) {
+                        return;
+                    }
+                    logger.error("Disconnected from {}", server);
+                    reconnect(websocket);
+                }
                 @Override
                 public void onTextMessage(WebSocket websocket, String message) throws Exception {
                     Communicator.this.receive(websocket, message);
@@ -50,10 +271,22 @@ public class Communicator {
                 public void onPingFrame(WebSocket webSocket, WebSocketFrame webSocketFrame) throws Exception {
                     logger.info("Ping? Pong!");
                 }
+                @Override
+                public void onFrameSent(WebSocket websocket, WebSocketFrame frame) throws Exception {
+                    if(frame.isTextFrame()) {
+                        written(true);
+                    }
+                }
+                @Override
+                public void onFrameUnsent(WebSocket websocket, WebSocketFrame frame) throws Exception {
+                    if(frame.isTextFrame()) {
+                        written(false);
+                    }
+                }
             });
 
             //Error handling
-            ws.addListener(new WebSocketAdapter() {
+            socket.addListener(new WebSocketAdapter() {
                 @Override
                 public void onTextMessage(WebSocket websocket, String message) throws Exception {
                     if(message.startsWith("ERROR")) {
@@ -68,28 +301,265 @@ public class Communicator {
                 @Override
                 public void onError(WebSocket webSocket, WebSocketException e) throws Exception {
                     logger.error("Error:" + e.getMessage());
-                    e.printStackTrace();
                 }
             });
 
-        } catch (Exception e){
-            logger.error("Socket error: " + e.getMessage());
-            e.printStackTrace();
+            //A socket made while closing is not connected
+            connection.lock();
+            try {
+                if(closed) {
+                    return;
+                }
+                ws = socket;
+                socket.connectAsynchronously();
+            } finally {
+                connection.unlock();
+            }
+        } catch (IOException e) {
+            logger.error("Socket error: {}", e.getMessage());
+            reconnect(ws);
+        }
+    }
+
+    /**
+     * Once connected, let the waiting messages be written. The writer sets the nickname and channel again first.
+     *
+     * @param websocket the socket which has connected
+     */
+    private void connected(WebSocket websocket) {
+        logger.info("Connected to {}", server);
 
-            Alert error = new Alert(Alert.AlertType.ERROR,"Unable to communicate with the TetrECS server\n\n" + e.getMessage() + "\n\nPlease ensure you are connected to the VPN");
-            error.showAndWait();
-            System.exit(1);
+        connection.lock();
+        try {
+            attempts = 0;
+            setState(ConnectionState.CONNECTED);
+            connected.signalAll();
+        } finally {
+            connection.unlock();
         }
     }
 
+    /**
+     * Connect again after a backoff, when a socket could not connect or has been disconnected. The backoff is
+     * picked at random from the upper half of a range which doubles with each attempt.
+     *
+     * @param websocket the socket which failed
+     */
+    private void reconnect(WebSocket websocket) {
+        long backoff;
+        connection.lock();
+        try {
+            //Only the current socket failing matters, and only once, unless closed
+            if(closed || websocket != ws || reconnectScheduled) {
+                return;
+            }
+            reconnectScheduled = true;
+            var ceiling = Math.min(RECONNECT_MAX, RECONNECT_BASE << Math.min(attempts++, 16));
+            backoff = ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+            setState(ConnectionState.RECONNECTING);
+        } finally {
+            connection.unlock();
+        }
+
+        logger.info("Connecting again in {}ms", backoff);
+        TimerService.shared().schedule(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoff), () -> {
+            connection.lock();
+            try {
+                reconnectScheduled = false;
+            } finally {
+                connection.unlock();
+            }
+            connect();
+        });
+    }
+
+    /**
+     * Change the state of the connection and tell the listeners, if it has changed
+     *
+     * @param state the new state
+     */
+    private void setState(ConnectionState state) {
+        if(this.state == state) {
+            return;
+        }
+        this.state = state;
+        for(ConnectionStateListener listener : stateListeners) {
+            listener.connectionStateChanged(state);
+        }
+    }
+
+    /**
+     * Get the state of the connection
+     *
+     * @return the state
+     */
+    public ConnectionState getState() {
+        return state;
+    }
+
+    /**
+     * Add a listener to be told when the state of the connection changes
+     *
+     * @param listener the listener to add
+     */
+    public void addStateListener(ConnectionStateListener listener) {
+        this.stateListeners.add(listener);
+    }
+
     /** Send a message to the server
      *
      * @param message Message to send
+     * @return false if the message was dropped because too many are waiting
      */
-    public void send(String message) {
-        logger.info("Sending message: " + message);
+    public boolean send(String message) {
+        logger.info("Sending message: {}", message);
+        var type = messageType(message);
+
+        //The event is committed once the message has gone
+        var event = new MessageSentEvent();
+        if(event.isEnabled()) {
+            event.begin();
+            event.type = type;
+            event.size = message.length();
+        } else {
+            event = null;
+        }
 
-        ws.sendText(message);
+        switch (outbound.offer(message, type, event)) {
+            case COALESCED -> MESSAGES_COALESCED.increment();
+            case DROPPED -> {
+                MESSAGES_DROPPED.increment();
+                logger.error("Too many messages waiting to be sent, dropping: {}", message);
+                return false;
+            }
+            default -> {
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Write the waiting messages one at a time, each once the last has gone, so newer boards and scores
+     * replace older ones while the connection is slow. While disconnected, nothing is written. Only the writer
+     * writes to the socket, so the word on each message written is about that message.
+     */
+    private void write() {
+        WebSocket joined = null;
+        try {
+            while(true) {
+                var pending = outbound.take();
+                var socket = awaitConnected();
+
+                //On a new connection, set the nickname and channel again before anything waiting is written
+                if(socket != joined) {
+                    joined = socket;
+                    if(nickname != null || channel != null) {
+                        outbound.putBack(pending);
+                        rejoin();
+                        continue;
+                    }
+                }
+
+                WAIT.record((System.nanoTime() - pending.getQueued()) / 1000);
+                MESSAGES_OUT.increment();
+
+                //Forget any word on a message that was given up on
+                writeDone.drainPermits();
+                writing = pending;
+                socket.sendText(pending.getMessage());
+                if(!writeDone.tryAcquire(WRITE_TIMEOUT, TimeUnit.SECONDS)) {
+                    logger.warn("No word on message being written, writing the next: {}", pending.getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Put the messages setting the nickname and channel again at the front of the queue, for those which have
+     * been set
+     */
+    private void rejoin() {
+        var nickname = this.nickname;
+        var channel = this.channel;
+        //Added to the front, so the channel is joined after the nickname is set
+        if(channel != null) {
+            logger.info("Rejoining {}", channel);
+            outbound.offerFirst("JOIN " + channel, "JOIN");
+        }
+        if(nickname != null) {
+            outbound.offerFirst("NICK " + nickname, "NICK");
+        }
+    }
+
+    /**
+     * Wait until connected
+     *
+     * @return the connected socket
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private WebSocket awaitConnected() throws InterruptedException {
+        connection.lock();
+        try {
+            while(state != ConnectionState.CONNECTED) {
+                connected.await();
+            }
+            return ws;
+        } finally {
+            connection.unlock();
+        }
+    }
+
+    /**
+     * Remember the nickname and channel as they are written, to set them again after connecting again
+     *
+     * @param type the type of the message written
+     * @param message the message written
+     */
+    private void remember(String type, String message) {
+        var argument = message.substring(Math.min(message.length(), type.length() + 1));
+        switch (type) {
+            case "NICK" -> nickname = argument;
+            case "JOIN", "CREATE" -> channel = argument;
+            case "PART" -> channel = null;
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Let the writer go on once the message being written has gone or failed to, and commit its event. A
+     * message which failed to go is put back at the front of the queue, to be written once connected again.
+     *
+     * @param written true if the message was written
+     */
+    private void written(boolean written) {
+        var pending = writing;
+        writing = null;
+        if(pending != null && pending.getEvent() != null) {
+            var event = pending.getEvent();
+            event.written = written;
+            event.commit();
+        }
+        if(pending != null) {
+            if(written) {
+                remember(pending.getType(), pending.getMessage());
+            } else {
+                outbound.retry(pending);
+            }
+        }
+        writeDone.release();
+    }
+
+    /**
+     * Get the type of a message, its first word
+     *
+     * @param message the message
+     * @return the type
+     */
+    private static String messageType(String message) {
+        return message.substring(0, MessageDecoder.typeEnd(message));
     }
 
     /**
@@ -100,11 +570,25 @@ public class Communicator {
         this.handlers.add(listener);
     }
 
+    /**
+     * Subscribe a listener to one type of message from the server
+     *
+     * @param type the type of message
+     * @param listener the listener to call with each message of that type
+     * @param <M> the type of message
+     */
+    @SuppressWarnings("unchecked")
+    public <M extends Message> void subscribe(Class<M> type, Consumer<? super M> listener) {
+        subscribers.computeIfAbsent(type, key -> new CopyOnWriteArrayList<>()).add((Consumer<Message>) listener);
+    }
+
     /**
      * Clear all current listeners
      */
     public void clearListeners() {
         this.handlers.clear();
+        this.subscribers.clear();
+        this.stateListeners.clear();
     }
 
     /** Receive a message from the server. Relay to any attached listeners
@@ -113,11 +597,36 @@ public class Communicator {
      * @param message the message that was received
      */
     private void receive(WebSocket websocket, String message) {
-        logger.info("Received: " + message);
+        logger.info("Received: {}", message);
+        MESSAGES_IN.increment();
 
+        var event = new MessageReceivedEvent();
+        event.begin();
+
+        var relayed = handlers.size();
         for(CommunicationsListener handler : handlers) {
             handler.receiveCommunication(message);
         }
+
+        //Parse the message once, and only if anything is subscribed to its type
+        var type = messageType(message);
+        var listeners = subscribers.get(MessageDecoder.recordOf(type));
+        if(listeners != null && !listeners.isEmpty()) {
+            var decoded = MessageDecoder.decode(message);
+            if(decoded != null) {
+                relayed += listeners.size();
+                for(Consumer<Message> listener : listeners) {
+                    listener.accept(decoded);
+                }
+            }
+        }
+
+        if(event.shouldCommit()) {
+            event.type = type;
+            event.size = message.length();
+            event.listeners = relayed;
+            event.commit();
+        }
     }
 
 }
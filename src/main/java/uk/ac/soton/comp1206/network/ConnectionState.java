@@ -0,0 +1,23 @@
+package uk.ac.soton.comp1206.network;
+
+/**
+ * The state of the Communicator's connection to the server
+ */
+public enum ConnectionState {
+
+  /**
+   * Connecting to the server for the first time
+   */
+  CONNECTING,
+
+  /**
+   * Connected, with messages being written as they are sent
+   */
+  CONNECTED,
+
+  /**
+   * The connection has been lost and is being made again. Messages sent meanwhile wait until it
+   * is back.
+   */
+  RECONNECTING
+}
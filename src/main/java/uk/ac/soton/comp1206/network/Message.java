@@ -0,0 +1,123 @@
+package uk.ac.soton.comp1206.network;
+
+import java.util.List;
+
+/**
+ * A Message is a message received from the server, parsed once by the {@link MessageDecoder} into
+ * a record of its type. Listeners subscribe to the types they handle with
+ * {@link Communicator#subscribe(Class, java.util.function.Consumer)}, rather than checking the
+ * start of every message themselves.
+ */
+public sealed interface Message {
+
+  /**
+   * A piece dealt by the server
+   *
+   * @param value the value of the piece
+   */
+  record Piece(int value) implements Message {
+
+  }
+
+  /**
+   * The scores of the players in the game
+   *
+   * @param scores each player's score, in the order the server sent them
+   */
+  record Scores(List<PlayerScore> scores) implements Message {
+
+  }
+
+  /**
+   * The score of a player in the game
+   *
+   * @param name  the player's name
+   * @param score the player's score
+   * @param lives the player's lives, or DEAD
+   */
+  record PlayerScore(String name, int score, String lives) {
+
+  }
+
+  /**
+   * The channels which can be joined
+   *
+   * @param channels the names of the channels
+   */
+  record Channels(List<String> channels) implements Message {
+
+  }
+
+  /**
+   * The users in the current channel
+   *
+   * @param users the names of the users
+   */
+  record Users(List<String> users) implements Message {
+
+  }
+
+  /**
+   * A chat message
+   *
+   * @param player the player who sent it
+   * @param text   the text of the message
+   */
+  record Msg(String player, String text) implements Message {
+
+  }
+
+  /**
+   * An error the server has reported
+   *
+   * @param text the error
+   */
+  record Error(String text) implements Message {
+
+  }
+
+  /**
+   * The game in the current channel has started
+   */
+  record Start() implements Message {
+
+  }
+
+  /**
+   * The online high scores
+   *
+   * @param scores each high score, best first
+   */
+  record HiScores(List<HiScore> scores) implements Message {
+
+  }
+
+  /**
+   * An online high score
+   *
+   * @param name  the player's name
+   * @param score the score
+   */
+  record HiScore(String name, int score) {
+
+  }
+
+  /**
+   * The extra features the server understands
+   *
+   * @param features the names of the features
+   */
+  record Features(List<String> features) implements Message {
+
+  }
+
+  /**
+   * Any other message, left as it came
+   *
+   * @param type the type of the message, its first word
+   * @param body the rest of the message
+   */
+  record Other(String type, String body) implements Message {
+
+  }
+}
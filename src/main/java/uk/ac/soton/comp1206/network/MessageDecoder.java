@@ -0,0 +1,221 @@
+package uk.ac.soton.comp1206.network;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The MessageDecoder parses messages received from the server into {@link Message} records.
+ * <p>
+ * The type of a message is its first word. The decoder for each type is found in a table, and
+ * the rest of the message is tokenised by walking along it with indexOf, rather than splitting
+ * it, so each line or field costs only the string taken out of it.
+ * <p>
+ * A malformed message from the server is never thrown over: lines of scores which cannot be parsed
+ * are left out, and any other message which cannot be parsed is dropped, with a warning.
+ */
+public final class MessageDecoder {
+
+  private static final Logger logger = LogManager.getLogger(MessageDecoder.class);
+
+  /**
+   * Parses one type of message into its record
+   *
+   * @param record the class of record the messages are parsed into
+   * @param parse  parses the body of a message
+   */
+  private record Decoder(Class<? extends Message> record, Function<String, Message> parse) {
+  }
+
+  /**
+   * The decoder for each type of message
+   */
+  private static final Map<String, Decoder> DECODERS = Map.of(
+      "PIECE", new Decoder(Message.Piece.class,
+          body -> new Message.Piece(Integer.parseInt(body.trim()))),
+      "SCORES", new Decoder(Message.Scores.class, MessageDecoder::scores),
+      "CHANNELS", new Decoder(Message.Channels.class, body -> new Message.Channels(lines(body))),
+      "USERS", new Decoder(Message.Users.class, body -> new Message.Users(lines(body))),
+      "MSG", new Decoder(Message.Msg.class, MessageDecoder::msg),
+      "ERROR", new Decoder(Message.Error.class, Message.Error::new),
+      "START", new Decoder(Message.Start.class, body -> new Message.Start()),
+      "HISCORES", new Decoder(Message.HiScores.class, MessageDecoder::hiScores),
+      "FEATURES", new Decoder(Message.Features.class, MessageDecoder::features));
+
+  /**
+   * Not to be created
+   */
+  private MessageDecoder() {
+  }
+
+  /**
+   * Parse a message from the server
+   *
+   * @param message the message
+   * @return the parsed message, which is {@link Message.Other} if its type is not known, or null if
+   *     it is malformed
+   */
+  public static Message decode(String message) {
+    var end = typeEnd(message);
+    var type = message.substring(0, end);
+    var body = end < message.length() ? message.substring(end + 1) : "";
+
+    var decoder = DECODERS.get(type);
+    if (decoder == null) {
+      return new Message.Other(type, body);
+    }
+    try {
+      return decoder.parse().apply(body);
+    } catch (NumberFormatException e) {
+      logger.warn("Dropping malformed message from the server: {}", message);
+      return null;
+    }
+  }
+
+  /**
+   * Get the class of record a type of message is parsed into, so a message need only be parsed if
+   * anything is listening for it
+   *
+   * @param type the type of message, its first word
+   * @return the class of record, which is {@link Message.Other} if the type is not known
+   */
+  public static Class<? extends Message> recordOf(String type) {
+    var decoder = DECODERS.get(type);
+    return decoder == null ? Message.Other.class : decoder.record();
+  }
+
+  /**
+   * Find where the type of a message ends, at the first space or line break
+   *
+   * @param message the message
+   * @return the index after the last character of the type
+   */
+  public static int typeEnd(String message) {
+    for (int i = 0; i < message.length(); i++) {
+      var c = message.charAt(i);
+      if (c == ' ' || c == '\n') {
+        return i;
+      }
+    }
+    return message.length();
+  }
+
+  /**
+   * Split a body into its lines, leaving out empty ones
+   *
+   * @param body the body
+   * @return the lines
+   */
+  private static List<String> lines(String body) {
+    List<String> lines = new ArrayList<>();
+    var start = 0;
+    while (start < body.length()) {
+      var end = body.indexOf('\n', start);
+      if (end < 0) {
+        end = body.length();
+      }
+      if (end > start) {
+        lines.add(body.substring(start, end));
+      }
+      start = end + 1;
+    }
+    return lines;
+  }
+
+  /**
+   * Parse a chat message, sent as player:text
+   *
+   * @param body the body
+   * @return the chat message
+   */
+  private static Message msg(String body) {
+    var colon = body.indexOf(':');
+    if (colon < 0) {
+      return new Message.Msg("", body);
+    }
+    return new Message.Msg(body.substring(0, colon), body.substring(colon + 1));
+  }
+
+  /**
+   * Parse the players' scores, one name:score:lives per line
+   *
+   * @param body the body
+   * @return the scores
+   */
+  private static Message scores(String body) {
+    List<Message.PlayerScore> scores = new ArrayList<>();
+    for (String line : lines(body)) {
+      var first = line.indexOf(':');
+      var second = first < 0 ? -1 : line.indexOf(':', first + 1);
+      if (second < 0 || !isNumber(line, first + 1, second)) {
+        logger.warn("Leaving out malformed score from the server: {}", line);
+        continue;
+      }
+      scores.add(new Message.PlayerScore(line.substring(0, first),
+          Integer.parseInt(line, first + 1, second, 10), line.substring(second + 1)));
+    }
+    return new Message.Scores(scores);
+  }
+
+  /**
+   * Parse the high scores, one name:score per line
+   *
+   * @param body the body
+   * @return the high scores
+   */
+  private static Message hiScores(String body) {
+    List<Message.HiScore> scores = new ArrayList<>();
+    for (String line : lines(body)) {
+      var colon = line.indexOf(':');
+      if (colon < 0 || !isNumber(line, colon + 1, line.length())) {
+        logger.warn("Leaving out malformed high score from the server: {}", line);
+        continue;
+      }
+      scores.add(new Message.HiScore(line.substring(0, colon),
+          Integer.parseInt(line, colon + 1, line.length(), 10)));
+    }
+    return new Message.HiScores(scores);
+  }
+
+  /**
+   * Check whether part of a line is a number which fits in an int
+   *
+   * @param line  the line
+   * @param start the index the number starts at
+   * @param end   the index after the number
+   * @return true if it is a number
+   */
+  private static boolean isNumber(String line, int start, int end) {
+    try {
+      Integer.parseInt(line, start, end, 10);
+      return true;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Parse the features a server understands, separated by spaces
+   *
+   * @param body the body
+   * @return the features
+   */
+  private static Message features(String body) {
+    List<String> features = new ArrayList<>();
+    var start = 0;
+    while (start < body.length()) {
+      var end = body.indexOf(' ', start);
+      if (end < 0) {
+        end = body.length();
+      }
+      if (end > start) {
+        features.add(body.substring(start, end));
+      }
+      start = end + 1;
+    }
+    return new Message.Features(features);
+  }
+}
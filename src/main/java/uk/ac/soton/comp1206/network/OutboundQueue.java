@@ -0,0 +1,322 @@
+package uk.ac.soton.comp1206.network;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import uk.ac.soton.comp1206.jfr.MessageSentEvent;
+
+/**
+ * The OutboundQueue holds the messages waiting to be written to the server. Any number of threads
+ * can add messages without blocking and one writer takes them.
+ * <p>
+ * Some messages only say what the latest state is, such as a BOARD or SCORE. Only the newest of
+ * each of these types is kept: a new one replaces the one waiting, in its place in the queue, so a
+ * slow connection sends the latest board rather than falling behind. Every other message, such as
+ * PIECE, DIE or a chat message, is kept and sent in order.
+ * <p>
+ * A BOARDDELTA is applied on top of the boards before it, so once one is waiting a newer BOARD no
+ * longer replaces a BOARD waiting ahead of it, which would send the newer board before the delta,
+ * but is added behind it instead.
+ * <p>
+ * The queue is bounded. Coalesced messages never take more than one place each, so it only fills
+ * if the connection stops taking messages altogether, such as while it is being made again, and
+ * messages offered while it is full are dropped.
+ */
+public class OutboundQueue {
+
+  /**
+   * The types of message of which only the newest matters
+   */
+  public static final Set<String> COALESCED_TYPES = Set.of("BOARD", "SCORE");
+
+  /**
+   * The type of message applied on top of the BOARD before it
+   */
+  private static final String DELTA_TYPE = "BOARDDELTA";
+
+  /**
+   * The type of message a delta is applied on top of
+   */
+  private static final String BOARD_TYPE = "BOARD";
+
+  /**
+   * A message waiting to be written
+   */
+  public static final class Pending {
+
+    /**
+     * The message
+     */
+    private String message;
+
+    /**
+     * The type of the message, its first word
+     */
+    private final String type;
+
+    /**
+     * When the message was queued, on the {@link System#nanoTime()} clock
+     */
+    private long queued;
+
+    /**
+     * The flight recorder event timing the message, or null if it is not being recorded
+     */
+    private MessageSentEvent event;
+
+    /**
+     * Create a waiting message
+     *
+     * @param message the message
+     * @param type    the type of the message
+     * @param event   the flight recorder event, or null
+     */
+    private Pending(String message, String type, MessageSentEvent event) {
+      this.message = message;
+      this.type = type;
+      this.queued = System.nanoTime();
+      this.event = event;
+    }
+
+    /**
+     * Get the message
+     *
+     * @return the message
+     */
+    public String getMessage() {
+      return message;
+    }
+
+    /**
+     * Get the type of the message
+     *
+     * @return the type, its first word
+     */
+    public String getType() {
+      return type;
+    }
+
+    /**
+     * Get when the message was queued
+     *
+     * @return the {@link System#nanoTime()} it was queued at
+     */
+    public long getQueued() {
+      return queued;
+    }
+
+    /**
+     * Get the flight recorder event timing the message
+     *
+     * @return the event, or null if it is not being recorded
+     */
+    public MessageSentEvent getEvent() {
+      return event;
+    }
+  }
+
+  /**
+   * Guards the queue
+   */
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /**
+   * Signalled when a message is added
+   */
+  private final Condition notEmpty = lock.newCondition();
+
+  /**
+   * The messages waiting, in order
+   */
+  private final ArrayDeque<Pending> queue;
+
+  /**
+   * The waiting message of each coalesced type, if there is one
+   */
+  private final Map<String, Pending> latest = new HashMap<>();
+
+  /**
+   * The most messages that can wait
+   */
+  private final int capacity;
+
+  /**
+   * Create an empty queue
+   *
+   * @param capacity the most messages that can wait
+   */
+  public OutboundQueue(int capacity) {
+    this.capacity = capacity;
+    this.queue = new ArrayDeque<>(capacity);
+  }
+
+  /**
+   * Add a message to the queue, replacing a waiting message of the same type if only the newest of
+   * its type matters
+   *
+   * @param message the message
+   * @param type    the type of the message, its first word
+   * @param event   a flight recorder event timing the message, or null
+   * @return how the message was queued
+   */
+  public Offer offer(String message, String type, MessageSentEvent event) {
+    lock.lock();
+    try {
+      var coalesce = COALESCED_TYPES.contains(type);
+      if (coalesce) {
+        var waiting = latest.get(type);
+        if (waiting != null) {
+          waiting.message = message;
+          waiting.queued = System.nanoTime();
+          waiting.event = event;
+          return Offer.COALESCED;
+        }
+      }
+
+      if (queue.size() >= capacity) {
+        return Offer.DROPPED;
+      }
+      var pending = new Pending(message, type, event);
+      queue.add(pending);
+      if (coalesce) {
+        latest.put(type, pending);
+      } else if (type.equals(DELTA_TYPE)) {
+        //A newer board must not jump ahead of this delta
+        latest.remove(BOARD_TYPE);
+      }
+      notEmpty.signal();
+      return Offer.QUEUED;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Take the next message, waiting for one if the queue is empty
+   *
+   * @return the message
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public Pending take() throws InterruptedException {
+    lock.lock();
+    try {
+      while (queue.isEmpty()) {
+        notEmpty.await();
+      }
+      var pending = queue.poll();
+      latest.values().remove(pending);
+      return pending;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Put a message which failed to be written back at the front of the queue, unless a newer message
+   * of the same type is waiting to replace it. Its flight recorder event has already been committed,
+   * so is dropped.
+   *
+   * @param pending the message taken
+   */
+  public void retry(Pending pending) {
+    lock.lock();
+    try {
+      pending.event = null;
+      putBack(pending);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Put a message taken but not written back at the front of the queue, unless a newer message of
+   * the same type is waiting to replace it
+   *
+   * @param pending the message taken
+   */
+  public void putBack(Pending pending) {
+    lock.lock();
+    try {
+      var coalesce = COALESCED_TYPES.contains(pending.type);
+      if (coalesce && latest.containsKey(pending.type)) {
+        return;
+      }
+      queue.addFirst(pending);
+      //A board put back ahead of a waiting delta must not be replaced by a newer one
+      if (coalesce && !(pending.type.equals(BOARD_TYPE) && isDeltaWaiting())) {
+        latest.put(pending.type, pending);
+      }
+      notEmpty.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Add a message to the front of the queue, to be written before any waiting, however many are
+   *
+   * @param message the message
+   * @param type    the type of the message, its first word, which must not be coalesced
+   */
+  public void offerFirst(String message, String type) {
+    lock.lock();
+    try {
+      queue.addFirst(new Pending(message, type, null));
+      notEmpty.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Check whether a BOARDDELTA is waiting. Only called with the lock held.
+   *
+   * @return true if one is waiting
+   */
+  private boolean isDeltaWaiting() {
+    for (Pending pending : queue) {
+      if (pending.type.equals(DELTA_TYPE)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Get the number of messages waiting
+   *
+   * @return the number of messages
+   */
+  public int size() {
+    lock.lock();
+    try {
+      return queue.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * How a message offered to the queue was handled
+   */
+  public enum Offer {
+
+    /**
+     * Added to the end of the queue
+     */
+    QUEUED,
+
+    /**
+     * Replaced a waiting message of the same type
+     */
+    COALESCED,
+
+    /**
+     * Dropped because the queue was full
+     */
+    DROPPED
+  }
+}
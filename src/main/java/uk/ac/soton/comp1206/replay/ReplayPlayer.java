@@ -0,0 +1,391 @@
+package uk.ac.soton.comp1206.replay;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.engine.Board;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.GameEngineListener;
+import uk.ac.soton.comp1206.engine.GamePiece;
+import uk.ac.soton.comp1206.engine.ManualGameTimer;
+
+/**
+ * A ReplayPlayer re-runs a log written by a ReplayWriter through a GameEngine, so the game plays
+ * out again exactly as it was recorded, telling the engine's listener about everything that
+ * happens.
+ * <p>
+ * The engine draws its pieces from the spawns in the log rather than from the seed, so multiplayer
+ * games, whose pieces came from the server, replay the same way as single player games. A piece is
+ * spawned during the move that needs it but only logged after that move, so the spawns are read by
+ * a second cursor running ahead of the events.
+ * <p>
+ * The engine runs on a ManualGameTimer, so timer expiries happen when the log says they did rather
+ * than when time runs out. A replay can be played at any speed, or stepped through one event at a
+ * time as fast as possible.
+ */
+public class ReplayPlayer {
+
+  private static final Logger logger = LogManager.getLogger(ReplayPlayer.class);
+
+  /**
+   * Reads the events being played
+   */
+  private final ByteBuffer events;
+
+  /**
+   * Reads ahead to the pieces spawned, positioned after the last one taken
+   */
+  private final ByteBuffer spawns;
+
+  /**
+   * Number of columns on the board
+   */
+  private final int cols;
+
+  /**
+   * Number of rows on the board
+   */
+  private final int rows;
+
+  /**
+   * The seed of the recorded game
+   */
+  private final long seed;
+
+  /**
+   * The wall clock time the recorded game started, in milliseconds since the epoch
+   */
+  private final long startTime;
+
+  /**
+   * The timer of the engine, expired by the log
+   */
+  private final ManualGameTimer timer = new ManualGameTimer();
+
+  /**
+   * The engine the game is replayed on
+   */
+  private final GameEngine engine;
+
+  /**
+   * The number of events played
+   */
+  private int played;
+
+  /**
+   * Whether the end of the log has been reached
+   */
+  private boolean finished;
+
+  /**
+   * Create a player for a replay log, replaying on a board of its own
+   *
+   * @param log the log, from its position to its limit
+   */
+  public ReplayPlayer(ByteBuffer log) {
+    this(log, null);
+  }
+
+  /**
+   * Create a player for a replay log
+   *
+   * @param log   the log, from its position to its limit
+   * @param board the empty board to replay on, or null to create one
+   */
+  public ReplayPlayer(ByteBuffer log, Board board) {
+    events = log.duplicate();
+    if (events.remaining() < 5 || events.getInt() != ReplayWriter.MAGIC) {
+      throw new IllegalArgumentException("Not a replay log");
+    }
+    var version = events.get();
+    if (version != ReplayWriter.VERSION) {
+      throw new IllegalArgumentException("Unsupported replay version " + version);
+    }
+    cols = (int) getVarint(events);
+    rows = (int) getVarint(events);
+    seed = events.getLong();
+    startTime = events.getLong();
+    spawns = events.duplicate();
+
+    if (board == null) {
+      board = new Board(cols, rows);
+    } else if (board.getCols() != cols || board.getRows() != rows) {
+      throw new IllegalArgumentException(
+          "Replay is for a " + cols + "x" + rows + " board, not " + board.getCols() + "x"
+              + board.getRows());
+    }
+    engine = new GameEngine(board, this::takeSpawn, timer, timer);
+  }
+
+  /**
+   * Create a player for a replay log file, reading the whole file into memory
+   *
+   * @param file the file
+   * @return the player
+   * @throws IOException if the file cannot be read
+   */
+  public static ReplayPlayer open(Path file) throws IOException {
+    try (var channel = FileChannel.open(file)) {
+      var log = ByteBuffer.allocate((int) channel.size());
+      while (log.hasRemaining() && channel.read(log) >= 0) {
+        //Keep reading until the buffer is full
+      }
+      return new ReplayPlayer(log.flip());
+    }
+  }
+
+  /**
+   * Set the listener told about everything that happens as the game is replayed
+   *
+   * @param listener listener to set
+   */
+  public void setListener(GameEngineListener listener) {
+    engine.setListener(listener);
+  }
+
+  /**
+   * Play the whole replay on the calling thread
+   *
+   * @param speed how many times faster than it was recorded to play, or
+   *              {@link Double#POSITIVE_INFINITY} to play as fast as possible
+   * @throws InterruptedException if interrupted while waiting for the next event
+   */
+  public void play(double speed) throws InterruptedException {
+    if (!(speed > 0)) {
+      throw new IllegalArgumentException("Replay speed must be positive");
+    }
+    while (!finished) {
+      if (speed != Double.POSITIVE_INFINITY) {
+        var wait = (long) (peekDelta() / speed * 1_000_000);
+        if (wait > 0) {
+          TimeUnit.NANOSECONDS.sleep(wait);
+        }
+      }
+      step();
+    }
+  }
+
+  /**
+   * Play the next event
+   *
+   * @return true if an event was played, false if the end of the log has been reached
+   */
+  public boolean step() {
+    if (finished) {
+      return false;
+    }
+    if (played == 0) {
+      //The timer was started as the recorded game started
+      engine.startTimer();
+    }
+
+    try {
+      var position = events.position();
+      var opcode = events.get();
+      getVarint(events);
+
+      switch (opcode) {
+        case ReplayWriter.SPAWN:
+          getVarint(events);
+          //Pieces dealt outside of a move, such as the first ones, have not been taken yet
+          if (spawns.position() <= position) {
+            engine.nextPiece();
+          }
+          break;
+        case ReplayWriter.ROTATE:
+          var rotation = (int) getVarint(events);
+          engine.rotateCurrentPiece(Math.floorMod(
+              rotation - engine.getCurrentPiece().getRotation(), GamePiece.ROTATIONS));
+          break;
+        case ReplayWriter.SWAP:
+          engine.swapCurrentPiece();
+          break;
+        case ReplayWriter.PLACE:
+          var x = (int) getVarint(events);
+          var y = (int) getVarint(events);
+          if (!engine.playPiece(x, y)) {
+            throw new IllegalStateException("Replay placement at " + x + " " + y + " did not fit");
+          }
+          break;
+        case ReplayWriter.EXPIRE:
+          timer.expire();
+          break;
+        case ReplayWriter.END:
+          finish();
+          return false;
+        default:
+          throw new IllegalStateException("Unknown replay event " + opcode);
+      }
+    } catch (BufferUnderflowException e) {
+      //The recording was cut off, for example by the game crashing
+      logger.warn("Replay ends without an end marker");
+      finish();
+      return false;
+    }
+
+    played++;
+    return true;
+  }
+
+  /**
+   * Get the milliseconds between the last event played and the next
+   *
+   * @return the delay, or 0 at the end of the log
+   */
+  private long peekDelta() {
+    var position = events.position();
+    try {
+      events.get();
+      return getVarint(events);
+    } catch (BufferUnderflowException e) {
+      return 0;
+    } finally {
+      events.position(position);
+    }
+  }
+
+  /**
+   * Take the next piece spawned in the log, for the engine
+   *
+   * @return the piece
+   */
+  private GamePiece takeSpawn() {
+    while (spawns.hasRemaining()) {
+      var opcode = spawns.get();
+      getVarint(spawns);
+      switch (opcode) {
+        case ReplayWriter.SPAWN:
+          return GamePiece.createPiece((int) getVarint(spawns));
+        case ReplayWriter.ROTATE:
+          getVarint(spawns);
+          break;
+        case ReplayWriter.PLACE:
+          getVarint(spawns);
+          getVarint(spawns);
+          break;
+        case ReplayWriter.END:
+          spawns.position(spawns.limit());
+          break;
+        default:
+          break;
+      }
+    }
+    throw new IllegalStateException("Replay has no more pieces");
+  }
+
+  /**
+   * Stop the replay at the end of the log
+   */
+  private void finish() {
+    finished = true;
+    engine.stop();
+  }
+
+  /**
+   * Decode a varint written by a ReplayWriter
+   *
+   * @param buffer the buffer to read from
+   * @return the number
+   */
+  private static long getVarint(ByteBuffer buffer) {
+    var value = 0L;
+    for (var shift = 0; ; shift += 7) {
+      var b = buffer.get();
+      value |= (long) (b & 0x7F) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+  }
+
+  /**
+   * Get the engine the game is replayed on
+   *
+   * @return the engine
+   */
+  public GameEngine getEngine() {
+    return engine;
+  }
+
+  /**
+   * Get the number of columns on the board
+   *
+   * @return number of columns
+   */
+  public int getCols() {
+    return cols;
+  }
+
+  /**
+   * Get the number of rows on the board
+   *
+   * @return number of rows
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * Get the seed of the recorded game
+   *
+   * @return the seed
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * Get the wall clock time the recorded game started
+   *
+   * @return the time in milliseconds since the epoch
+   */
+  public long getStartTime() {
+    return startTime;
+  }
+
+  /**
+   * Get the number of events played so far
+   *
+   * @return number of events
+   */
+  public int getEventsPlayed() {
+    return played;
+  }
+
+  /**
+   * Check if the end of the log has been reached
+   *
+   * @return true if finished
+   */
+  public boolean isFinished() {
+    return finished;
+  }
+
+  /**
+   * Replay log files from the command line as fast as possible and print how each game ended
+   *
+   * @param args the files to replay
+   * @throws IOException if a file cannot be read
+   * @throws InterruptedException never, as nothing waits when playing as fast as possible
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    if (System.getProperty("log4j2.configurationFile") == null) {
+      System.setProperty("log4j2.configurationFile", "log4j2-simulation.xml");
+    }
+
+    for (String arg : args) {
+      var start = System.nanoTime();
+      var player = open(Path.of(arg));
+      player.play(Double.POSITIVE_INFINITY);
+      var engine = player.getEngine();
+      System.out.printf("%s: seed %d, %d events, score %d, level %d, lives %d (%.1fms)%n", arg,
+          player.getSeed(), player.getEventsPlayed(), engine.getScore(), engine.getLevel(),
+          engine.getLives(), (System.nanoTime() - start) / 1e6);
+    }
+  }
+}
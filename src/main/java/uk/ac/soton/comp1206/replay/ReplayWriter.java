@@ -0,0 +1,270 @@
+package uk.ac.soton.comp1206.replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.engine.GameClock;
+import uk.ac.soton.comp1206.engine.GameEngineListener;
+import uk.ac.soton.comp1206.engine.GamePiece;
+
+/**
+ * A ReplayWriter records a game as it is played by listening to its GameEngine, writing every
+ * piece spawned, rotation, swap, placement and timer expiry to a replay log.
+ * <p>
+ * A log starts with a header ({@link #MAGIC}, {@link #VERSION}, the columns and rows as varints,
+ * the seed and the wall clock time the game started as longs). Each event is then an opcode byte,
+ * the milliseconds since the last event as a varint and any operands as varints, so most events
+ * take two or three bytes and a whole game only a few kilobytes. The log ends with
+ * {@link #END}.
+ * <p>
+ * Events are encoded straight into one buffer which is written to the channel whenever it fills
+ * up, so recording creates no objects while the game is played. Like the engine, a writer expects
+ * to be told about events from one thread at a time. If the log cannot be written the recording
+ * is abandoned and the game carries on.
+ */
+public class ReplayWriter implements GameEngineListener, Closeable {
+
+  private static final Logger logger = LogManager.getLogger(ReplayWriter.class);
+
+  /**
+   * The first four bytes of every replay log, "TRPL"
+   */
+  static final int MAGIC = 0x5452504C;
+
+  /**
+   * The version of the log format
+   */
+  static final byte VERSION = 1;
+
+  /**
+   * A piece was taken from the piece source, followed by the piece number
+   */
+  static final byte SPAWN = 1;
+
+  /**
+   * The current piece was rotated, followed by its new rotation
+   */
+  static final byte ROTATE = 2;
+
+  /**
+   * The current and following pieces were swapped
+   */
+  static final byte SWAP = 3;
+
+  /**
+   * The current piece was played, followed by the x and y coordinates
+   */
+  static final byte PLACE = 4;
+
+  /**
+   * The timer ran out before a piece was played
+   */
+  static final byte EXPIRE = 5;
+
+  /**
+   * The end of the log
+   */
+  static final byte END = 6;
+
+  /**
+   * The largest an event can be: an opcode, a delta and two operands
+   */
+  private static final int MAX_EVENT_SIZE = 1 + 10 + 5 + 5;
+
+  /**
+   * The size of the buffer events are encoded into
+   */
+  private static final int BUFFER_SIZE = 4096;
+
+  /**
+   * Where the log is written
+   */
+  private final WritableByteChannel channel;
+
+  /**
+   * Where the time of each event is read from
+   */
+  private final GameClock clock;
+
+  /**
+   * The events waiting to be written
+   */
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+  /**
+   * The time of the last event, in nanoseconds
+   */
+  private long lastEvent;
+
+  /**
+   * Whether the log has been closed or abandoned
+   */
+  private boolean closed;
+
+  /**
+   * Start a replay log for a game
+   *
+   * @param channel where the log is written, closed along with the writer
+   * @param clock   where the time of each event is read from, normally the engine's clock
+   * @param cols    number of columns on the board
+   * @param rows    number of rows on the board
+   * @param seed    the seed of the game
+   * @throws IOException if the header cannot be written
+   */
+  public ReplayWriter(WritableByteChannel channel, GameClock clock, int cols, int rows, long seed)
+      throws IOException {
+    this.channel = channel;
+    this.clock = clock;
+    this.lastEvent = clock.nanoTime();
+
+    buffer.putInt(MAGIC);
+    buffer.put(VERSION);
+    putVarint(cols);
+    putVarint(rows);
+    buffer.putLong(seed);
+    buffer.putLong(System.currentTimeMillis());
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Start a replay log for a game in a new file
+   *
+   * @param file  the file to create
+   * @param clock where the time of each event is read from, normally the engine's clock
+   * @param cols  number of columns on the board
+   * @param rows  number of rows on the board
+   * @param seed  the seed of the game
+   * @return the writer
+   * @throws IOException if the file cannot be created
+   */
+  public static ReplayWriter create(Path file, GameClock clock, int cols, int rows, long seed)
+      throws IOException {
+    var parent = file.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    var channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    try {
+      return new ReplayWriter(channel, clock, cols, rows, seed);
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  @Override
+  public void pieceSpawned(GamePiece piece) {
+    if (event(SPAWN)) {
+      putVarint(piece.getPiece());
+    }
+  }
+
+  @Override
+  public void pieceRotated(GamePiece piece) {
+    if (event(ROTATE)) {
+      putVarint(piece.getRotation());
+    }
+  }
+
+  @Override
+  public void piecesSwapped() {
+    event(SWAP);
+  }
+
+  @Override
+  public void piecePlaced(GamePiece piece, int x, int y) {
+    if (event(PLACE)) {
+      putVarint(x);
+      putVarint(y);
+    }
+  }
+
+  @Override
+  public void timerExpired() {
+    event(EXPIRE);
+  }
+
+  /**
+   * End the log, write out everything left in the buffer and close the channel
+   */
+  @Override
+  public void close() {
+    if (event(END)) {
+      flush();
+    }
+    closed = true;
+    try {
+      channel.close();
+    } catch (IOException e) {
+      logger.error("Unable to close replay", e);
+    }
+  }
+
+  /**
+   * Start encoding an event, writing out the buffer first if the event might not fit
+   *
+   * @param opcode the kind of event
+   * @return true if the event is being recorded, false if the log is closed
+   */
+  private boolean event(byte opcode) {
+    if (closed) {
+      return false;
+    }
+    if (buffer.remaining() < MAX_EVENT_SIZE && !flush()) {
+      return false;
+    }
+
+    var delta = Math.max(0, (clock.nanoTime() - lastEvent) / 1_000_000);
+    buffer.put(opcode);
+    putVarint(delta);
+    //Only move on by whole milliseconds so rounding does not build up over a game
+    lastEvent += delta * 1_000_000;
+    return true;
+  }
+
+  /**
+   * Write out everything in the buffer
+   *
+   * @return true if it was written, false if the log had to be abandoned
+   */
+  private boolean flush() {
+    buffer.flip();
+    try {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      buffer.clear();
+      return true;
+    } catch (IOException e) {
+      logger.error("Unable to write replay, abandoning it", e);
+      closed = true;
+      buffer.clear();
+      return false;
+    }
+  }
+
+  /**
+   * Encode a non-negative number as a varint, seven bits to a byte with the top bit set on every
+   * byte but the last
+   *
+   * @param value the number
+   */
+  private void putVarint(long value) {
+    while ((value & ~0x7FL) != 0) {
+      buffer.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    buffer.put((byte) value);
+  }
+}
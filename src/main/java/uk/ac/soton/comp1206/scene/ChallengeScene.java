@@ -22,12 +22,15 @@ import javafx.util.Duration;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.Multimedia;
+import uk.ac.soton.comp1206.bot.Bot;
+import uk.ac.soton.comp1206.bot.Search;
 import uk.ac.soton.comp1206.component.GameBlock;
 import uk.ac.soton.comp1206.component.GameBlockCoordinate;
 import uk.ac.soton.comp1206.component.GameBoard;
+import uk.ac.soton.comp1206.component.MetricsOverlay;
 import uk.ac.soton.comp1206.component.PieceBoard;
+import uk.ac.soton.comp1206.engine.GamePiece;
 import uk.ac.soton.comp1206.game.Game;
-import uk.ac.soton.comp1206.game.GamePiece;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
 
@@ -38,7 +41,21 @@ import uk.ac.soton.comp1206.ui.GameWindow;
 public class ChallengeScene extends BaseScene {
 
   private static final Logger logger = LogManager.getLogger(ChallengeScene.class);
-  private Game game;
+
+  /**
+   * The game being played
+   */
+  protected Game game;
+
+  /**
+   * The bot playing the game, or null while the player is playing
+   */
+  private Bot bot;
+
+  /**
+   * How long the bot waits between moves so its play can be followed, in milliseconds
+   */
+  private static final long BOT_MOVE_DELAY = 300;
 
   Label titleLbl;
 
@@ -79,6 +96,11 @@ public class ChallengeScene extends BaseScene {
    */
   protected Rectangle rectTimer;
 
+  /**
+   * The debug overlay showing the metrics, toggled with F3
+   */
+  protected MetricsOverlay metricsOverlay;
+
 
   /**
    * Keeps track of the highscore from the Scores.txt file
@@ -129,7 +151,7 @@ public class ChallengeScene extends BaseScene {
     StackPane.setAlignment(score, Pos.TOP_CENTER);
 
     //Main board where the majority of the gameplay takes place
-    board = new GameBoard(game.getGrid(), gameWindow.getWidth() / 2, gameWindow.getWidth() / 2);
+    board = createBoard();
     board.getStyleClass().add("board");
     mainPane.setCenter(board);
 
@@ -149,6 +171,7 @@ public class ChallengeScene extends BaseScene {
     currentPieceBoard = new PieceBoard(3, 3, gameWindow.getWidth() / 5.5,
         gameWindow.getWidth() / 5.5);
     currentPieceBoard.getStyleClass().add("currentPieceBoard");
+    currentPieceBoard.setIndicatorShown(true);
     challengePane.getChildren().add(currentPieceBoard);
     StackPane.setAlignment(currentPieceBoard, Pos.TOP_RIGHT);
     currentPieceBoard.setTranslateY(100);
@@ -240,6 +263,11 @@ public class ChallengeScene extends BaseScene {
     challengePane.getChildren().add(rectTimer);
     StackPane.setAlignment(rectTimer, Pos.BOTTOM_CENTER);
 
+    //Metrics overlay
+    metricsOverlay = new MetricsOverlay();
+    challengePane.getChildren().add(metricsOverlay);
+    StackPane.setAlignment(metricsOverlay, Pos.CENTER_LEFT);
+
     //Play music
     Multimedia.playMusic("game.mp3");
 
@@ -284,6 +312,15 @@ public class ChallengeScene extends BaseScene {
     game = new Game(5, 5);
   }
 
+  /**
+   * Create the board the game is played on
+   *
+   * @return the board
+   */
+  protected GameBoard createBoard() {
+    return new GameBoard(game.getGrid(), gameWindow.getWidth() / 2, gameWindow.getWidth() / 2);
+  }
+
   /**
    * Initialise the scene and start the game
    */
@@ -326,6 +363,12 @@ public class ChallengeScene extends BaseScene {
 
       } else if (keyEvent.getCode() == KeyCode.RIGHT || keyEvent.getCode() == KeyCode.D) {
         board.aimChange(1, 0);
+
+      } else if (keyEvent.getCode() == KeyCode.B) {
+        toggleBot(game);
+
+      } else if (keyEvent.getCode() == KeyCode.F3) {
+        metricsOverlay.toggle();
       }
     });
   }
@@ -348,7 +391,6 @@ public class ChallengeScene extends BaseScene {
   void nextPiece(GamePiece piece, GamePiece followingPiece) {
     currentPieceBoard.setPiece(piece);
     followingPieceBoard.setPiece(followingPiece);
-    currentPieceBoard.getBlock(1, 1).drawIndicator();
   }
 
   /**
@@ -374,6 +416,30 @@ public class ChallengeScene extends BaseScene {
     game.rotateCurrentPiece(1);
   }
 
+  /**
+   * Let a bot take over the game, or hand the game back to the player if a bot is playing
+   *
+   * @param game the game for the bot to play
+   */
+  void toggleBot(Game game) {
+    if (bot == null) {
+      bot = new Bot(game, Platform::runLater, new Search(), BOT_MOVE_DELAY);
+      bot.start();
+    } else {
+      stopBot();
+    }
+  }
+
+  /**
+   * Stop the bot if one is playing
+   */
+  void stopBot() {
+    if (bot != null) {
+      bot.stop();
+      bot = null;
+    }
+  }
+
   void swap() {
     game.swapCurrentPiece();
   }
@@ -409,7 +475,7 @@ public class ChallengeScene extends BaseScene {
     logger.info("Closing stage {}", stage);
 
     stopGame();
-    Platform.runLater(() -> gameWindow.startScores(game.getScore()));
+    Platform.runLater(() -> gameWindow.startScores(game.getScore(), game.getSeed()));
   }
 
   /**
@@ -453,7 +519,9 @@ public class ChallengeScene extends BaseScene {
    * Closes the game and ends all ongoing processes tied to it
    */
   public void stopGame() {
-    game.getFuture().cancel(false);
+    stopBot();
+    metricsOverlay.stop();
+    game.stop();
     Multimedia.stopAudio();
   }
 }
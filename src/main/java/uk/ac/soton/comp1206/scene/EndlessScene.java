@@ -0,0 +1,101 @@
+package uk.ac.soton.comp1206.scene;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.component.GameBoard;
+import uk.ac.soton.comp1206.game.EndlessGame;
+import uk.ac.soton.comp1206.game.Game;
+import uk.ac.soton.comp1206.ui.GameWindow;
+
+/**
+ * The endless scene plays an EndlessGame on a big board with no timer. The board only shows the
+ * part of the grid around the aim, which scrolls with the keyboard and the mouse wheel.
+ * <p>
+ * The size of the board is set with the {@code tetrecs.endless.size} system property, for example
+ * {@code -Dtetrecs.endless.size=256}.
+ */
+public class EndlessScene extends ChallengeScene {
+
+  private static final Logger logger = LogManager.getLogger(EndlessScene.class);
+
+  /**
+   * The size of the board when none is set
+   */
+  private static final int DEFAULT_SIZE = 64;
+
+  /**
+   * The number of columns and rows shown at once
+   */
+  private static final int VIEW_SIZE = 16;
+
+  /**
+   * The biggest board, in blocks, the bot can search in time
+   */
+  private static final int BOT_MAX_CELLS = 20 * 20;
+
+  /**
+   * Create a new endless scene
+   *
+   * @param gameWindow the Game Window
+   */
+  public EndlessScene(GameWindow gameWindow) {
+    super(gameWindow);
+    logger.info("Creating Endless Scene");
+  }
+
+  /**
+   * Build the endless window, which is the challenge window with its own title and no timer bar
+   */
+  @Override
+  public void build() {
+    super.build();
+    titleLbl.setText("ENDLESS MODE");
+    rectTimer.setVisible(false);
+  }
+
+  /**
+   * Setup the game object and model
+   */
+  @Override
+  public void setupGame() {
+    var size = Math.max(5, Math.min(EndlessGame.MAX_SIZE,
+        Integer.getInteger("tetrecs.endless.size", DEFAULT_SIZE)));
+    logger.info("Starting a new endless game on a {}x{} board", size, size);
+
+    game = new EndlessGame(size, size);
+  }
+
+  /**
+   * Create a board showing the part of the grid around the aim
+   *
+   * @return the board
+   */
+  @Override
+  protected GameBoard createBoard() {
+    return new GameBoard(game.getGrid(), VIEW_SIZE, VIEW_SIZE, gameWindow.getWidth() / 2,
+        gameWindow.getWidth() / 2);
+  }
+
+  /**
+   * There is no timer to animate in an endless game
+   *
+   * @param delay how long the keyframes should last
+   */
+  @Override
+  void timerAnimation(int delay) {
+  }
+
+  /**
+   * Let a bot take over the game, if the board is small enough for it to search
+   *
+   * @param game the game for the bot to play
+   */
+  @Override
+  void toggleBot(Game game) {
+    if (game.getCols() * game.getRows() > BOT_MAX_CELLS) {
+      logger.info("The board is too big for the bot");
+      return;
+    }
+    super.toggleBot(game);
+  }
+}
@@ -1,7 +1,6 @@
 package uk.ac.soton.comp1206.scene;
 
 import java.util.Stack;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import javafx.application.Platform;
@@ -23,6 +22,8 @@ import javafx.stage.Stage;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.Multimedia;
+import uk.ac.soton.comp1206.engine.TimerService;
+import uk.ac.soton.comp1206.network.Message;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
 
@@ -155,8 +156,6 @@ public class LobbyScene extends BaseScene {
    */
   @Override
   public void initialise() {
-    var executor = Executors.newSingleThreadScheduledExecutor();
-
     Multimedia.playMusic("lobby.mp3");
 
     var alert = new Alert(AlertType.ERROR);
@@ -164,45 +163,39 @@ public class LobbyScene extends BaseScene {
     alert.setHeaderText("There was an issue with your request");
 
     //Ask the server for currently available channels
-    future = executor.scheduleAtFixedRate(() -> {
+    future = TimerService.shared().repeat(() -> {
       logger.info("Refreshing the list");
       gameWindow.getCommunicator().send("LIST");
-    }, 0, 5000, TimeUnit.MILLISECONDS);
+    }, 5000, TimeUnit.MILLISECONDS);
 
-    //Handles all the communicators messages
-    gameWindow.getCommunicator().addListener((message) -> {
+    var communicator = gameWindow.getCommunicator();
 
-      //Handles received messages
-      if (message.startsWith("MSG")) {
-        Multimedia.playAudio("message.wav");
-        receiveMessage(message);
-      }
+    //Handles received messages
+    communicator.subscribe(Message.Msg.class, (message) -> {
+      Multimedia.playAudio("message.wav");
+      receiveMessage(message);
+    });
 
-      //Handles the event of the game starting
-      if (message.startsWith("START")) {
-        isHost = false;
-        stopScene();
-        Platform.runLater(gameWindow::startMultiplayer);
-      }
+    //Handles the event of the game starting
+    communicator.subscribe(Message.Start.class, (start) -> {
+      isHost = false;
+      stopScene();
+      Platform.runLater(gameWindow::startMultiplayer);
+    });
 
-      //Handles received errors
-      if (message.startsWith("ERROR")) {
-        logger.error(message);
-        alert.setContentText(message);
+    //Handles received errors
+    communicator.subscribe(Message.Error.class, (error) -> {
+      logger.error(error.text());
+      alert.setContentText(error.text());
 
-        alert.showAndWait();
-      }
+      alert.showAndWait();
+    });
 
-      //Handles the received list of currently active channels
-      if (message.startsWith("CHANNELS")) {
-        displayChannels(message);
-      }
+    //Handles the received list of currently active channels
+    communicator.subscribe(Message.Channels.class, this::displayChannels);
 
-      //Handles the received list of users that are in the current channel
-      if (message.startsWith("USERS")) {
-        displayUsers(message);
-      }
-    });
+    //Handles the received list of users that are in the current channel
+    communicator.subscribe(Message.Users.class, this::displayUsers);
 
     //Handle keyboard events
     scene.setOnKeyPressed(keyEvent -> {
@@ -218,20 +211,14 @@ public class LobbyScene extends BaseScene {
   /**
    * Display the channels received by the server
    *
-   * @param message the channels
+   * @param channels the channels
    */
-  public void displayChannels(String message) {
-
-    //Split the string into separate strings
-    String[] channelsSplitter = message.split("\n");
-
-    //Get rid of the message start e.g. CHANNELS
-    channelsSplitter[0] = channelsSplitter[0].substring(channelsSplitter[0].indexOf(" ") + 1);
+  public void displayChannels(Message.Channels channels) {
 
     //Clean the previously displayed channels
     cleanChannels();
 
-    for (String name : channelsSplitter) {
+    for (String name : channels.channels()) {
       addChannel(name);
     }
   }
@@ -322,19 +309,14 @@ public class LobbyScene extends BaseScene {
    *
    * @param users that are in the current channel
    */
-  public void displayUsers(String users) {
+  public void displayUsers(Message.Users users) {
     logger.info("Displaying users");
 
-    String[] usersSplitter = users.split("\n");
-
-    //Get rid of the message start e.g. USERS
-    usersSplitter[0] = usersSplitter[0].substring(usersSplitter[0].indexOf(" ") + 1);
-
     Platform.runLater(() -> {
 
       //Clear the userList of any previous text
       userList.getChildren().clear();
-      for (String user : usersSplitter) {
+      for (String user : users.users()) {
         logger.debug("Add user {}", user);
         var name = new Label(user);
         userList.getChildren().add(name);
@@ -409,16 +391,9 @@ public class LobbyScene extends BaseScene {
    *
    * @param message a chat message
    */
-  public void receiveMessage(String message) {
-
-    String[] messageSplitter = message.split(":");
-
-    //Get rid of the message start e.g. MSG
-    messageSplitter[0] = messageSplitter[0].substring(messageSplitter[0].indexOf(" ") + 1);
-
+  public void receiveMessage(Message.Msg message) {
     Platform.runLater(() -> messages.getChildren()
-        .add(new Text(messageSplitter[0] + ":" + messageSplitter[1] + "\n")));
-
+        .add(new Text(message.player() + ":" + message.text() + "\n")));
   }
 
   /**
@@ -35,6 +35,11 @@ public class MenuScene extends BaseScene {
    */
   Button newGameBttn;
 
+  /**
+   * Button that starts an endless game
+   */
+  Button endlessBttn;
+
   /**
    * Button that opens the multiplayer lobby
    */
@@ -99,6 +104,11 @@ public class MenuScene extends BaseScene {
     newGameBttn.getStyleClass().add("menuItem");
     menu.getChildren().add(newGameBttn);
 
+    //Button to start an endless game
+    endlessBttn = new Button("Endless");
+    endlessBttn.getStyleClass().add("menuItem");
+    menu.getChildren().add(endlessBttn);
+
     //Button to start the multiplayer lobby
     findServersBttn = new Button("Find Servers");
     findServersBttn.getStyleClass().add("menuItem");
@@ -143,6 +153,9 @@ public class MenuScene extends BaseScene {
     newGameBttn.setOnAction((e) -> startGame());
     newGameBttn.setOnMouseEntered((e) -> Multimedia.playAudio("buttonrollover.wav"));
 
+    endlessBttn.setOnAction((e) -> startEndless());
+    endlessBttn.setOnMouseEntered((e) -> Multimedia.playAudio("buttonrollover.wav"));
+
     instructionsBttn.setOnAction((e) -> showInstructions());
     instructionsBttn.setOnMouseEntered((e) -> Multimedia.playAudio("buttonrollover.wav"));
 
@@ -210,6 +223,14 @@ public class MenuScene extends BaseScene {
     gameWindow.startChallenge();
   }
 
+  /**
+   * Handle when the Endless button is pressed
+   */
+  private void startEndless() {
+    Multimedia.stopAudio();
+    gameWindow.startEndless();
+  }
+
   /**
    * Handle when the Instructions button is pressed
    */
@@ -20,8 +20,10 @@ import uk.ac.soton.comp1206.Multimedia;
 import uk.ac.soton.comp1206.component.GameBlock;
 import uk.ac.soton.comp1206.component.GameBoard;
 import uk.ac.soton.comp1206.component.Leaderboard;
+import uk.ac.soton.comp1206.component.MetricsOverlay;
 import uk.ac.soton.comp1206.component.PieceBoard;
 import uk.ac.soton.comp1206.game.MultiplayerGame;
+import uk.ac.soton.comp1206.network.ConnectionState;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
 
@@ -104,6 +106,7 @@ public class MultiplayerScene extends ChallengeScene {
     currentPieceBoard = new PieceBoard(3, 3, gameWindow.getWidth() / 5.5,
         gameWindow.getWidth() / 5.5);
     currentPieceBoard.getStyleClass().add("currentPieceBoard");
+    currentPieceBoard.setIndicatorShown(true);
     multiplayerPane.getChildren().add(currentPieceBoard);
     StackPane.setAlignment(currentPieceBoard, Pos.TOP_RIGHT);
     currentPieceBoard.setTranslateY(100);
@@ -170,6 +173,11 @@ public class MultiplayerScene extends ChallengeScene {
     multiplayerPane.getChildren().add(rectTimer);
     StackPane.setAlignment(rectTimer, Pos.BOTTOM_CENTER);
 
+    //Metrics overlay
+    metricsOverlay = new MetricsOverlay();
+    multiplayerPane.getChildren().add(metricsOverlay);
+    StackPane.setAlignment(metricsOverlay, Pos.CENTER_LEFT);
+
     //Leaderboard
     var leaderBoard = new Leaderboard();
     leaderBoard.getStyleClass().add("leaderboard");
@@ -247,6 +255,11 @@ public class MultiplayerScene extends ChallengeScene {
     logger.info("Initialising Challenge");
     multiplayerGame.start();
 
+    //Show when the connection is lost and made again
+    gameWindow.getCommunicator().addStateListener((state) -> Platform.runLater(
+        () -> receiveMessage(state == ConnectionState.CONNECTED ? "Reconnected"
+            : "Connection lost, reconnecting...")));
+
     //Handles all the keyboard controls
     scene.setOnKeyPressed(keyEvent -> {
 
@@ -291,8 +304,14 @@ public class MultiplayerScene extends ChallengeScene {
           && messageField.isDisabled()) {
         board.aimChange(1, 0);
 
+      } else if (keyEvent.getCode() == KeyCode.B && messageField.isDisabled()) {
+        toggleBot(multiplayerGame);
+
       } else if (keyEvent.getCode() == KeyCode.T) {
         messageField.setDisable(false);
+
+      } else if (keyEvent.getCode() == KeyCode.F3) {
+        metricsOverlay.toggle();
       }
     });
   }
@@ -360,7 +379,9 @@ public class MultiplayerScene extends ChallengeScene {
    * Closes the game and ends all ongoing processes tied to it
    */
   public void stopGame() {
-    multiplayerGame.getFuture().cancel(false);
+    stopBot();
+    metricsOverlay.stop();
+    multiplayerGame.stop();
     Multimedia.stopAudio();
   }
 }
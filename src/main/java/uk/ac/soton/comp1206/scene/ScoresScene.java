@@ -6,6 +6,7 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Scanner;
 import java.util.Stack;
 import javafx.beans.binding.Bindings;
@@ -23,6 +24,8 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.Multimedia;
 import uk.ac.soton.comp1206.component.ScoresList;
+import uk.ac.soton.comp1206.game.ScoreRecord;
+import uk.ac.soton.comp1206.network.Message;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
 
@@ -68,6 +71,11 @@ public class ScoresScene extends BaseScene {
    */
   Integer currentScore;
 
+  /**
+   * The seed of the game the score was gotten in, or null if it is not known
+   */
+  Long currentSeed;
+
   /**
    * Stores the name of the player
    */
@@ -80,9 +88,22 @@ public class ScoresScene extends BaseScene {
    * @param score singleplayer score
    */
   public ScoresScene(GameWindow gameWindow, int score) {
+    this(gameWindow, score, null);
+  }
+
+  /**
+   * Create a new scene, passing in the GameWindow the scene will be displayed in and the singleplayer score
+   * along with the seed of the game it was gotten in
+   *
+   * @param gameWindow the game window
+   * @param score singleplayer score
+   * @param seed the seed of the game, or null if it is not known
+   */
+  public ScoresScene(GameWindow gameWindow, int score, Long seed) {
     super(gameWindow);
     currentMultiplayerScore = null;
     currentScore = score;
+    currentSeed = seed;
   }
 
   /**
@@ -180,11 +201,8 @@ public class ScoresScene extends BaseScene {
   public void initialise() {
     gameWindow.getCommunicator().send("HISCORES");
 
-    gameWindow.getCommunicator().addListener((message) -> {
-      if (!message.startsWith("HISCORES")) {
-        return;
-      }
-      loadOnlineScores(message);
+    gameWindow.getCommunicator().subscribe(Message.HiScores.class, (scores) -> {
+      loadOnlineScores(scores);
       compareOnlineScores();
     });
 
@@ -250,7 +268,7 @@ public class ScoresScene extends BaseScene {
 
         nameDialog.showAndWait();
         playerName = nameDialog.getEditor().getText();
-        addScore(new Pair<>(playerName, currentScore), localScoresProperty);
+        addScore(new ScoreRecord(playerName, currentScore, currentSeed), localScoresProperty);
         return;
       }
     }
@@ -275,13 +293,29 @@ public class ScoresScene extends BaseScene {
    */
   public void loadScores(String file) {
     logger.info("Loading scores");
-    ArrayList<String> loadedScores = new ArrayList<>();
 
-    int i = 0;
+    //Add each of the first ten scores in the file to the scoreListProperty
+    for (Pair<String, Integer> score : readScores(file, 10)) {
+      addScore(score, localScoresProperty);
+    }
+
+    //Order the scores in case they aren't
+    orderScores();
+  }
+
+  /**
+   * Reads up to the given number of scores from a file, where each line is a name and a score
+   * separated by a colon, optionally followed by the seed of the game
+   *
+   * @param file  where the scores are stored
+   * @param limit the most scores to read
+   * @return the scores in the order they appear in the file, as ScoreRecords
+   */
+  public static List<Pair<String, Integer>> readScores(String file, int limit) {
+    ArrayList<String> loadedScores = new ArrayList<>();
 
     //Use a scanner to go through each line in the given file
-    try {
-      Scanner scanner = new Scanner(new File(file));
+    try (Scanner scanner = new Scanner(new File(file))) {
       while (scanner.hasNextLine()) {
 
         //Store each line in an array list
@@ -291,40 +325,26 @@ public class ScoresScene extends BaseScene {
       logger.error("File not found");
     }
 
-    //Then split each line into two and add it as a pair to the scoreListProperty
+    //Then split each line into two and make it a pair
+    ArrayList<Pair<String, Integer>> scores = new ArrayList<>();
     for (String lines : loadedScores) {
-      if(i >= 10) {
-        return;
+      if (scores.size() >= limit) {
+        break;
       }
 
-      String[] splitter = lines.split(":");
-      logger.debug(splitter);
-      addScore(new Pair(splitter[0], Integer.parseInt(splitter[1])), localScoresProperty);
-      i++;
+      scores.add(ScoreRecord.parse(lines));
     }
-
-    //Order the scores in case they aren't
-    orderScores();
+    return scores;
   }
 
   /**
-   * Cleans the online scores received from the server and adds them to the remoteScores list property
-   * @param message the online scores
+   * Adds the online scores received from the server to the remoteScores list property
+   * @param scores the online scores
    **/
-  public void loadOnlineScores(String message) {
-
-    logger.debug("THIS");
-
-    //Split the string into separate strings
-    String[] scoresSplitter = message.split("\n");
-
-    //Get rid of the message start e.g. HISCORE
-    scoresSplitter[0] = scoresSplitter[0].substring(scoresSplitter[0].indexOf(" ") + 1);
-
-    for (String lines : scoresSplitter) {
-      String[] splitter = lines.split(":");
-      logger.debug("Online scores: {} {}", splitter);
-      addScore(new Pair(splitter[0], Integer.parseInt(splitter[1])), remoteScoresProperty);
+  public void loadOnlineScores(Message.HiScores scores) {
+    for (Message.HiScore score : scores.scores()) {
+      logger.debug("Online score: {} {}", score.name(), score.score());
+      addScore(new Pair(score.name(), score.score()), remoteScoresProperty);
       logger.debug("remote list is {}", remoteScoresProperty);
     }
   }
@@ -356,8 +376,12 @@ public class ScoresScene extends BaseScene {
     } else {
       try {
         FileWriter myWriter = new FileWriter(file);
-        for (Pair score : localScoresProperty) {
-          myWriter.write(String.format("%s:%s\n", score.getKey(), score.getValue()));
+        for (Pair<String, Integer> score : localScoresProperty) {
+          if (score instanceof ScoreRecord record) {
+            myWriter.write(record.toLine() + "\n");
+          } else {
+            myWriter.write(String.format("%s:%s\n", score.getKey(), score.getValue()));
+          }
         }
 
         myWriter.close();
@@ -0,0 +1,189 @@
+package uk.ac.soton.comp1206.server;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import uk.ac.soton.comp1206.engine.GamePiece;
+
+/**
+ * A Channel is a group of players on the LocalServer who chat and play a game together.
+ * <p>
+ * Every player in a game is dealt the same pieces in the same order: the pieces are drawn once, as
+ * the first player to need each one asks for it, and each player works along the list at their own
+ * pace.
+ */
+class Channel {
+
+  /**
+   * The channel's name
+   */
+  private final String name;
+
+  /**
+   * The players in the channel, in the order they joined
+   */
+  private final Set<Player> players = new LinkedHashSet<>();
+
+  /**
+   * The player who can start the game, or null if the channel is empty
+   */
+  private Player host;
+
+  /**
+   * Whether a game is being played
+   */
+  private boolean started;
+
+  /**
+   * The pieces drawn for the current game, in the order they are dealt
+   */
+  private final List<Integer> pieces = new ArrayList<>();
+
+  /**
+   * Draws the pieces
+   */
+  private SplittableRandom random = new SplittableRandom();
+
+  /**
+   * Create an empty channel
+   *
+   * @param name the channel's name
+   */
+  Channel(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Get the channel's name
+   *
+   * @return the name
+   */
+  String getName() {
+    return name;
+  }
+
+  /**
+   * Get the players in the channel
+   *
+   * @return the players, in the order they joined
+   */
+  Set<Player> getPlayers() {
+    return players;
+  }
+
+  /**
+   * Get the player who can start the game
+   *
+   * @return the host, or null if the channel is empty
+   */
+  Player getHost() {
+    return host;
+  }
+
+  /**
+   * Check whether a game is being played
+   *
+   * @return true if a game has started and not every player has died
+   */
+  boolean isStarted() {
+    return started;
+  }
+
+  /**
+   * Add a player, who becomes the host if the channel was empty
+   *
+   * @param player the player
+   */
+  void add(Player player) {
+    players.add(player);
+    player.channel = this;
+    if (host == null) {
+      host = player;
+    }
+  }
+
+  /**
+   * Take a player out, handing the host on to the player who joined next if they were the host
+   *
+   * @param player the player
+   * @return the new host, or null if the host has not changed
+   */
+  Player remove(Player player) {
+    players.remove(player);
+    player.channel = null;
+    if (host != player) {
+      return null;
+    }
+    host = players.isEmpty() ? null : players.iterator().next();
+    return host;
+  }
+
+  /**
+   * Start a game, dealing new pieces and giving every player a fresh start
+   */
+  void start() {
+    started = true;
+    pieces.clear();
+    random = new SplittableRandom();
+    for (Player player : players) {
+      player.reset();
+    }
+  }
+
+  /**
+   * End the game once every player has died
+   *
+   * @return true if the game has ended
+   */
+  boolean checkEnded() {
+    for (Player player : players) {
+      if (!player.dead) {
+        return false;
+      }
+    }
+    started = false;
+    return true;
+  }
+
+  /**
+   * Deal a player their next piece
+   *
+   * @param player the player
+   * @return the value of the piece
+   */
+  int deal(Player player) {
+    while (pieces.size() <= player.pieces) {
+      pieces.add(random.nextInt(GamePiece.PIECES));
+    }
+    return pieces.get(player.pieces++);
+  }
+
+  /**
+   * Send a message to every player in the channel, encoding it only once
+   *
+   * @param message the message
+   */
+  void broadcast(String message) {
+    var frame = Connection.textFrame(message);
+    for (Player player : players) {
+      player.getConnection().send(frame);
+    }
+  }
+
+  /**
+   * Send a message to every player in the channel but one, encoding it only once
+   *
+   * @param message the message
+   * @param except  the player not to send it to
+   */
+  void broadcast(String message, Player except) {
+    var frame = Connection.textFrame(message);
+    for (Player player : players) {
+      if (player != except) {
+        player.getConnection().send(frame);
+      }
+    }
+  }
+}
@@ -0,0 +1,444 @@
+package uk.ac.soton.comp1206.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.Locale;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A Connection is one client's web socket on the LocalServer. It takes the client through the
+ * opening handshake, reads the frames it sends, and writes the frames sent to it, all without
+ * blocking, on the server's selector thread.
+ * <p>
+ * Only what the TetrECS client needs of RFC 6455 is supported: text frames, which may be
+ * fragmented, ping, pong and close. Frames written are queued and written as the socket takes
+ * them, so a slow client never holds up the server. A frame sent to many clients is encoded once
+ * and shared, see {@link #textFrame(String)}.
+ */
+class Connection {
+
+  private static final Logger logger = LogManager.getLogger(Connection.class);
+
+  /**
+   * The GUID the handshake key is combined with, from RFC 6455
+   */
+  private static final String HANDSHAKE_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+  /**
+   * The largest handshake or message accepted, in bytes
+   */
+  private static final int MAX_MESSAGE = 1 << 20;
+
+  /**
+   * The size the read buffer starts at, in bytes
+   */
+  private static final int READ_BUFFER = 4096;
+
+  /**
+   * Opcode of a continuation frame
+   */
+  private static final int CONTINUATION = 0x0;
+
+  /**
+   * Opcode of a text frame
+   */
+  private static final int TEXT = 0x1;
+
+  /**
+   * Opcode of a close frame
+   */
+  private static final int CLOSE = 0x8;
+
+  /**
+   * Opcode of a ping frame
+   */
+  private static final int PING = 0x9;
+
+  /**
+   * Opcode of a pong frame
+   */
+  private static final int PONG = 0xA;
+
+  /**
+   * The socket
+   */
+  private final SocketChannel channel;
+
+  /**
+   * The socket's key on the selector
+   */
+  private final SelectionKey key;
+
+  /**
+   * Handles the messages the client sends
+   */
+  private final Lobby lobby;
+
+  /**
+   * The player this client is
+   */
+  private final Player player;
+
+  /**
+   * Bytes read but not yet handled
+   */
+  private ByteBuffer in = ByteBuffer.allocate(READ_BUFFER);
+
+  /**
+   * The frames waiting to be written
+   */
+  private final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+
+  /**
+   * The fragments of a text message being received, or null if there is none
+   */
+  private ByteBuffer fragments;
+
+  /**
+   * Whether the handshake has been done
+   */
+  private boolean open;
+
+  /**
+   * Whether the connection closes once the frames waiting have been written
+   */
+  private boolean closing;
+
+  /**
+   * Create a connection for a socket which has been accepted
+   *
+   * @param channel the socket
+   * @param key     the socket's key on the selector
+   * @param lobby   handles the messages the client sends
+   */
+  Connection(SocketChannel channel, SelectionKey key, Lobby lobby) {
+    this.channel = channel;
+    this.key = key;
+    this.lobby = lobby;
+    this.player = new Player(this);
+  }
+
+  /**
+   * Read what the socket has, and handle the handshake or every frame it completes
+   */
+  void read() {
+    try {
+      if (channel.read(in) < 0) {
+        close();
+        return;
+      }
+      in.flip();
+      if (!open) {
+        handshake();
+      }
+      while (open && !closing && readFrame()) {
+        //Keep handling frames while there are whole ones
+      }
+      in.compact();
+
+      //Make room for a frame larger than the buffer
+      if (!in.hasRemaining()) {
+        if (in.capacity() >= MAX_MESSAGE) {
+          logger.warn("Closing {}: message too large", player.getNickname());
+          close();
+          return;
+        }
+        in = ByteBuffer.allocate(in.capacity() * 2).put(in.flip());
+      }
+    } catch (IOException e) {
+      logger.debug("Closing {}: {}", player.getNickname(), e.getMessage());
+      close();
+    }
+  }
+
+  /**
+   * Answer the opening handshake, once the whole request has been read
+   */
+  private void handshake() {
+    var end = indexOfBlankLine();
+    if (end < 0) {
+      return;
+    }
+    var request = StandardCharsets.ISO_8859_1.decode(in.slice(in.position(), end - in.position()))
+        .toString();
+    in.position(end + 4);
+
+    String key = null;
+    for (String line : request.split("\r\n")) {
+      var colon = line.indexOf(':');
+      if (colon > 0 && line.substring(0, colon).trim().toLowerCase(Locale.ROOT)
+          .equals("sec-websocket-key")) {
+        key = line.substring(colon + 1).trim();
+      }
+    }
+    if (key == null) {
+      closing = true;
+      write(ByteBuffer.wrap("HTTP/1.1 400 Bad Request\r\n\r\n"
+          .getBytes(StandardCharsets.ISO_8859_1)));
+      return;
+    }
+
+    write(ByteBuffer.wrap(("HTTP/1.1 101 Switching Protocols\r\n"
+        + "Upgrade: websocket\r\n"
+        + "Connection: Upgrade\r\n"
+        + "Sec-WebSocket-Accept: " + accept(key) + "\r\n\r\n")
+        .getBytes(StandardCharsets.ISO_8859_1)));
+    open = true;
+    lobby.connected(player);
+  }
+
+  /**
+   * Find the blank line which ends the handshake request
+   *
+   * @return the index of the blank line in the read buffer, or -1 if it has not been read yet
+   */
+  private int indexOfBlankLine() {
+    for (int i = in.position(); i + 3 < in.limit(); i++) {
+      if (in.get(i) == '\r' && in.get(i + 1) == '\n' && in.get(i + 2) == '\r'
+          && in.get(i + 3) == '\n') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Work out the accept header for a handshake key
+   *
+   * @param key the Sec-WebSocket-Key the client sent
+   * @return the Sec-WebSocket-Accept to answer with
+   */
+  private static String accept(String key) {
+    try {
+      var sha1 = MessageDigest.getInstance("SHA-1");
+      return Base64.getEncoder().encodeToString(
+          sha1.digest((key + HANDSHAKE_GUID).getBytes(StandardCharsets.ISO_8859_1)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-1 is not available", e);
+    }
+  }
+
+  /**
+   * Handle the next frame, if all of it has been read
+   *
+   * @return true if a frame was handled
+   */
+  private boolean readFrame() {
+    var start = in.position();
+    if (in.remaining() < 2) {
+      return false;
+    }
+    var first = in.get(start);
+    var second = in.get(start + 1);
+    var fin = (first & 0x80) != 0;
+    var opcode = first & 0x0F;
+    var masked = (second & 0x80) != 0;
+    long length = second & 0x7F;
+
+    var header = 2;
+    if (length == 126) {
+      if (in.remaining() < 4) {
+        return false;
+      }
+      length = in.getShort(start + 2) & 0xFFFF;
+      header = 4;
+    } else if (length == 127) {
+      if (in.remaining() < 10) {
+        return false;
+      }
+      length = in.getLong(start + 2);
+      header = 10;
+    }
+    if (length < 0 || length > MAX_MESSAGE) {
+      logger.warn("Closing {}: frame too large", player.getNickname());
+      close();
+      return false;
+    }
+    var maskOffset = start + header;
+    if (masked) {
+      header += 4;
+    }
+    if (in.remaining() < header + length) {
+      return false;
+    }
+
+    //Unmask the payload where it is
+    var payloadStart = start + header;
+    var payloadEnd = payloadStart + (int) length;
+    if (masked) {
+      for (int i = payloadStart; i < payloadEnd; i++) {
+        in.put(i, (byte) (in.get(i) ^ in.get(maskOffset + ((i - payloadStart) & 3))));
+      }
+    }
+    var payload = in.slice(payloadStart, (int) length);
+    in.position(payloadEnd);
+
+    switch (opcode) {
+      case TEXT, CONTINUATION -> text(payload, fin, opcode == CONTINUATION);
+      case PING -> send(frame(PONG, payload));
+      case PONG -> {
+      }
+      case CLOSE -> {
+        closing = true;
+        send(frame(CLOSE, ByteBuffer.allocate(0)));
+      }
+      default -> {
+        logger.warn("Closing {}: unknown opcode {}", player.getNickname(), opcode);
+        close();
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Handle a text frame, or a fragment of one
+   *
+   * @param payload      the payload of the frame
+   * @param fin          true if this is the last fragment
+   * @param continuation true if this continues an earlier fragment
+   */
+  private void text(ByteBuffer payload, boolean fin, boolean continuation) {
+    if (!continuation && fin) {
+      lobby.receive(player, StandardCharsets.UTF_8.decode(payload).toString());
+      return;
+    }
+
+    //Gather fragments until the last one
+    if (!continuation || fragments == null) {
+      fragments = ByteBuffer.allocate(Math.max(READ_BUFFER, payload.remaining()));
+    }
+    if (fragments.position() + payload.remaining() > MAX_MESSAGE) {
+      logger.warn("Closing {}: message too large", player.getNickname());
+      close();
+      return;
+    }
+    if (fragments.remaining() < payload.remaining()) {
+      fragments = ByteBuffer.allocate(Math.max(fragments.capacity() * 2,
+          fragments.position() + payload.remaining())).put(fragments.flip());
+    }
+    fragments.put(payload);
+    if (fin) {
+      lobby.receive(player, StandardCharsets.UTF_8.decode(fragments.flip()).toString());
+      fragments = null;
+    }
+  }
+
+  /**
+   * Encode a text frame, which can be sent to any number of connections
+   *
+   * @param message the text
+   * @return the frame
+   */
+  static ByteBuffer textFrame(String message) {
+    return frame(TEXT, ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * Encode an unmasked frame, as a server sends
+   *
+   * @param opcode  the opcode
+   * @param payload the payload
+   * @return the frame, read only
+   */
+  private static ByteBuffer frame(int opcode, ByteBuffer payload) {
+    var length = payload.remaining();
+    var header = length < 126 ? 2 : length <= 0xFFFF ? 4 : 10;
+    var frame = ByteBuffer.allocate(header + length);
+    frame.put((byte) (0x80 | opcode));
+    if (length < 126) {
+      frame.put((byte) length);
+    } else if (length <= 0xFFFF) {
+      frame.put((byte) 126).putShort((short) length);
+    } else {
+      frame.put((byte) 127).putLong(length);
+    }
+    return frame.put(payload).flip().asReadOnlyBuffer();
+  }
+
+  /**
+   * Send a frame to the client
+   *
+   * @param frame the frame, which is not changed
+   */
+  void send(ByteBuffer frame) {
+    if (open && key.isValid()) {
+      write(frame.duplicate());
+    }
+  }
+
+  /**
+   * Queue bytes to be written, writing straight away if nothing else is waiting
+   *
+   * @param bytes the bytes
+   */
+  private void write(ByteBuffer bytes) {
+    var idle = out.isEmpty();
+    out.add(bytes);
+    if (idle) {
+      flush();
+    }
+  }
+
+  /**
+   * Write as much as the socket takes, waiting to be told it can take more if anything is left
+   */
+  void flush() {
+    try {
+      while (!out.isEmpty()) {
+        var bytes = out.peek();
+        channel.write(bytes);
+        if (bytes.hasRemaining()) {
+          key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+          return;
+        }
+        out.poll();
+      }
+      if (key.isValid()) {
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+      }
+      if (closing) {
+        close();
+      }
+    } catch (IOException e) {
+      logger.debug("Closing {}: {}", player.getNickname(), e.getMessage());
+      close();
+    }
+  }
+
+  /**
+   * Close the connection once the frames waiting have been written
+   */
+  void closeWhenWritten() {
+    closing = true;
+    if (out.isEmpty()) {
+      close();
+    }
+  }
+
+  /**
+   * Close the connection now, taking the player out of the lobby
+   */
+  void close() {
+    if (!channel.isOpen()) {
+      return;
+    }
+    key.cancel();
+    try {
+      channel.close();
+    } catch (IOException e) {
+      logger.debug("Unable to close {}: {}", player.getNickname(), e.getMessage());
+    }
+    out.clear();
+    if (open) {
+      lobby.disconnected(player);
+    }
+  }
+}
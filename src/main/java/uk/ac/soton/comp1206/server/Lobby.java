@@ -0,0 +1,524 @@
+package uk.ac.soton.comp1206.server;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.network.BoardSync;
+import uk.ac.soton.comp1206.network.MessageDecoder;
+
+/**
+ * The Lobby speaks the TetrECS protocol for the LocalServer: it keeps the channels and the online
+ * high scores, and answers each message a player sends.
+ * <p>
+ * It is only used from the server's selector thread, so nothing in it is locked. Players who
+ * disconnect are taken out once the messages being handled have been, so a player can never
+ * vanish from a channel while a message is being sent to it.
+ */
+class Lobby {
+
+  private static final Logger logger = LogManager.getLogger(Lobby.class);
+
+  /**
+   * The number of high scores kept and sent
+   */
+  private static final int HISCORES = 10;
+
+  /**
+   * The channels, by name, in the order they were created
+   */
+  private final Map<String, Channel> channels = new LinkedHashMap<>();
+
+  /**
+   * The online high scores, best first
+   */
+  private final List<Map.Entry<String, Integer>> hiScores = new ArrayList<>();
+
+  /**
+   * The players who have disconnected but not yet been taken out
+   */
+  private final List<Player> departed = new ArrayList<>();
+
+  /**
+   * The handler for each type of message
+   */
+  private final Map<String, Handler> handlers = new HashMap<>();
+
+  /**
+   * Handles one type of message
+   */
+  private interface Handler {
+
+    /**
+     * Handle a message
+     *
+     * @param player   the player who sent it
+     * @param argument the rest of the message after its type
+     */
+    void handle(Player player, String argument);
+  }
+
+  /**
+   * Create a lobby with no channels and the default high scores
+   */
+  Lobby() {
+    for (int i = 1; i <= HISCORES; i++) {
+      hiScores.add(Map.entry("Default" + i, (HISCORES + 1 - i) * 500));
+    }
+
+    handlers.put("LIST", (player, argument) -> list(player));
+    handlers.put("CREATE", this::create);
+    handlers.put("JOIN", this::join);
+    handlers.put("PART", (player, argument) -> part(player));
+    handlers.put("USERS", (player, argument) -> users(player));
+    handlers.put("NICK", this::nick);
+    handlers.put("MSG", this::msg);
+    handlers.put("START", (player, argument) -> start(player));
+    handlers.put("PIECE", (player, argument) -> piece(player));
+    handlers.put("BOARD", this::board);
+    handlers.put(BoardSync.DELTA_FEATURE, this::boardDelta);
+    handlers.put("SCORE", this::score);
+    handlers.put("LIVES", this::lives);
+    handlers.put("DIE", (player, argument) -> die(player));
+    handlers.put("SCORES", (player, argument) -> scores(player));
+    handlers.put("HISCORES", (player, argument) -> hiScores(player));
+    handlers.put("HISCORE", this::hiScore);
+    handlers.put(BoardSync.FEATURES_REQUEST,
+        (player, argument) -> player.send("FEATURES " + BoardSync.DELTA_FEATURE));
+    handlers.put("QUIT", (player, argument) -> player.getConnection().closeWhenWritten());
+  }
+
+  /**
+   * Welcome a player who has connected
+   *
+   * @param player the player
+   */
+  void connected(Player player) {
+    logger.debug("{} connected", player.getNickname());
+  }
+
+  /**
+   * Note that a player has disconnected, to take them out of their channel once the messages being
+   * handled have been
+   *
+   * @param player the player
+   */
+  void disconnected(Player player) {
+    departed.add(player);
+  }
+
+  /**
+   * Take out every player who has disconnected
+   */
+  void removeDeparted() {
+    for (int i = 0; i < departed.size(); i++) {
+      var player = departed.get(i);
+      logger.debug("{} disconnected", player.getNickname());
+      leave(player);
+    }
+    departed.clear();
+  }
+
+  /**
+   * Handle a message from a player
+   *
+   * @param player  the player
+   * @param message the message
+   */
+  void receive(Player player, String message) {
+    var end = MessageDecoder.typeEnd(message);
+    var type = message.substring(0, end);
+    var argument = end < message.length() ? message.substring(end + 1) : "";
+
+    var handler = handlers.get(type);
+    if (handler == null) {
+      player.send("ERROR Unknown command: " + type);
+      return;
+    }
+    try {
+      handler.handle(player, argument);
+    } catch (RuntimeException e) {
+      logger.debug("Bad message from {}: {}", player.getNickname(), message);
+      player.send("ERROR Bad message: " + message);
+    }
+  }
+
+  /**
+   * Send the names of the channels
+   *
+   * @param player the player who asked
+   */
+  private void list(Player player) {
+    player.send("CHANNELS " + String.join("\n", channels.keySet()));
+  }
+
+  /**
+   * Create a channel and put the player in it as its host
+   *
+   * @param player the player
+   * @param name   the name of the channel
+   */
+  private void create(Player player, String name) {
+    name = name.trim();
+    if (name.isEmpty()) {
+      player.send("ERROR Channel name is required");
+    } else if (player.channel != null) {
+      player.send("ERROR Already in a channel");
+    } else if (channels.containsKey(name)) {
+      player.send("ERROR Channel already exists");
+    } else {
+      var channel = new Channel(name);
+      channels.put(name, channel);
+      enter(player, channel);
+      player.send("HOST");
+    }
+  }
+
+  /**
+   * Put the player in a channel
+   *
+   * @param player the player
+   * @param name   the name of the channel
+   */
+  private void join(Player player, String name) {
+    var channel = channels.get(name.trim());
+    if (channel == null) {
+      player.send("ERROR Channel does not exist");
+    } else if (player.channel != null) {
+      player.send("ERROR Already in a channel");
+    } else if (channel.isStarted()) {
+      player.send("ERROR Game already started");
+    } else {
+      enter(player, channel);
+    }
+  }
+
+  /**
+   * Put a player in a channel and tell everyone in it
+   *
+   * @param player  the player
+   * @param channel the channel
+   */
+  private void enter(Player player, Channel channel) {
+    channel.add(player);
+    player.send("JOIN " + channel.getName());
+    channel.broadcast(usersMessage(channel));
+  }
+
+  /**
+   * Take the player out of their channel
+   *
+   * @param player the player
+   */
+  private void part(Player player) {
+    if (player.channel == null) {
+      player.send("ERROR Not in a channel");
+      return;
+    }
+    leave(player);
+    player.send("PARTED");
+  }
+
+  /**
+   * Take a player out of their channel, if they are in one, handing on the host and removing the
+   * channel once it is empty
+   *
+   * @param player the player
+   */
+  private void leave(Player player) {
+    var channel = player.channel;
+    if (channel == null) {
+      return;
+    }
+    var host = channel.remove(player);
+    if (channel.getPlayers().isEmpty()) {
+      channels.remove(channel.getName());
+      return;
+    }
+    if (host != null) {
+      host.send("HOST");
+    }
+    channel.broadcast(usersMessage(channel));
+    if (channel.isStarted()) {
+      channel.checkEnded();
+      channel.broadcast(scoresMessage(channel));
+    }
+  }
+
+  /**
+   * Send the names of the players in the player's channel
+   *
+   * @param player the player who asked
+   */
+  private void users(Player player) {
+    if (player.channel == null) {
+      player.send("ERROR Not in a channel");
+      return;
+    }
+    player.send(usersMessage(player.channel));
+  }
+
+  /**
+   * Change the player's nickname
+   *
+   * @param player   the player
+   * @param nickname the new nickname
+   */
+  private void nick(Player player, String nickname) {
+    nickname = nickname.trim();
+    if (nickname.isEmpty() || nickname.contains(":")) {
+      player.send("ERROR Invalid nickname");
+      return;
+    }
+    player.setNickname(nickname);
+    player.send("NICK " + nickname);
+    if (player.channel != null) {
+      player.channel.broadcast(usersMessage(player.channel));
+    }
+  }
+
+  /**
+   * Send a chat message to everyone in the player's channel
+   *
+   * @param player the player
+   * @param text   the text of the message
+   */
+  private void msg(Player player, String text) {
+    if (player.channel == null) {
+      player.send("ERROR Not in a channel");
+      return;
+    }
+    player.channel.broadcast("MSG " + player.getNickname() + ":" + text);
+  }
+
+  /**
+   * Start the game in the player's channel, if they are its host
+   *
+   * @param player the player
+   */
+  private void start(Player player) {
+    var channel = player.channel;
+    if (channel == null) {
+      player.send("ERROR Not in a channel");
+    } else if (channel.getHost() != player) {
+      player.send("ERROR Only the host can start the game");
+    } else if (channel.isStarted()) {
+      player.send("ERROR Game already started");
+    } else {
+      channel.start();
+      channel.broadcast("START");
+    }
+  }
+
+  /**
+   * Deal the player their next piece
+   *
+   * @param player the player
+   */
+  private void piece(Player player) {
+    if (!inGame(player)) {
+      return;
+    }
+    player.send("PIECE " + player.channel.deal(player));
+  }
+
+  /**
+   * Take the player's whole board and pass it on to the rest of the channel
+   *
+   * @param player the player
+   * @param values every block of the board, column by column
+   */
+  private void board(Player player, String values) {
+    if (!inGame(player)) {
+      return;
+    }
+    var board = player.board;
+    var index = 0;
+    var start = 0;
+    while (start < values.length() && index < board.getCellCount()) {
+      var end = values.indexOf(' ', start);
+      if (end < 0) {
+        end = values.length();
+      }
+      if (end > start) {
+        board.set(index / board.getRows(), index % board.getRows(),
+            Integer.parseInt(values, start, end, 10));
+        index++;
+      }
+      start = end + 1;
+    }
+    sendBoard(player);
+  }
+
+  /**
+   * Apply the changes to the player's board and pass the whole board on to the rest of the channel,
+   * as other clients may only understand whole boards
+   *
+   * @param player the player
+   * @param cells  the changed blocks
+   */
+  private void boardDelta(Player player, String cells) {
+    if (!inGame(player)) {
+      return;
+    }
+    BoardSync.applyDelta(BoardSync.DELTA_FEATURE + " " + cells, player.board);
+    sendBoard(player);
+  }
+
+  /**
+   * Send the player's board to the rest of their channel
+   *
+   * @param player the player
+   */
+  private void sendBoard(Player player) {
+    var values = BoardSync.boardMessage(player.board).substring("BOARD ".length());
+    player.channel.broadcast("BOARD " + player.getNickname() + ":" + values.trim(), player);
+  }
+
+  /**
+   * Set the player's score and send the scores to their channel
+   *
+   * @param player the player
+   * @param score  the score
+   */
+  private void score(Player player, String score) {
+    if (!inGame(player)) {
+      return;
+    }
+    player.score = Integer.parseInt(score.trim());
+    player.channel.broadcast(scoresMessage(player.channel));
+  }
+
+  /**
+   * Set the player's lives and send the scores to their channel
+   *
+   * @param player the player
+   * @param lives  the lives
+   */
+  private void lives(Player player, String lives) {
+    if (!inGame(player)) {
+      return;
+    }
+    player.lives = Integer.parseInt(lives.trim());
+    player.channel.broadcast(scoresMessage(player.channel));
+  }
+
+  /**
+   * Mark the player as dead, ending the game if everyone is, and send the scores to their channel
+   *
+   * @param player the player
+   */
+  private void die(Player player) {
+    if (!inGame(player)) {
+      return;
+    }
+    player.dead = true;
+    player.channel.checkEnded();
+    player.channel.broadcast(scoresMessage(player.channel));
+  }
+
+  /**
+   * Send the scores of the players in the player's channel
+   *
+   * @param player the player who asked
+   */
+  private void scores(Player player) {
+    if (player.channel == null) {
+      player.send("ERROR Not in a channel");
+      return;
+    }
+    player.send(scoresMessage(player.channel));
+  }
+
+  /**
+   * Send the online high scores
+   *
+   * @param player the player who asked
+   */
+  private void hiScores(Player player) {
+    StringBuilder message = new StringBuilder("HISCORES ");
+    for (int i = 0; i < hiScores.size(); i++) {
+      if (i > 0) {
+        message.append('\n');
+      }
+      var score = hiScores.get(i);
+      message.append(score.getKey()).append(':').append(score.getValue());
+    }
+    player.send(message.toString());
+  }
+
+  /**
+   * Add a high score, keeping the best
+   *
+   * @param player the player
+   * @param score  the score, as name:score
+   */
+  private void hiScore(Player player, String score) {
+    var colon = score.lastIndexOf(':');
+    var name = score.substring(0, colon).trim();
+    var value = Integer.parseInt(score.substring(colon + 1).trim());
+    hiScores.add(Map.entry(name, value));
+    hiScores.sort(Comparator.comparing(Map.Entry<String, Integer>::getValue).reversed());
+    while (hiScores.size() > HISCORES) {
+      hiScores.remove(hiScores.size() - 1);
+    }
+    player.send("NEWSCORE " + name + ":" + value);
+  }
+
+  /**
+   * Check the player is in a game, telling them if not
+   *
+   * @param player the player
+   * @return true if the player is in a channel with a game being played
+   */
+  private boolean inGame(Player player) {
+    if (player.channel == null || !player.channel.isStarted()) {
+      player.send("ERROR Not in a game");
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Build the USERS message for a channel
+   *
+   * @param channel the channel
+   * @return the message
+   */
+  private static String usersMessage(Channel channel) {
+    StringBuilder message = new StringBuilder("USERS ");
+    var first = true;
+    for (Player player : channel.getPlayers()) {
+      if (!first) {
+        message.append('\n');
+      }
+      message.append(player.getNickname());
+      first = false;
+    }
+    return message.toString();
+  }
+
+  /**
+   * Build the SCORES message for a channel
+   *
+   * @param channel the channel
+   * @return the message
+   */
+  private static String scoresMessage(Channel channel) {
+    StringBuilder message = new StringBuilder("SCORES ");
+    var first = true;
+    for (Player player : channel.getPlayers()) {
+      if (!first) {
+        message.append('\n');
+      }
+      message.append(player.getNickname()).append(':').append(player.score).append(':')
+          .append(player.dead ? "DEAD" : String.valueOf(player.lives));
+      first = false;
+    }
+    return message.toString();
+  }
+}
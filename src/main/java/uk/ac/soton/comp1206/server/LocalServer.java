@@ -0,0 +1,241 @@
+package uk.ac.soton.comp1206.server;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The LocalServer is a stand-in for the TetrECS server which runs inside the game, so the game can
+ * be played, tested and benchmarked without the remote server. It speaks the same protocol over
+ * web sockets, and also understands the BOARDDELTA form of board.
+ * <p>
+ * Every socket is handled without blocking by one selector thread, which also runs the
+ * {@link Lobby}, so it holds thousands of connections with a single thread and no locks. Messages
+ * sent to a whole channel are encoded once and shared between the sockets.
+ * <p>
+ * The game uses it when started with {@code --server=local}. It can also be run on its own, for
+ * example to put a load on it from another process:
+ * <pre>
+ * java -cp target/tetrecs-1.0-SNAPSHOT-shaded.jar uk.ac.soton.comp1206.server.LocalServer
+ *     --port=9700 --host=0.0.0.0
+ * </pre>
+ */
+public class LocalServer {
+
+  private static final Logger logger = LogManager.getLogger(LocalServer.class);
+
+  /**
+   * The number of connections which can wait to be accepted
+   */
+  private static final int BACKLOG = 1024;
+
+  /**
+   * Waits for the sockets to be ready
+   */
+  private final Selector selector;
+
+  /**
+   * Accepts the connections
+   */
+  private final ServerSocketChannel server;
+
+  /**
+   * Speaks the protocol
+   */
+  private final Lobby lobby = new Lobby();
+
+  /**
+   * The selector thread
+   */
+  private final Thread thread;
+
+  /**
+   * Whether the server is running
+   */
+  private volatile boolean running;
+
+  /**
+   * Create a server listening on the loopback address
+   *
+   * @param port the port, or 0 for any free port
+   * @throws IOException if the port cannot be listened on
+   */
+  public LocalServer(int port) throws IOException {
+    this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+  }
+
+  /**
+   * Create a server listening on an address
+   *
+   * @param address the address
+   * @throws IOException if the address cannot be listened on
+   */
+  public LocalServer(InetSocketAddress address) throws IOException {
+    selector = Selector.open();
+    server = ServerSocketChannel.open();
+    server.bind(address, BACKLOG);
+    server.configureBlocking(false);
+    server.register(selector, SelectionKey.OP_ACCEPT);
+
+    thread = new Thread(this::run, "local-server");
+    thread.setDaemon(true);
+  }
+
+  /**
+   * Start handling connections
+   */
+  public void start() {
+    running = true;
+    thread.start();
+    logger.info("Local server listening on {}", getUrl());
+  }
+
+  /**
+   * Stop the server, closing every connection
+   */
+  public void stop() {
+    running = false;
+    selector.wakeup();
+  }
+
+  /**
+   * Wait for the server to stop
+   *
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public void join() throws InterruptedException {
+    thread.join();
+  }
+
+  /**
+   * Get the port the server is listening on
+   *
+   * @return the port
+   */
+  public int getPort() {
+    return server.socket().getLocalPort();
+  }
+
+  /**
+   * Get the URL to connect to the server at
+   *
+   * @return the web socket URL
+   */
+  public String getUrl() {
+    var address = server.socket().getInetAddress();
+    var host = address.isAnyLocalAddress() ? "127.0.0.1" : address.getHostAddress();
+    if (host.contains(":")) {
+      host = "[" + host + "]";
+    }
+    return "ws://" + host + ":" + getPort();
+  }
+
+  /**
+   * Handle the sockets as they are ready until stopped
+   */
+  private void run() {
+    try {
+      while (running) {
+        selector.select();
+        var selected = selector.selectedKeys();
+        for (SelectionKey key : selected) {
+          if (!key.isValid()) {
+            continue;
+          }
+          if (key.isAcceptable()) {
+            accept();
+            continue;
+          }
+          var connection = (Connection) key.attachment();
+          if (key.isWritable()) {
+            connection.flush();
+          }
+          if (key.isValid() && key.isReadable()) {
+            connection.read();
+          }
+        }
+        selected.clear();
+        lobby.removeDeparted();
+      }
+    } catch (IOException e) {
+      logger.error("Local server failed: {}", e.getMessage());
+    } finally {
+      close();
+    }
+  }
+
+  /**
+   * Accept every connection waiting
+   *
+   * @throws IOException if the server socket fails
+   */
+  private void accept() throws IOException {
+    SocketChannel channel;
+    while ((channel = server.accept()) != null) {
+      channel.configureBlocking(false);
+      channel.socket().setTcpNoDelay(true);
+      var key = channel.register(selector, SelectionKey.OP_READ);
+      key.attach(new Connection(channel, key, lobby));
+    }
+  }
+
+  /**
+   * Close every connection and the server socket
+   */
+  private void close() {
+    for (SelectionKey key : selector.keys()) {
+      if (key.attachment() instanceof Connection connection) {
+        connection.close();
+      }
+    }
+    try {
+      server.close();
+      selector.close();
+    } catch (IOException e) {
+      logger.error("Unable to close local server: {}", e.getMessage());
+    }
+    logger.info("Local server stopped");
+  }
+
+  /**
+   * Run the server on its own. Options are given as {@code --name=value}: port (9700 by default)
+   * and host (the loopback address by default).
+   *
+   * @param args the options
+   * @throws Exception if the server cannot be started
+   */
+  public static void main(String[] args) throws Exception {
+    var port = 9700;
+    String host = null;
+
+    for (String arg : args) {
+      var split = arg.indexOf('=');
+      if (!arg.startsWith("--") || split < 0) {
+        throw new IllegalArgumentException("Options must be given as --name=value: " + arg);
+      }
+      var value = arg.substring(split + 1);
+      switch (arg.substring(2, split)) {
+        case "port":
+          port = Integer.parseInt(value);
+          break;
+        case "host":
+          host = value;
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option: " + arg);
+      }
+    }
+
+    var address = host == null ? new InetSocketAddress(InetAddress.getLoopbackAddress(), port)
+        : new InetSocketAddress(host, port);
+    var server = new LocalServer(address);
+    server.start();
+    server.join();
+  }
+}
@@ -0,0 +1,122 @@
+package uk.ac.soton.comp1206.server;
+
+import uk.ac.soton.comp1206.engine.Board;
+
+/**
+ * A Player is the state the LocalServer keeps for one connected client: their nickname, the
+ * channel they are in, and how their game is going.
+ */
+class Player {
+
+  /**
+   * The number of lives a player starts a game with
+   */
+  static final int LIVES = 3;
+
+  /**
+   * The number of columns and rows in a player's board
+   */
+  static final int BOARD_SIZE = 5;
+
+  /**
+   * The number given to the next player, to make their first nickname
+   */
+  private static int nextNumber = 1;
+
+  /**
+   * The connection to the client
+   */
+  private final Connection connection;
+
+  /**
+   * The player's nickname
+   */
+  private String nickname;
+
+  /**
+   * The channel the player is in, or null if none
+   */
+  Channel channel;
+
+  /**
+   * The player's score in the current game
+   */
+  int score;
+
+  /**
+   * The player's lives in the current game
+   */
+  int lives = LIVES;
+
+  /**
+   * Whether the player has died in the current game
+   */
+  boolean dead;
+
+  /**
+   * The number of pieces the player has been dealt in the current game
+   */
+  int pieces;
+
+  /**
+   * The player's board in the current game
+   */
+  final Board board = new Board(BOARD_SIZE, BOARD_SIZE);
+
+  /**
+   * Create a player for a connection, with a guest nickname
+   *
+   * @param connection the connection to the client
+   */
+  Player(Connection connection) {
+    this.connection = connection;
+    this.nickname = "Guest" + nextNumber++;
+  }
+
+  /**
+   * Get the player's nickname
+   *
+   * @return the nickname
+   */
+  String getNickname() {
+    return nickname;
+  }
+
+  /**
+   * Set the player's nickname
+   *
+   * @param nickname the nickname
+   */
+  void setNickname(String nickname) {
+    this.nickname = nickname;
+  }
+
+  /**
+   * Get the connection to the client
+   *
+   * @return the connection
+   */
+  Connection getConnection() {
+    return connection;
+  }
+
+  /**
+   * Send a message to the player
+   *
+   * @param message the message
+   */
+  void send(String message) {
+    connection.send(Connection.textFrame(message));
+  }
+
+  /**
+   * Start a new game, with a full set of lives and an empty board
+   */
+  void reset() {
+    score = 0;
+    lives = LIVES;
+    dead = false;
+    pieces = 0;
+    board.reset();
+  }
+}
@@ -0,0 +1,261 @@
+package uk.ac.soton.comp1206.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import uk.ac.soton.comp1206.metrics.Histogram;
+import uk.ac.soton.comp1206.metrics.Metrics;
+import uk.ac.soton.comp1206.server.LocalServer;
+
+/**
+ * The LoadGenerator puts a multiplayer load on a TetrECS server with many SimulatedClients, each
+ * with its own connection, which join channels in groups, play games with a Policy and chat. When
+ * the run is over it reports the round trip of each kind of request and the message throughput.
+ * <p>
+ * Clients connect gradually over the ramp, so the server is not met with every handshake at once,
+ * and their moves are played on a small shared scheduler. Each client's Communicator still has its
+ * own reading and writing threads, so a few thousand clients need a few thousand threads.
+ * <p>
+ * It can be run from the command line, for example after {@code mvn package -Pshade}:
+ * <pre>
+ * java -cp target/tetrecs-1.0-SNAPSHOT-shaded.jar uk.ac.soton.comp1206.simulation.LoadGenerator
+ *     --url=local --clients=500 --players=4 --policy=greedy --duration=60
+ * </pre>
+ */
+public class LoadGenerator {
+
+  /**
+   * The number of seconds between progress reports
+   */
+  private static final int PROGRESS_INTERVAL = 5;
+
+  /**
+   * The number of threads playing the clients' moves
+   */
+  private static final int SCHEDULER_THREADS = Math.max(2,
+      Runtime.getRuntime().availableProcessors() / 2);
+
+  /**
+   * The URL of the server
+   */
+  private final String url;
+
+  /**
+   * Chooses the moves
+   */
+  private final Policy policy;
+
+  /**
+   * The number of clients in each channel
+   */
+  private final int players;
+
+  /**
+   * The time between each client's moves, in milliseconds
+   */
+  private final long think;
+
+  /**
+   * The chance of sending a chat message with each move
+   */
+  private final double chatRate;
+
+  /**
+   * Create a load generator
+   *
+   * @param url      the URL of the server
+   * @param policy   chooses the moves
+   * @param players  the number of clients in each channel
+   * @param think    the time between each client's moves, in milliseconds
+   * @param chatRate the chance of sending a chat message with each move
+   */
+  public LoadGenerator(String url, Policy policy, int players, long think, double chatRate) {
+    this.url = url;
+    this.policy = policy;
+    this.players = players;
+    this.think = think;
+    this.chatRate = chatRate;
+  }
+
+  /**
+   * Connect the clients, let them play for a while and stop them
+   *
+   * @param clients  the number of clients
+   * @param ramp     the time to spread connecting the clients over, in seconds
+   * @param duration the time to play for once every client has connected, in seconds
+   * @param seed     the seed every client's random number generator is split from
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public void run(int clients, int ramp, int duration, long seed) throws InterruptedException {
+    var random = new SplittableRandom(seed);
+    //Channel names differ between runs, so a run does not meet the channels of the last one
+    var run = Long.toString(System.currentTimeMillis() % 1000000, 36);
+
+    ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(SCHEDULER_THREADS,
+        runnable -> {
+          var thread = new Thread(runnable, "load-generator");
+          thread.setDaemon(true);
+          return thread;
+        });
+    var progress = scheduler.scheduleAtFixedRate(LoadGenerator::printProgress,
+        PROGRESS_INTERVAL, PROGRESS_INTERVAL, TimeUnit.SECONDS);
+
+    List<SimulatedClient> all = new ArrayList<>();
+    try {
+      var groups = (clients + players - 1) / players;
+      var gap = groups > 1 ? ramp * 1000L / (groups - 1) : 0;
+      for (var group = 0; group < groups; group++) {
+        var channel = "load-" + run + "-" + group;
+        List<SimulatedClient> members = new ArrayList<>();
+        for (var i = group * players; i < Math.min(clients, (group + 1) * players); i++) {
+          var client = new SimulatedClient(url, "load" + i, channel, policy, random.split(),
+              chatRate);
+          client.play(scheduler, think);
+          members.add(client);
+          all.add(client);
+        }
+        members.remove(0).host(members);
+        Thread.sleep(gap);
+      }
+
+      Thread.sleep(duration * 1000L);
+    } finally {
+      progress.cancel(false);
+      for (SimulatedClient client : all) {
+        client.stop();
+      }
+      scheduler.shutdownNow();
+    }
+  }
+
+  /**
+   * Print the rate of messages, the messages waiting to be sent across every client and the number
+   * of games finished so far
+   */
+  private static void printProgress() {
+    var out = Metrics.counter("network.messages.out").getRecent(PROGRESS_INTERVAL);
+    var in = Metrics.counter("network.messages.in").getRecent(PROGRESS_INTERVAL);
+    System.out.printf("%,.0f msg/s out, %,.0f msg/s in, %s waiting, %d games finished%n",
+        out / (double) PROGRESS_INTERVAL, in / (double) PROGRESS_INTERVAL,
+        Metrics.snapshot().get("network.outbound.depth"),
+        Metrics.counter("load.games").getCount());
+  }
+
+  /**
+   * Print the round trip of a kind of request
+   *
+   * @param name      what the request is
+   * @param histogram the round trips, in microseconds
+   */
+  private static void printRoundTrip(String name, Histogram histogram) {
+    System.out.printf("  %-6s %8d  mean %8.2f  p50 %8.2f  p90 %8.2f  p99 %8.2f  max %8.2f ms%n",
+        name, histogram.getCount(), histogram.getMean() / 1000,
+        histogram.getPercentile(50) / 1000.0, histogram.getPercentile(90) / 1000.0, histogram.getPercentile(99) / 1000.0,
+        histogram.getMax() / 1000.0);
+  }
+
+  /**
+   * Run a load from the command line and print a report. Options are given as
+   * {@code --name=value}: url (a server URL, or local to start a LocalServer), clients, players
+   * (in each channel), policy (random, greedy or lookahead), think (milliseconds between moves),
+   * chat (the chance of a chat message with each move), ramp and duration (in seconds) and seed.
+   *
+   * @param args the options
+   * @throws Exception if the load fails or the local server cannot be started
+   */
+  public static void main(String[] args) throws Exception {
+    //Only log warnings, as debug logging of every message would swamp the load
+    if (System.getProperty("log4j2.configurationFile") == null) {
+      System.setProperty("log4j2.configurationFile", "log4j2-simulation.xml");
+    }
+
+    var url = "local";
+    var clients = 100;
+    var players = 4;
+    var policy = "greedy";
+    var think = 250L;
+    var chat = 0.05;
+    var ramp = 5;
+    var duration = 60;
+    var seed = System.nanoTime();
+
+    for (String arg : args) {
+      var split = arg.indexOf('=');
+      if (!arg.startsWith("--") || split < 0) {
+        throw new IllegalArgumentException("Options must be given as --name=value: " + arg);
+      }
+      var value = arg.substring(split + 1);
+      switch (arg.substring(2, split)) {
+        case "url":
+          url = value;
+          break;
+        case "clients":
+          clients = Integer.parseInt(value);
+          break;
+        case "players":
+          players = Integer.parseInt(value);
+          break;
+        case "policy":
+          policy = value;
+          break;
+        case "think":
+          think = Long.parseLong(value);
+          break;
+        case "chat":
+          chat = Double.parseDouble(value);
+          break;
+        case "ramp":
+          ramp = Integer.parseInt(value);
+          break;
+        case "duration":
+          duration = Integer.parseInt(value);
+          break;
+        case "seed":
+          seed = Long.parseLong(value);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option: " + arg);
+      }
+    }
+
+    LocalServer server = null;
+    if (url.equals("local")) {
+      server = new LocalServer(0);
+      server.start();
+      url = server.getUrl();
+    }
+
+    System.out.printf("Running %d clients in channels of %d against %s with %s, seed %d%n",
+        clients, players, url, policy, seed);
+    var generator = new LoadGenerator(url, Policies.forName(policy), players, think, chat);
+    var start = System.nanoTime();
+    var messagesOut = Metrics.counter("network.messages.out");
+    var messagesIn = Metrics.counter("network.messages.in");
+    var startOut = messagesOut.getCount();
+    var startIn = messagesIn.getCount();
+    generator.run(clients, ramp, duration, seed);
+    var elapsed = (System.nanoTime() - start) / 1e9;
+
+    var out = messagesOut.getCount() - startOut;
+    var in = messagesIn.getCount() - startIn;
+    System.out.printf("%d clients for %.1fs%n", clients, elapsed);
+    System.out.printf("  sent     %,12d  %,10.0f msg/s%n", out, out / elapsed);
+    System.out.printf("  received %,12d  %,10.0f msg/s%n", in, in / elapsed);
+    System.out.println("Round trips:");
+    printRoundTrip("PIECE", Metrics.histogram("load.rtt.piece.micros"));
+    printRoundTrip("MSG", Metrics.histogram("load.rtt.msg.micros"));
+    printRoundTrip("JOIN", Metrics.histogram("load.rtt.join.micros"));
+    System.out.printf("Games finished %d, moves %d, starved turns %d, errors %d, dropped %d%n",
+        Metrics.counter("load.games").getCount(), Metrics.counter("load.moves").getCount(),
+        Metrics.counter("load.starved").getCount(), Metrics.counter("load.errors").getCount(),
+        Metrics.counter("network.outbound.dropped").getCount());
+
+    if (server != null) {
+      server.stop();
+      server.join();
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package uk.ac.soton.comp1206.simulation;
+
+import uk.ac.soton.comp1206.bot.Move;
+import uk.ac.soton.comp1206.bot.OpenBoardEvaluator;
+import uk.ac.soton.comp1206.bot.Search;
+import uk.ac.soton.comp1206.engine.GamePiece;
+
+/**
+ * The standard policies the Simulator can play with
+ */
+public final class Policies {
+
+  private Policies() {
+  }
+
+  /**
+   * A policy which plays the current piece in a random legal rotation and place, and never swaps
+   *
+   * @return the policy
+   */
+  public static Policy random() {
+    return (engine, random) -> {
+      var piece = engine.getCurrentPiece();
+      var placements = engine.findPlacements(piece);
+      if (placements.isEmpty()) {
+        return null;
+      }
+
+      //Pick one of the placements of every rotation together
+      var choice = random.nextInt(placements.size());
+      for (var rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+        var count = placements.size(rotation);
+        if (choice >= count) {
+          choice -= count;
+          continue;
+        }
+        var centres = placements.getCentres(rotation);
+        var index = centres.next(0);
+        for (var skip = 0; skip < choice; skip++) {
+          index = centres.next(index + 1);
+        }
+        return new Move(false, rotation, index % placements.getCols(),
+            index / placements.getCols(), 0);
+      }
+      return null;
+    };
+  }
+
+  /**
+   * A policy which searches one piece ahead with the standard evaluator
+   *
+   * @return the policy
+   */
+  public static Policy greedy() {
+    return search(1);
+  }
+
+  /**
+   * A policy which searches the current and following pieces with the standard evaluator
+   *
+   * @return the policy
+   */
+  public static Policy lookahead() {
+    return search(2);
+  }
+
+  /**
+   * A policy which searches on the calling thread, without a deadline
+   *
+   * @param depth the number of pieces to look ahead, 1 or 2
+   * @return the policy
+   */
+  private static Policy search(int depth) {
+    var search = new Search(new OpenBoardEvaluator(), depth);
+    return (engine, random) -> search.findMove(engine.getBoard(), engine.getCurrentPiece(),
+        engine.getFollowingPiece(), engine.getMultiplier(), Long.MAX_VALUE);
+  }
+
+  /**
+   * Get a standard policy by name
+   *
+   * @param name random, greedy or lookahead
+   * @return the policy
+   */
+  public static Policy forName(String name) {
+    switch (name) {
+      case "random":
+        return random();
+      case "greedy":
+        return greedy();
+      case "lookahead":
+        return lookahead();
+      default:
+        throw new IllegalArgumentException("No such policy: " + name);
+    }
+  }
+}
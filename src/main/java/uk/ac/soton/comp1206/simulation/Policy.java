@@ -0,0 +1,25 @@
+package uk.ac.soton.comp1206.simulation;
+
+import java.util.SplittableRandom;
+import uk.ac.soton.comp1206.bot.Move;
+import uk.ac.soton.comp1206.engine.GameEngine;
+
+/**
+ * A Policy chooses the moves in a simulated game.
+ * <p>
+ * One policy is shared by every game in a simulation and called from many threads at once, so it
+ * must not keep any state between calls. Anything random should be drawn from the generator passed
+ * in, which belongs to the game being played.
+ */
+@FunctionalInterface
+public interface Policy {
+
+  /**
+   * Choose the next move
+   *
+   * @param engine the game to move in, which must not be changed
+   * @param random the game's own random number generator
+   * @return the move, or null if there is nothing to play and the player should run out of time
+   */
+  Move choose(GameEngine engine, SplittableRandom random);
+}
@@ -0,0 +1,445 @@
+package uk.ac.soton.comp1206.simulation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import uk.ac.soton.comp1206.engine.Board;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.GameEngineListener;
+import uk.ac.soton.comp1206.engine.GamePiece;
+import uk.ac.soton.comp1206.engine.ManualGameTimer;
+import uk.ac.soton.comp1206.metrics.Counter;
+import uk.ac.soton.comp1206.metrics.Histogram;
+import uk.ac.soton.comp1206.metrics.Metrics;
+import uk.ac.soton.comp1206.network.BoardSync;
+import uk.ac.soton.comp1206.network.Communicator;
+import uk.ac.soton.comp1206.network.Message;
+
+/**
+ * A SimulatedClient plays multiplayer TetrECS against a server without a user interface, for the
+ * LoadGenerator. It talks to the server through its own Communicator and plays the game with a
+ * GameEngine and a Policy, sending the same messages at the same points as a MultiplayerGame:
+ * PIECE for every piece taken, the board after every move, and SCORE, LIVES and DIE as they
+ * change.
+ * <p>
+ * The first client of each channel is its host: it creates the channel, lets the other clients
+ * join it, starts the game once they all have, and starts another once the server's scores show
+ * every player dead.
+ * <p>
+ * The round trip of every PIECE, chat message and JOIN is measured into histograms in the
+ * {@link Metrics} registry. Messages arrive on the Communicator's threads and moves are played on
+ * the LoadGenerator's scheduler, so everything the client holds is guarded by the client itself.
+ */
+class SimulatedClient implements GameEngineListener {
+
+  /**
+   * The number of pieces asked for ahead, as a MultiplayerGame does
+   */
+  private static final int PIECE_QUEUE_DEPTH = 6;
+
+  /**
+   * The number of columns and rows on the board
+   */
+  private static final int BOARD_SIZE = 5;
+
+  /**
+   * The round trip from asking for a piece to being dealt it, in microseconds
+   */
+  private static final Histogram PIECE_RTT = Metrics.histogram("load.rtt.piece.micros");
+
+  /**
+   * The round trip from sending a chat message to it coming back, in microseconds
+   */
+  private static final Histogram MSG_RTT = Metrics.histogram("load.rtt.msg.micros");
+
+  /**
+   * The round trip from asking to join or create a channel to being in it, in microseconds
+   */
+  private static final Histogram JOIN_RTT = Metrics.histogram("load.rtt.join.micros");
+
+  /**
+   * Counts the games finished
+   */
+  private static final Counter GAMES = Metrics.counter("load.games");
+
+  /**
+   * Counts the moves played
+   */
+  private static final Counter MOVES = Metrics.counter("load.moves");
+
+  /**
+   * Counts the turns a client had no piece to play, as the server had not dealt one yet
+   */
+  private static final Counter STARVED = Metrics.counter("load.starved");
+
+  /**
+   * Counts the errors the server sent
+   */
+  private static final Counter ERRORS = Metrics.counter("load.errors");
+
+  /**
+   * The client's nickname
+   */
+  private final String nickname;
+
+  /**
+   * The channel the client plays in
+   */
+  private final String channel;
+
+  /**
+   * The client's connection to the server
+   */
+  private final Communicator communicator;
+
+  /**
+   * Chooses the moves
+   */
+  private final Policy policy;
+
+  /**
+   * The client's own random number generator
+   */
+  private final SplittableRandom random;
+
+  /**
+   * The chance of sending a chat message with each move
+   */
+  private final double chatRate;
+
+  /**
+   * Sends the board after each move
+   */
+  private final BoardSync boardSync;
+
+  /**
+   * The board the game is played on
+   */
+  private final Board board = new Board(BOARD_SIZE, BOARD_SIZE);
+
+  /**
+   * The timer of the game, which only runs out when the client cannot move
+   */
+  private final ManualGameTimer timer = new ManualGameTimer();
+
+  /**
+   * The pieces dealt by the server and not yet taken
+   */
+  private final Queue<GamePiece> pieceQueue = new ArrayDeque<>();
+
+  /**
+   * When each piece asked for and not yet dealt was asked for
+   */
+  private final Queue<Long> pieceRequests = new ArrayDeque<>();
+
+  /**
+   * When each chat message not yet come back was sent
+   */
+  private final Queue<Long> messages = new ArrayDeque<>();
+
+  /**
+   * The other clients in the channel, if this client is its host
+   */
+  private final List<SimulatedClient> members = new ArrayList<>();
+
+  /**
+   * Whether this client is the host of its channel
+   */
+  private boolean host;
+
+  /**
+   * Whether this client has asked to start a game which has not started yet
+   */
+  private boolean startRequested;
+
+  /**
+   * When the client asked to join or create its channel
+   */
+  private long joinRequested;
+
+  /**
+   * The game being played, or null if there is none
+   */
+  private GameEngine engine;
+
+  /**
+   * Whether the game being played is over
+   */
+  private boolean over;
+
+  /**
+   * Plays the moves
+   */
+  private ScheduledFuture<?> ticker;
+
+  /**
+   * Create a client and start connecting it to the server
+   *
+   * @param server   the URL of the server
+   * @param nickname the client's nickname
+   * @param channel  the channel the client plays in
+   * @param policy   chooses the moves
+   * @param random   the client's own random number generator
+   * @param chatRate the chance of sending a chat message with each move
+   */
+  SimulatedClient(String server, String nickname, String channel, Policy policy,
+      SplittableRandom random, double chatRate) {
+    this.nickname = nickname;
+    this.channel = channel;
+    this.policy = policy;
+    this.random = random;
+    this.chatRate = chatRate;
+    this.communicator = new Communicator(server);
+    this.boardSync = new BoardSync(communicator);
+
+    communicator.subscribe(Message.Piece.class, this::receivePiece);
+    communicator.subscribe(Message.Msg.class, this::receiveMessage);
+    communicator.subscribe(Message.Users.class, this::receiveUsers);
+    communicator.subscribe(Message.Scores.class, this::receiveScores);
+    communicator.subscribe(Message.Start.class, start -> startGame());
+    communicator.subscribe(Message.Features.class, this::receiveFeatures);
+    communicator.subscribe(Message.Error.class, error -> ERRORS.increment());
+    communicator.subscribe(Message.Other.class, this::receiveOther);
+
+    communicator.send("NICK " + nickname);
+  }
+
+  /**
+   * Make this client the host of its channel, creating it and letting the given clients join
+   *
+   * @param members the other clients in the channel
+   */
+  synchronized void host(List<SimulatedClient> members) {
+    this.host = true;
+    this.members.addAll(members);
+    joinRequested = System.nanoTime();
+    communicator.send("CREATE " + channel);
+  }
+
+  /**
+   * Ask to join the channel, once the host has created it
+   */
+  private synchronized void join() {
+    joinRequested = System.nanoTime();
+    communicator.send("JOIN " + channel);
+  }
+
+  /**
+   * Start playing moves every so often, as long as there is a game
+   *
+   * @param scheduler the scheduler to play the moves on
+   * @param think     the time between moves, in milliseconds
+   */
+  synchronized void play(ScheduledExecutorService scheduler, long think) {
+    //Start at a random point in the first interval, so the clients do not all move at once
+    ticker = scheduler.scheduleAtFixedRate(this::tick, random.nextLong(think) + 1, think,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stop playing moves and close the connection
+   */
+  synchronized void stop() {
+    if (ticker != null) {
+      ticker.cancel(false);
+    }
+    if (engine != null) {
+      engine.stop();
+    }
+    communicator.close();
+  }
+
+  /**
+   * Handle the messages without a record of their own: being in the channel
+   *
+   * @param message the message
+   */
+  private synchronized void receiveOther(Message.Other message) {
+    if (!message.type().equals("JOIN")) {
+      return;
+    }
+    JOIN_RTT.record((System.nanoTime() - joinRequested) / 1000);
+    if (host) {
+      for (SimulatedClient member : members) {
+        member.join();
+      }
+      if (members.isEmpty()) {
+        requestStart();
+      }
+    }
+  }
+
+  /**
+   * Start the game once everyone has joined, if this client is the host
+   *
+   * @param users the users in the channel
+   */
+  private synchronized void receiveUsers(Message.Users users) {
+    if (host && engine == null && users.users().size() == members.size() + 1) {
+      requestStart();
+    }
+  }
+
+  /**
+   * Start another game once every player in the channel is dead, if this client is the host
+   *
+   * @param scores the players' scores
+   */
+  private synchronized void receiveScores(Message.Scores scores) {
+    if (!host || !over || scores.scores().size() != members.size() + 1) {
+      return;
+    }
+    for (Message.PlayerScore score : scores.scores()) {
+      if (!score.lives().equals("DEAD")) {
+        return;
+      }
+    }
+    requestStart();
+  }
+
+  /**
+   * Ask the server to start a game, unless already waiting for one to start
+   */
+  private void requestStart() {
+    if (!startRequested) {
+      startRequested = true;
+      communicator.send("START");
+    }
+  }
+
+  /**
+   * Start a new game, asking for pieces ahead as a MultiplayerGame does
+   */
+  private synchronized void startGame() {
+    if (engine != null) {
+      engine.stop();
+    }
+    board.reset();
+    pieceQueue.clear();
+    pieceRequests.clear();
+    over = false;
+    startRequested = false;
+    boardSync.reset();
+    boardSync.negotiate();
+    communicator.send("SCORES");
+
+    engine = new GameEngine(board, this::takePiece, timer, timer);
+    engine.setListener(this);
+    for (int i = 0; i < PIECE_QUEUE_DEPTH; i++) {
+      requestPiece();
+    }
+  }
+
+  /**
+   * Turn on the delta form of board if the server understands it
+   *
+   * @param features the features the server understands
+   */
+  private synchronized void receiveFeatures(Message.Features features) {
+    boardSync.receiveFeatures(features);
+  }
+
+  /**
+   * Take a piece dealt by the server, starting the game once two have been
+   *
+   * @param piece the piece
+   */
+  private synchronized void receivePiece(Message.Piece piece) {
+    var requested = pieceRequests.poll();
+    if (requested != null) {
+      PIECE_RTT.record((System.nanoTime() - requested) / 1000);
+    }
+    pieceQueue.add(GamePiece.createPiece(piece.value()));
+    if (engine != null && engine.getCurrentPiece() == null && pieceQueue.size() >= 2) {
+      engine.start();
+    }
+  }
+
+  /**
+   * Measure the round trip of this client's own chat messages
+   *
+   * @param message the chat message
+   */
+  private synchronized void receiveMessage(Message.Msg message) {
+    if (message.player().equals(nickname)) {
+      var sent = messages.poll();
+      if (sent != null) {
+        MSG_RTT.record((System.nanoTime() - sent) / 1000);
+      }
+    }
+  }
+
+  /**
+   * Take the next piece dealt by the server and ask for another
+   *
+   * @return the piece
+   */
+  private GamePiece takePiece() {
+    requestPiece();
+    return pieceQueue.remove();
+  }
+
+  /**
+   * Ask the server for a piece, timing the round trip only if the request was sent, so a dropped
+   * one does not pair a later piece with the wrong request
+   */
+  private void requestPiece() {
+    var requested = System.nanoTime();
+    if (communicator.send("PIECE")) {
+      pieceRequests.add(requested);
+    }
+  }
+
+  /**
+   * Play the policy's move, or run out of time if there is none, then send the board and perhaps
+   * a chat message
+   */
+  private synchronized void tick() {
+    if (engine == null || over || engine.getCurrentPiece() == null) {
+      return;
+    }
+
+    //Both playing a piece and running out of time take the next piece
+    if (pieceQueue.isEmpty()) {
+      STARVED.increment();
+      return;
+    }
+
+    var move = policy.choose(engine, random);
+    if (move == null || !move.playOn(engine)) {
+      timer.expire();
+    }
+    MOVES.increment();
+    if (!over) {
+      boardSync.sync(board);
+    }
+
+    if (random.nextDouble() < chatRate) {
+      messages.add(System.nanoTime());
+      communicator.send("MSG " + nickname + " scored " + engine.getScore());
+    }
+  }
+
+  @Override
+  public void scoreChanged(int score) {
+    communicator.send("SCORE " + score);
+  }
+
+  @Override
+  public void livesChanged(int lives) {
+    communicator.send("LIVES " + lives);
+  }
+
+  @Override
+  public void gameOver() {
+    over = true;
+    engine.stop();
+    GAMES.increment();
+    communicator.send("DIE");
+  }
+}
@@ -0,0 +1,233 @@
+package uk.ac.soton.comp1206.simulation;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * The results of every game in a simulation, kept as one primitive array per measure indexed by
+ * game number. Each game is only ever written by the thread that played it, so recording needs no
+ * locking.
+ */
+public class SimulationResults {
+
+  /**
+   * The final score of each game
+   */
+  private final int[] scores;
+
+  /**
+   * The number of lines cleared in each game
+   */
+  private final int[] lines;
+
+  /**
+   * The level reached in each game
+   */
+  private final int[] levels;
+
+  /**
+   * The number of turns in each game, one for every piece played or timed out
+   */
+  private final int[] turns;
+
+  /**
+   * The number of turns in each game where neither piece could be played anywhere
+   */
+  private final int[] starved;
+
+  /**
+   * Whether each game was cut off at the turn limit before the player ran out of lives
+   */
+  private final boolean[] unfinished;
+
+  /**
+   * How long the simulation took, in nanoseconds
+   */
+  private long elapsed;
+
+  /**
+   * Create empty results for the given number of games
+   *
+   * @param games number of games
+   */
+  public SimulationResults(int games) {
+    scores = new int[games];
+    lines = new int[games];
+    levels = new int[games];
+    turns = new int[games];
+    starved = new int[games];
+    unfinished = new boolean[games];
+  }
+
+  /**
+   * Record the result of a game
+   *
+   * @param game       the game number
+   * @param score      the final score
+   * @param lines      the number of lines cleared
+   * @param level      the level reached
+   * @param turns      the number of turns played
+   * @param starved    the number of turns nothing could be played
+   * @param unfinished true if the game was cut off at the turn limit
+   */
+  void record(int game, int score, int lines, int level, int turns, int starved,
+      boolean unfinished) {
+    this.scores[game] = score;
+    this.lines[game] = lines;
+    this.levels[game] = level;
+    this.turns[game] = turns;
+    this.starved[game] = starved;
+    this.unfinished[game] = unfinished;
+  }
+
+  /**
+   * Set how long the simulation took
+   *
+   * @param elapsed the time in nanoseconds
+   */
+  void setElapsed(long elapsed) {
+    this.elapsed = elapsed;
+  }
+
+  /**
+   * Get the number of games
+   *
+   * @return number of games
+   */
+  public int getGames() {
+    return scores.length;
+  }
+
+  /**
+   * Get the final score of a game
+   *
+   * @param game the game number
+   * @return the score
+   */
+  public int getScore(int game) {
+    return scores[game];
+  }
+
+  /**
+   * Get the mean score over every game
+   *
+   * @return the mean score
+   */
+  public double getMeanScore() {
+    return mean(scores);
+  }
+
+  /**
+   * Get the fraction of all turns where neither piece could be played anywhere
+   *
+   * @return the starvation rate, from 0 to 1
+   */
+  public double getStarvationRate() {
+    var totalTurns = sum(turns);
+    return totalTurns == 0 ? 0 : (double) sum(starved) / totalTurns;
+  }
+
+  /**
+   * Print a summary table of the simulation
+   *
+   * @param out where to print
+   */
+  public void printSummary(PrintStream out) {
+    var games = getGames();
+    var unfinishedGames = 0;
+    for (boolean cutOff : unfinished) {
+      if (cutOff) {
+        unfinishedGames++;
+      }
+    }
+
+    out.printf("%d games in %.2fs (%.0f games/s)%n", games, elapsed / 1e9,
+        elapsed == 0 ? 0 : games / (elapsed / 1e9));
+    if (unfinishedGames > 0) {
+      out.printf("%d games reached the turn limit%n", unfinishedGames);
+    }
+    out.printf("%-8s %10s %10s %10s %10s %10s %10s %10s%n", "", "mean", "min", "p10", "p50", "p90",
+        "p99", "max");
+    printRow(out, "score", scores);
+    printRow(out, "lines", lines);
+    printRow(out, "level", levels);
+    printRow(out, "turns", turns);
+    out.printf("starvation rate %.4f%n", getStarvationRate());
+  }
+
+  /**
+   * Write the result of every game as a CSV file
+   *
+   * @param file the file to write
+   * @throws IOException if the file cannot be written
+   */
+  public void writeCsv(Path file) throws IOException {
+    try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+      writer.write("game,score,lines,level,turns,starved,unfinished");
+      writer.newLine();
+      for (var game = 0; game < getGames(); game++) {
+        writer.write(game + "," + scores[game] + "," + lines[game] + "," + levels[game] + ","
+            + turns[game] + "," + starved[game] + "," + unfinished[game]);
+        writer.newLine();
+      }
+    }
+  }
+
+  /**
+   * Print one row of the summary table
+   *
+   * @param out    where to print
+   * @param name   the name of the measure
+   * @param values the value for every game
+   */
+  private static void printRow(PrintStream out, String name, int[] values) {
+    if (values.length == 0) {
+      return;
+    }
+    var sorted = values.clone();
+    Arrays.sort(sorted);
+    out.printf("%-8s %10.1f %10d %10d %10d %10d %10d %10d%n", name, mean(values), sorted[0],
+        percentile(sorted, 0.10), percentile(sorted, 0.50), percentile(sorted, 0.90),
+        percentile(sorted, 0.99), sorted[sorted.length - 1]);
+  }
+
+  /**
+   * Get a percentile of sorted values by the nearest rank
+   *
+   * @param sorted   the values, in order
+   * @param fraction the percentile as a fraction
+   * @return the value
+   */
+  private static int percentile(int[] sorted, double fraction) {
+    var rank = (int) Math.ceil(fraction * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(sorted.length - 1, rank))];
+  }
+
+  /**
+   * Add up values
+   *
+   * @param values the values
+   * @return the total
+   */
+  private static long sum(int[] values) {
+    var total = 0L;
+    for (int value : values) {
+      total += value;
+    }
+    return total;
+  }
+
+  /**
+   * Get the mean of values
+   *
+   * @param values the values
+   * @return the mean, or 0 if there are none
+   */
+  private static double mean(int[] values) {
+    return values.length == 0 ? 0 : (double) sum(values) / values.length;
+  }
+}
@@ -0,0 +1,288 @@
+package uk.ac.soton.comp1206.simulation;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import uk.ac.soton.comp1206.engine.Board;
+import uk.ac.soton.comp1206.engine.CellSet;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.GameEngineListener;
+import uk.ac.soton.comp1206.engine.ManualGameTimer;
+import uk.ac.soton.comp1206.engine.RandomPieceSource;
+
+/**
+ * The Simulator plays many games of TetrECS at once with a Policy choosing the moves, using the
+ * same GameEngine rules as the real game, and collects how they went.
+ * <p>
+ * Games are split into batches which run on a fixed pool of threads. Every game draws its pieces
+ * from its own SplittableRandom, split in order from the seed of the simulation, so a simulation
+ * with the same seed, batch size and policy always plays the same games whatever the number of
+ * threads. The policy draws from a stream split off the game's, so the pieces dealt depend only on
+ * the seed, and every policy is dealt the same pieces. A batch reuses one board for all of its games and writes its results straight into the
+ * SimulationResults arrays, so the threads share nothing while they run.
+ * <p>
+ * Time does not pass in a simulation: a move is played as soon as the policy chooses it. When the
+ * policy has nothing to play the piece times out straight away, costing a life. The turn is counted
+ * as starved only if neither the current nor the following piece could have been played anywhere,
+ * so a policy passing on a turn it could have played is not mistaken for starvation.
+ * <p>
+ * It can be run from the command line, for example after {@code mvn package -Pshade}:
+ * <pre>
+ * java -cp target/tetrecs-1.0-SNAPSHOT-shaded.jar uk.ac.soton.comp1206.simulation.Simulator
+ *     --games=100000 --threads=8 --policy=greedy --seed=1 --csv=games.csv
+ * </pre>
+ */
+public class Simulator {
+
+  /**
+   * The number of games in each batch handed to a thread
+   */
+  private static final int BATCH_SIZE = 256;
+
+  /**
+   * The number of columns on the board
+   */
+  private final int cols;
+
+  /**
+   * The number of rows on the board
+   */
+  private final int rows;
+
+  /**
+   * Chooses the moves
+   */
+  private final Policy policy;
+
+  /**
+   * The number of threads to play on
+   */
+  private final int threads;
+
+  /**
+   * The most turns a game can last before it is cut off
+   */
+  private final int maxTurns;
+
+  /**
+   * Create a simulator
+   *
+   * @param cols     number of columns on the board
+   * @param rows     number of rows on the board
+   * @param policy   chooses the moves
+   * @param threads  the number of threads to play on
+   * @param maxTurns the most turns a game can last before it is cut off
+   */
+  public Simulator(int cols, int rows, Policy policy, int threads, int maxTurns) {
+    this.cols = cols;
+    this.rows = rows;
+    this.policy = policy;
+    this.threads = threads;
+    this.maxTurns = maxTurns;
+  }
+
+  /**
+   * Play the given number of games
+   *
+   * @param games number of games
+   * @param seed  the seed every game's pieces are drawn from
+   * @return the results
+   * @throws InterruptedException if interrupted while waiting for the games
+   */
+  public SimulationResults run(int games, long seed) throws InterruptedException {
+    var results = new SimulationResults(games);
+    var random = new SplittableRandom(seed);
+    var start = System.nanoTime();
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+      var thread = new Thread(runnable, "simulator");
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      var batches = new ArrayList<Callable<Void>>();
+      for (var from = 0; from < games; from += BATCH_SIZE) {
+        var batchFrom = from;
+        var batchTo = Math.min(games, from + BATCH_SIZE);
+        var batchRandom = random.split();
+        batches.add(() -> {
+          playBatch(results, batchFrom, batchTo, batchRandom);
+          return null;
+        });
+      }
+
+      for (Future<Void> batch : executor.invokeAll(batches)) {
+        try {
+          batch.get();
+        } catch (ExecutionException e) {
+          throw new IllegalStateException("Simulated game failed", e.getCause());
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    results.setElapsed(System.nanoTime() - start);
+    return results;
+  }
+
+  /**
+   * Play a batch of games on the calling thread
+   *
+   * @param results where to record the games
+   * @param from    the first game number
+   * @param to      one past the last game number
+   * @param random  the generator the batch's games split theirs from
+   */
+  private void playBatch(SimulationResults results, int from, int to, SplittableRandom random) {
+    var board = new Board(cols, rows);
+    var timer = new ManualGameTimer();
+    var stats = new GameStats();
+
+    for (var game = from; game < to; game++) {
+      var gameRandom = random.split();
+      board.reset();
+      stats.reset();
+
+      //The policy has a stream of its own, so its draws do not change the pieces dealt
+      var policyRandom = gameRandom.split();
+      var engine = new GameEngine(board, new RandomPieceSource(gameRandom), timer, timer);
+      engine.setListener(stats);
+      engine.start();
+
+      var turns = 0;
+      var starved = 0;
+      while (!stats.over && turns < maxTurns) {
+        turns++;
+        var move = policy.choose(engine, policyRandom);
+        if (move == null || !move.playOn(engine)) {
+          if (isStarved(engine)) {
+            starved++;
+          }
+          timer.expire();
+        }
+      }
+      engine.stop();
+
+      results.record(game, engine.getScore(), stats.lines, engine.getLevel(), turns, starved,
+          !stats.over);
+    }
+  }
+
+  /**
+   * Check whether neither the current nor the following piece can be played anywhere on the board
+   *
+   * @param engine the game
+   * @return true if neither piece fits
+   */
+  private static boolean isStarved(GameEngine engine) {
+    return engine.findPlacements(engine.getCurrentPiece()).isEmpty()
+        && engine.findPlacements(engine.getFollowingPiece()).isEmpty();
+  }
+
+  /**
+   * Counts what the engine reports during a game
+   */
+  private static class GameStats implements GameEngineListener {
+
+    /**
+     * The number of lines cleared
+     */
+    private int lines;
+
+    /**
+     * Whether the game is over
+     */
+    private boolean over;
+
+    /**
+     * Get ready for another game
+     */
+    void reset() {
+      lines = 0;
+      over = false;
+    }
+
+    @Override
+    public void linesCleared(int lines, CellSet blocks) {
+      this.lines += lines;
+    }
+
+    @Override
+    public void gameOver() {
+      over = true;
+    }
+  }
+
+  /**
+   * Run a simulation from the command line and print a summary. Options are given as
+   * {@code --name=value}: games, threads, policy (random, greedy or lookahead), seed, size,
+   * max-turns and csv (a file to write every game to).
+   *
+   * @param args the options
+   * @throws Exception if the simulation fails or the CSV cannot be written
+   */
+  public static void main(String[] args) throws Exception {
+    //Only log warnings, as debug logging of every move would swamp the simulation
+    if (System.getProperty("log4j2.configurationFile") == null) {
+      System.setProperty("log4j2.configurationFile", "log4j2-simulation.xml");
+    }
+
+    var games = 10000;
+    var threads = Runtime.getRuntime().availableProcessors();
+    var policy = "greedy";
+    var seed = System.nanoTime();
+    var size = 5;
+    var maxTurns = 10000;
+    String csv = null;
+
+    for (String arg : args) {
+      var split = arg.indexOf('=');
+      if (!arg.startsWith("--") || split < 0) {
+        throw new IllegalArgumentException("Options must be given as --name=value: " + arg);
+      }
+      var value = arg.substring(split + 1);
+      switch (arg.substring(2, split)) {
+        case "games":
+          games = Integer.parseInt(value);
+          break;
+        case "threads":
+          threads = Integer.parseInt(value);
+          break;
+        case "policy":
+          policy = value;
+          break;
+        case "seed":
+          seed = Long.parseLong(value);
+          break;
+        case "size":
+          size = Integer.parseInt(value);
+          break;
+        case "max-turns":
+          maxTurns = Integer.parseInt(value);
+          break;
+        case "csv":
+          csv = value;
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option: " + arg);
+      }
+    }
+
+    System.out.printf("Simulating %d games of %s on a %dx%d board with %d threads, seed %d%n",
+        games, policy, size, size, threads, seed);
+    var simulator = new Simulator(size, size, Policies.forName(policy), threads, maxTurns);
+    var results = simulator.run(games, seed);
+    results.printSummary(System.out);
+
+    if (csv != null) {
+      results.writeCsv(Path.of(csv));
+      System.out.println("Wrote " + csv);
+    }
+  }
+}
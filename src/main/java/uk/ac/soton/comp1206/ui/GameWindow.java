@@ -10,6 +10,9 @@ import javafx.stage.Stage;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.App;
+import uk.ac.soton.comp1206.component.BlockTextures;
+import uk.ac.soton.comp1206.jfr.SceneSwitchEvent;
+import uk.ac.soton.comp1206.metrics.SceneMetrics;
 import uk.ac.soton.comp1206.scene.ScoresScene;
 import uk.ac.soton.comp1206.network.Communicator;
 import uk.ac.soton.comp1206.scene.*;
@@ -41,8 +44,9 @@ public class GameWindow {
    * @param stage  stage
    * @param width  width
    * @param height height
+   * @param server the URL of the server to play online with
    */
-  public GameWindow(Stage stage, int width, int height) {
+  public GameWindow(Stage stage, int width, int height, String server) {
     this.width = width;
     this.height = height;
 
@@ -58,7 +62,7 @@ public class GameWindow {
     setupDefaultScene();
 
     //Setup communicator
-    communicator = new Communicator("ws://ofb-labs.soton.ac.uk:9700");
+    communicator = new Communicator(server);
 
     //Go to menu
     startMenu();
@@ -72,6 +76,9 @@ public class GameWindow {
 
     //We need to load fonts here due to the Font loader bug with spaces in URLs in the CSS files
     Font.loadFont(getClass().getResourceAsStream("/style/LGGothic.ttf"), 32);
+
+    //Decode the block textures now rather than when the first block is painted
+    BlockTextures.shared();
   }
 
   /**
@@ -88,6 +95,13 @@ public class GameWindow {
     loadScene(new ChallengeScene(this));
   }
 
+  /**
+   * Display the endless game on a big board
+   */
+  public void startEndless() {
+    loadScene(new EndlessScene(this));
+  }
+
   /**
    * Display the instructions
    */
@@ -103,6 +117,15 @@ public class GameWindow {
     loadScene(new ScoresScene(this, score));
   }
 
+  /**
+   * Display the scores (Singleplayer), saving the seed of the game with the score
+   * @param score the score gotten in singleplayer
+   * @param seed the seed of the game
+   */
+  public void startScores(Integer score, long seed) {
+    loadScene(new ScoresScene(this, score, seed));
+  }
+
   /**
    * Display the scores (Multiplayer)
    * @param scoresProperty scores of players in the multiplayer game
@@ -142,14 +165,23 @@ public class GameWindow {
    * @param newScene new scene to load
    */
   public void loadScene(BaseScene newScene) {
+    var event = new SceneSwitchEvent();
+    event.begin();
+
     //Cleanup remains of the previous scene
     cleanup();
 
     //Create the new scene and set it up
     newScene.build();
+    if (event.isEnabled()) {
+      event.from = currentScene == null ? null : currentScene.getClass().getSimpleName();
+      event.to = newScene.getClass().getSimpleName();
+    }
     currentScene = newScene;
     scene = newScene.setScene();
+    SceneMetrics.instrument(scene);
     stage.setScene(scene);
+    event.commit();
 
     //Initialise the scene when ready
     Platform.runLater(() -> currentScene.initialise());
@@ -0,0 +1,69 @@
+package uk.ac.soton.comp1206.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the buckets and percentiles of the Histogram
+ */
+class HistogramTest {
+
+  /**
+   * Every value falls in a bucket whose range holds it, to within an eighth
+   */
+  @Test
+  void bucketHoldsValue() {
+    var values = new long[] {0, 1, 7, 8, 9, 15, 16, 17, 100, 1000, 123456789, Long.MAX_VALUE};
+    for (long value : values) {
+      var bucket = Histogram.bucket(value);
+      assertTrue(Histogram.highest(bucket) >= value, "highest of bucket of " + value);
+      if (bucket > 0) {
+        assertTrue(Histogram.highest(bucket - 1) < value, "highest of bucket before " + value);
+      }
+      assertTrue(Histogram.highest(bucket) - value <= value / 8, "width of bucket of " + value);
+    }
+  }
+
+  /**
+   * Buckets follow on from each other with no gaps
+   */
+  @Test
+  void bucketsAreContiguous() {
+    for (var bucket = 0; bucket < 400; bucket++) {
+      var next = Histogram.highest(bucket) + 1;
+      assertEquals(bucket + 1, Histogram.bucket(next));
+    }
+  }
+
+  /**
+   * Small values are exact, and percentiles never pass the largest value
+   */
+  @Test
+  void percentiles() {
+    var histogram = new Histogram();
+    for (var value = 1; value <= 100; value++) {
+      histogram.record(value);
+    }
+    histogram.record(-5);
+
+    assertEquals(101, histogram.getCount());
+    assertEquals(100, histogram.getMax());
+    assertEquals(0, histogram.getPercentile(0));
+    assertEquals(5, histogram.getPercentile(5));
+    var median = histogram.getPercentile(50);
+    assertTrue(median >= 50 && median <= 50 + 50 / 8, "median " + median);
+    assertEquals(100, histogram.getPercentile(100));
+  }
+
+  /**
+   * An empty histogram reports zeroes
+   */
+  @Test
+  void empty() {
+    var histogram = new Histogram();
+    assertEquals(0, histogram.getMean());
+    assertEquals(0, histogram.getPercentile(99));
+  }
+}
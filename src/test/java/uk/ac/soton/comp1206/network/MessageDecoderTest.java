@@ -0,0 +1,59 @@
+package uk.ac.soton.comp1206.network;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests parsing messages from the server into their records
+ */
+class MessageDecoderTest {
+
+  /**
+   * Each known type is parsed into its record
+   */
+  @Test
+  void decodesKnownTypes() {
+    assertEquals(new Message.Piece(7), MessageDecoder.decode("PIECE 7"));
+    assertEquals(new Message.Msg("alice", "hi: there"),
+        MessageDecoder.decode("MSG alice:hi: there"));
+    assertEquals(new Message.Users(List.of("alice", "bob")),
+        MessageDecoder.decode("USERS alice\nbob\n"));
+    assertEquals(new Message.Features(List.of("BOARDDELTA", "X")),
+        MessageDecoder.decode("FEATURES BOARDDELTA  X"));
+    assertEquals(new Message.Start(), MessageDecoder.decode("START"));
+  }
+
+  /**
+   * A type not known is kept with its body
+   */
+  @Test
+  void decodesOther() {
+    assertEquals(new Message.Other("JOIN", "lobby"), MessageDecoder.decode("JOIN lobby"));
+    assertEquals(Message.Other.class, MessageDecoder.recordOf("JOIN"));
+    assertEquals(Message.Scores.class, MessageDecoder.recordOf("SCORES"));
+  }
+
+  /**
+   * A malformed piece is dropped rather than thrown
+   */
+  @Test
+  void dropsMalformedPiece() {
+    assertNull(MessageDecoder.decode("PIECE x"));
+    assertNull(MessageDecoder.decode("PIECE"));
+  }
+
+  /**
+   * Malformed score lines are left out, keeping the rest
+   */
+  @Test
+  void skipsMalformedScores() {
+    assertEquals(new Message.Scores(List.of(new Message.PlayerScore("alice", 10, "3"),
+            new Message.PlayerScore("carol", 5, "DEAD"))),
+        MessageDecoder.decode("SCORES alice:10:3\nbob:ten:2\nbroken\ncarol:5:DEAD"));
+    assertEquals(new Message.HiScores(List.of(new Message.HiScore("alice", 100))),
+        MessageDecoder.decode("HISCORES alice:100\nbob:99999999999"));
+  }
+}
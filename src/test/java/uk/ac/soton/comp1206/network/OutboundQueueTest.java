@@ -0,0 +1,166 @@
+package uk.ac.soton.comp1206.network;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import uk.ac.soton.comp1206.network.OutboundQueue.Offer;
+
+/**
+ * Tests the order the OutboundQueue hands messages to the writer in
+ */
+class OutboundQueueTest {
+
+  /**
+   * Offer a message, taking its type from its first word
+   *
+   * @param queue   the queue
+   * @param message the message
+   * @return how the message was queued
+   */
+  private static Offer offer(OutboundQueue queue, String message) {
+    return queue.offer(message, message.split(" ")[0], null);
+  }
+
+  /**
+   * Take every message waiting
+   *
+   * @param queue the queue
+   * @return the messages, in the order taken
+   * @throws InterruptedException if interrupted while taking
+   */
+  private static List<String> drain(OutboundQueue queue) throws InterruptedException {
+    List<String> messages = new ArrayList<>();
+    while (queue.size() > 0) {
+      messages.add(queue.take().getMessage());
+    }
+    return messages;
+  }
+
+  /**
+   * A newer board or score replaces the one waiting, in its place
+   */
+  @Test
+  void coalescesInPlace() throws InterruptedException {
+    var queue = new OutboundQueue(16);
+    assertEquals(Offer.QUEUED, offer(queue, "BOARD 1"));
+    assertEquals(Offer.QUEUED, offer(queue, "PIECE"));
+    assertEquals(Offer.QUEUED, offer(queue, "SCORE 10"));
+    assertEquals(Offer.COALESCED, offer(queue, "BOARD 2"));
+    assertEquals(Offer.COALESCED, offer(queue, "SCORE 20"));
+    assertEquals(Offer.QUEUED, offer(queue, "PIECE"));
+
+    assertEquals(List.of("BOARD 2", "PIECE", "SCORE 20", "PIECE"), drain(queue));
+  }
+
+  /**
+   * Other messages are all kept, in order
+   */
+  @Test
+  void keepsOtherMessages() throws InterruptedException {
+    var queue = new OutboundQueue(16);
+    offer(queue, "MSG a");
+    offer(queue, "MSG b");
+    offer(queue, "DIE");
+
+    assertEquals(List.of("MSG a", "MSG b", "DIE"), drain(queue));
+  }
+
+  /**
+   * A board taken is no longer replaced, so a newer one is queued behind it
+   */
+  @Test
+  void queuesBoardOnceTaken() throws InterruptedException {
+    var queue = new OutboundQueue(16);
+    offer(queue, "BOARD 1");
+    assertEquals("BOARD 1", queue.take().getMessage());
+
+    assertEquals(Offer.QUEUED, offer(queue, "BOARD 2"));
+    assertEquals(List.of("BOARD 2"), drain(queue));
+  }
+
+  /**
+   * A board offered after a delta does not replace the board the delta is applied on top of
+   */
+  @Test
+  void deltaIsBarrier() throws InterruptedException {
+    var queue = new OutboundQueue(16);
+    offer(queue, "BOARD 1");
+    offer(queue, "BOARDDELTA 0:1");
+    assertEquals(Offer.QUEUED, offer(queue, "BOARD 2"));
+    assertEquals(Offer.COALESCED, offer(queue, "BOARD 3"));
+
+    assertEquals(List.of("BOARD 1", "BOARDDELTA 0:1", "BOARD 3"), drain(queue));
+  }
+
+  /**
+   * A board put back ahead of a waiting delta is not replaced by a newer one
+   */
+  @Test
+  void putBackAheadOfDelta() throws InterruptedException {
+    var queue = new OutboundQueue(16);
+    offer(queue, "BOARD 1");
+    offer(queue, "BOARDDELTA 0:1");
+    queue.putBack(queue.take());
+    assertEquals(Offer.QUEUED, offer(queue, "BOARD 2"));
+
+    assertEquals(List.of("BOARD 1", "BOARDDELTA 0:1", "BOARD 2"), drain(queue));
+  }
+
+  /**
+   * A board retried without a delta waiting is replaced by a newer one as usual
+   */
+  @Test
+  void retryCoalesces() throws InterruptedException {
+    var queue = new OutboundQueue(16);
+    offer(queue, "BOARD 1");
+    offer(queue, "PIECE");
+    queue.retry(queue.take());
+    assertEquals(Offer.COALESCED, offer(queue, "BOARD 2"));
+
+    assertEquals(List.of("BOARD 2", "PIECE"), drain(queue));
+  }
+
+  /**
+   * A board put back is dropped if a newer one is already waiting
+   */
+  @Test
+  void putBackDroppedForNewer() throws InterruptedException {
+    var queue = new OutboundQueue(16);
+    offer(queue, "BOARD 1");
+    var taken = queue.take();
+    offer(queue, "BOARD 2");
+    queue.putBack(taken);
+
+    assertEquals(List.of("BOARD 2"), drain(queue));
+  }
+
+  /**
+   * Messages put at the front go ahead of those waiting, however full the queue is
+   */
+  @Test
+  void offerFirstIgnoresCapacity() throws InterruptedException {
+    var queue = new OutboundQueue(1);
+    assertEquals(Offer.QUEUED, offer(queue, "PIECE"));
+    assertEquals(Offer.DROPPED, offer(queue, "DIE"));
+    queue.offerFirst("JOIN lobby", "JOIN");
+    queue.offerFirst("NICK player", "NICK");
+
+    assertEquals(List.of("NICK player", "JOIN lobby", "PIECE"), drain(queue));
+  }
+
+  /**
+   * A full queue still replaces a waiting board, as that takes no more room
+   */
+  @Test
+  void coalescesWhenFull() throws InterruptedException {
+    var queue = new OutboundQueue(2);
+    offer(queue, "BOARD 1");
+    offer(queue, "PIECE");
+    assertEquals(Offer.DROPPED, offer(queue, "PIECE"));
+    assertEquals(Offer.COALESCED, offer(queue, "BOARD 2"));
+
+    assertEquals(List.of("BOARD 2", "PIECE"), drain(queue));
+  }
+}
@@ -0,0 +1,77 @@
+package uk.ac.soton.comp1206.replay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+import uk.ac.soton.comp1206.engine.Board;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.ManualGameTimer;
+import uk.ac.soton.comp1206.engine.RandomPieceSource;
+import uk.ac.soton.comp1206.simulation.Policies;
+
+/**
+ * Tests that replaying a recorded game ends in the same state as the game did
+ */
+class ReplayRoundTripTest {
+
+  /**
+   * The most turns to play before stopping a game still going
+   */
+  private static final int MAX_TURNS = 500;
+
+  /**
+   * A game played to the end replays to the same board, score, level and lives
+   */
+  @Test
+  void replaysToSameState() throws IOException {
+    for (long seed = 1; seed <= 5; seed++) {
+      var out = new ByteArrayOutputStream();
+      var board = new Board(5, 5);
+      var timer = new ManualGameTimer();
+      var random = new SplittableRandom(seed);
+      var policyRandom = random.split();
+      var engine = new GameEngine(board, new RandomPieceSource(random), timer, timer);
+      var over = new boolean[1];
+      var writer = new ReplayWriter(Channels.newChannel(out), timer, 5, 5, seed) {
+        @Override
+        public void gameOver() {
+          over[0] = true;
+        }
+      };
+      engine.setListener(writer);
+      engine.start();
+
+      var policy = Policies.greedy();
+      for (var turn = 0; turn < MAX_TURNS && !over[0]; turn++) {
+        var move = policy.choose(engine, policyRandom);
+        if (move == null || !move.playOn(engine)) {
+          timer.expire();
+        }
+      }
+      engine.stop();
+      writer.close();
+
+      var player = new ReplayPlayer(ByteBuffer.wrap(out.toByteArray()));
+      assertEquals(seed, player.getSeed());
+      while (player.step()) {
+        //Play every event
+      }
+      assertTrue(player.isFinished());
+
+      var replayed = player.getEngine();
+      assertEquals(engine.getScore(), replayed.getScore(), "score of game " + seed);
+      assertEquals(engine.getLevel(), replayed.getLevel(), "level of game " + seed);
+      assertEquals(engine.getLives(), replayed.getLives(), "lives of game " + seed);
+      for (var cell = 0; cell < board.getCellCount(); cell++) {
+        assertEquals(board.getCell(cell), replayed.getBoard().getCell(cell),
+            "cell " + cell + " of game " + seed);
+      }
+    }
+  }
+}